@@ -0,0 +1,88 @@
+package com.example.receiptprocessor.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.example.receiptprocessor.config.ReceiptProperties;
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.FastRuleEvaluator;
+import com.example.receiptprocessor.rules.RuleEngine;
+import com.example.receiptprocessor.service.ReceiptService;
+import com.example.receiptprocessor.store.CompactReceiptStore;
+import com.example.receiptprocessor.store.IdGenerator;
+import com.example.receiptprocessor.store.IdGeneratorType;
+import com.example.receiptprocessor.store.IdempotencyIndex;
+import com.example.receiptprocessor.store.RandomIdGenerator;
+import com.example.receiptprocessor.store.RetainingReceiptStore;
+import com.example.receiptprocessor.store.TimeOrderedIdGenerator;
+
+/**
+ * Each {@link IdGenerator} on its own and as part of ingest ({@link ReceiptService#processReceipt}, lazy
+ * points), from 1, 8 and 32 threads sharing the generator and the service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IdGeneratorBenchmark {
+    // Keeps the store from growing without bound over a long run
+    private static final long MAX_ENTRIES = 1_000_000;
+
+    @Param({"TIME_ORDERED", "RANDOM"})
+    private IdGeneratorType generator;
+
+    private IdGenerator idGenerator;
+    private ReceiptService receiptService;
+    private Receipt receipt;
+
+    @Setup
+    public void setUp() {
+        idGenerator = generator == IdGeneratorType.RANDOM ? new RandomIdGenerator() : new TimeOrderedIdGenerator(1);
+        receiptService = new ReceiptService(new FastRuleEvaluator(new RuleEngine()),
+            new RetainingReceiptStore(new CompactReceiptStore(), MAX_ENTRIES, null), new ReceiptProperties(),
+            new IdempotencyIndex(false, false), idGenerator);
+        receipt = ReceiptShapes.generate("morning-receipt", 2, 16);
+    }
+
+    @Benchmark
+    public String nextId() {
+        return idGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String nextId8() {
+        return idGenerator.nextId();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public String nextId32() {
+        return idGenerator.nextId();
+    }
+
+    @Benchmark
+    public String ingest() {
+        return receiptService.processReceipt(receipt);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String ingest8() {
+        return receiptService.processReceipt(receipt);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public String ingest32() {
+        return receiptService.processReceipt(receipt);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.receiptprocessor.benchmark;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.FastRuleEvaluator;
+import com.example.receiptprocessor.rules.ItemSplitter;
+import com.example.receiptprocessor.rules.RuleCompiler;
+import com.example.receiptprocessor.rules.RuleDefinition;
+import com.example.receiptprocessor.rules.RuleEngine;
+import com.example.receiptprocessor.rules.RulePipeline;
+
+/**
+ * Scoring of wholesale-sized receipts with the items split across the common fork/join pool (threshold 1)
+ * and in one loop (threshold 0). The item count where split becomes faster is the threshold to configure
+ * as receipt.rules.parallel-threshold on that hardware.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemSplitterBenchmark {
+
+    @Param({"1000", "2000", "4000", "8000", "16000", "64000"})
+    private int itemCount;
+
+    @Param({"0", "1"})
+    private int threshold;
+
+    private Receipt receipt;
+    private RulePipeline pipeline;
+    private FastRuleEvaluator fastRuleEvaluator;
+
+    @Setup
+    public void setUp() {
+        receipt = ReceiptShapes.generate("morning-receipt", itemCount, 16);
+        ItemSplitter splitter = new ItemSplitter(threshold, ForkJoinPool.commonPool());
+        pipeline = RuleCompiler.compile(RuleDefinition.defaults()).withItemSplitter(splitter);
+        fastRuleEvaluator = new FastRuleEvaluator(new RuleEngine());
+        fastRuleEvaluator.setItemSplitter(splitter);
+    }
+
+    @Benchmark
+    public int pipeline() {
+        return pipeline.evaluate(receipt);
+    }
+
+    @Benchmark
+    public int fastRuleEvaluator() {
+        return fastRuleEvaluator.evaluate(receipt);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.receiptprocessor.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.receiptprocessor.ratelimit.ClientRateLimiter;
+import com.example.receiptprocessor.ratelimit.LoadShedder;
+import com.example.receiptprocessor.ratelimit.RateLimitFilter;
+
+import jakarta.servlet.ServletException;
+
+/**
+ * Cost per request of {@link ClientRateLimiter} and of the whole {@link RateLimitFilter} (limiter plus
+ * {@link LoadShedder}), admitting every request, over 1 to 100,000 clients and from 1 and 8 threads. The
+ * budget is under a microsecond per request; the filter benchmark includes building the mock request,
+ * so it overstates the filter's own cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "1000", "100000"})
+    private int clients;
+
+    private ClientRateLimiter limiter;
+    private RateLimitFilter filter;
+    private String[] clientIds;
+
+    @Setup
+    public void setUp() {
+        // Never rejects, so every call takes the admitting path
+        limiter = new ClientRateLimiter(1e9, Integer.MAX_VALUE, clients * 2);
+        filter = new RateLimitFilter(new ClientRateLimiter(1e9, Integer.MAX_VALUE, clients * 2),
+            new LoadShedder(TimeUnit.MILLISECONDS.toNanos(250)), "X-Client-Id");
+        clientIds = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            clientIds[i] = "pos-" + i;
+        }
+    }
+
+    private String nextClient() {
+        return clientIds[ThreadLocalRandom.current().nextInt(clients)];
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        return limiter.tryAcquire(nextClient());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long tryAcquire8() {
+        return limiter.tryAcquire(nextClient());
+    }
+
+    @Benchmark
+    public int filter() throws IOException, ServletException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/receipts/process");
+        request.addHeader("X-Client-Id", nextClient());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
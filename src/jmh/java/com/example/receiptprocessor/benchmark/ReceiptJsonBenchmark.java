@@ -0,0 +1,60 @@
+package com.example.receiptprocessor.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Jackson reading and writing of a {@link Receipt}, the work the controller does around every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReceiptJsonBenchmark {
+
+    @Param({"morning-receipt", "simple-receipt"})
+    private String sample;
+
+    @Param({"1", "10", "100", "500"})
+    private int itemCount;
+
+    @Param({"16", "256"})
+    private int retailerLength;
+
+    private ObjectReader reader;
+    private ObjectWriter writer;
+    private Receipt receipt;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        reader = objectMapper.readerFor(Receipt.class);
+        writer = objectMapper.writerFor(Receipt.class);
+        receipt = ReceiptShapes.generate(sample, itemCount, retailerLength);
+        json = writer.writeValueAsBytes(receipt);
+    }
+
+    @Benchmark
+    public Receipt deserialize() throws IOException {
+        return reader.readValue(json);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(receipt);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.receiptprocessor.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.example.receiptprocessor.config.ReceiptProperties;
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.ItemSplitter;
+import com.example.receiptprocessor.rules.RuleCompiler;
+import com.example.receiptprocessor.rules.RuleDefinition;
+import com.example.receiptprocessor.rules.RulePipelineEvaluator;
+import com.example.receiptprocessor.service.PointsMode;
+import com.example.receiptprocessor.service.ReceiptService;
+import com.example.receiptprocessor.store.CompactReceiptStore;
+import com.example.receiptprocessor.store.IdempotencyIndex;
+import com.example.receiptprocessor.store.RetainingReceiptStore;
+import com.example.receiptprocessor.store.TimeOrderedIdGenerator;
+
+/**
+ * {@link ReceiptService#calculatePoints} per points mode, and {@link ReceiptService#processReceipt} from one
+ * thread and from several threads sharing the service. Points come from the compiled default rules, the
+ * evaluator the application uses; only EAGER scores a receipt as it is processed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReceiptServiceBenchmark {
+    // Keeps the store from growing without bound over a long run
+    private static final long MAX_ENTRIES = 1_000_000;
+
+    @Param({"morning-receipt", "simple-receipt"})
+    private String sample;
+
+    @Param({"1", "10", "100", "500"})
+    private int itemCount;
+
+    @Param({"EAGER", "LAZY", "RECOMPUTE"})
+    private PointsMode mode;
+
+    private ReceiptService receiptService;
+    private Receipt receipt;
+    private String id;
+
+    @Setup
+    public void setUp() {
+        ReceiptProperties properties = new ReceiptProperties();
+        properties.getPoints().setMode(mode);
+        RulePipelineEvaluator evaluator = new RulePipelineEvaluator(RuleCompiler.compile(RuleDefinition.defaults()),
+            null, ItemSplitter.DEFAULT);
+        receiptService = new ReceiptService(evaluator,
+            new RetainingReceiptStore(new CompactReceiptStore(), MAX_ENTRIES, null), properties,
+            new IdempotencyIndex(false, false), new TimeOrderedIdGenerator(0));
+        receipt = ReceiptShapes.generate(sample, itemCount, 16);
+        id = receiptService.processReceipt(receipt);
+    }
+
+    @Benchmark
+    public int calculatePoints() {
+        return receiptService.calculatePoints(id);
+    }
+
+    @Benchmark
+    public String processReceipt() {
+        return receiptService.processReceipt(receipt);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String processReceiptContended() {
+        return receiptService.processReceipt(receipt);
+    }
+}
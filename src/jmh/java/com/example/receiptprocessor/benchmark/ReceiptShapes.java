@@ -0,0 +1,71 @@
+package com.example.receiptprocessor.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Builds benchmark receipts of a given shape from the samples in {@code src/test/resources/mockdata}: the
+ * sample's items are repeated (with varied descriptions and prices) up to the requested item count, the
+ * retailer name is repeated up to the requested length, and the total is the sum of the item prices.
+ */
+final class ReceiptShapes {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ReceiptShapes() {
+    }
+
+    static Receipt sample(String name) {
+        try (InputStream is = ReceiptShapes.class.getResourceAsStream("/mockdata/" + name + ".json")) {
+            if (is == null) {
+                throw new IllegalArgumentException("No mockdata sample named " + name);
+            }
+            return objectMapper.readValue(is, Receipt.class);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    static Receipt generate(String sampleName, int itemCount, int retailerLength) {
+        Receipt sample = sample(sampleName);
+        Receipt receipt = new Receipt();
+        receipt.setRetailer(repeat(sample.getRetailer(), retailerLength));
+        receipt.setPurchaseDate(sample.getPurchaseDate());
+        receipt.setPurchaseTime(sample.getPurchaseTime());
+
+        List<Item> items = new ArrayList<>(itemCount);
+        long totalCents = 0;
+        for (int i = 0; i < itemCount; i++) {
+            Item template = sample.getItems().get(i % sample.getItems().size());
+            Item item = new Item();
+            // Varying the length spreads the descriptions across both outcomes of rule 5
+            item.setShortDescription(template.getShortDescription() + " #".repeat(i % 3));
+            long cents = Math.round(Double.parseDouble(template.getPrice()) * 100) + i % 100;
+            item.setPrice(formatCents(cents));
+            items.add(item);
+            totalCents += cents;
+        }
+        receipt.setItems(items);
+        receipt.setTotal(formatCents(totalCents));
+        return receipt;
+    }
+
+    private static String repeat(String value, int length) {
+        StringBuilder out = new StringBuilder(length);
+        while (out.length() < length) {
+            out.append(value).append(' ');
+        }
+        out.setLength(length);
+        return out.toString();
+    }
+
+    private static String formatCents(long cents) {
+        return String.format("%d.%02d", cents / 100, cents % 100);
+    }
+}
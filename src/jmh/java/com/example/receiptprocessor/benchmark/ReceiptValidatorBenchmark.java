@@ -0,0 +1,71 @@
+package com.example.receiptprocessor.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.RuleEngine;
+import com.example.receiptprocessor.service.ReceiptValidator;
+
+/**
+ * Throughput of rejecting a flood of malformed receipts with {@link ReceiptValidator}, against accepting
+ * valid ones and against the old way of finding out: scoring the receipt with {@link RuleEngine} until a
+ * parse exception is thrown and caught.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReceiptValidatorBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int itemCount;
+
+    private final RuleEngine ruleEngine = new RuleEngine();
+    private Receipt valid;
+    private Receipt malformedTotal;
+    private Receipt malformedLastPrice;
+
+    @Setup
+    public void setUp() {
+        valid = ReceiptShapes.generate("morning-receipt", itemCount, 16);
+        malformedTotal = ReceiptShapes.generate("morning-receipt", itemCount, 16);
+        malformedTotal.setTotal("12,34");
+        // Found only after every other field has been read
+        malformedLastPrice = ReceiptShapes.generate("morning-receipt", itemCount, 16);
+        malformedLastPrice.getItems().get(itemCount - 1).setPrice("1.2.3");
+    }
+
+    @Benchmark
+    public boolean validateValid() {
+        return ReceiptValidator.validate(valid, ReceiptValidator.DEFAULT_MAX_ERRORS).isValid();
+    }
+
+    @Benchmark
+    public String rejectMalformedTotal() {
+        return ReceiptValidator.validate(malformedTotal, ReceiptValidator.DEFAULT_MAX_ERRORS).toException().getMessage();
+    }
+
+    @Benchmark
+    public String rejectMalformedLastPrice() {
+        return ReceiptValidator.validate(malformedLastPrice, ReceiptValidator.DEFAULT_MAX_ERRORS).toException()
+            .getMessage();
+    }
+
+    // The total is the first thing the rules parse, as it was in ReceiptService before validation
+    @Benchmark
+    public String scoreMalformedTotal() {
+        try {
+            return Integer.toString(ruleEngine.calculateRoundDollarPoints(Double.valueOf(malformedTotal.getTotal())));
+        } catch (NumberFormatException ex) {
+            return ex.getMessage();
+        }
+    }
+}
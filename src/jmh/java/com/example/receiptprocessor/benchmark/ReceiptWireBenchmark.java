@@ -0,0 +1,87 @@
+package com.example.receiptprocessor.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.FastRuleEvaluator;
+import com.example.receiptprocessor.rules.RuleEngine;
+import com.example.receiptprocessor.wire.ReceiptWireFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * The binary wire format against Jackson JSON for the same receipts: encoding, decoding, and decoding then
+ * scoring, the work of a binary ingest. The bytes on the wire of both encodings are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReceiptWireBenchmark {
+
+    @Param({"morning-receipt", "simple-receipt"})
+    private String sample;
+
+    @Param({"1", "10", "100", "500"})
+    private int itemCount;
+
+    private ObjectReader reader;
+    private ObjectWriter writer;
+    private FastRuleEvaluator evaluator;
+    private Receipt receipt;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        reader = objectMapper.readerFor(Receipt.class);
+        writer = objectMapper.writerFor(Receipt.class);
+        evaluator = new FastRuleEvaluator(new RuleEngine());
+        receipt = ReceiptShapes.generate(sample, itemCount, 16);
+        json = writer.writeValueAsBytes(receipt);
+        binary = ReceiptWireFormat.encodeReceipt(receipt);
+        System.out.printf("%n%s x %d items: json=%d bytes, binary=%d bytes%n", sample, itemCount, json.length,
+            binary.length);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() throws IOException {
+        return writer.writeValueAsBytes(receipt);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return ReceiptWireFormat.encodeReceipt(receipt);
+    }
+
+    @Benchmark
+    public Receipt deserializeJson() throws IOException {
+        return reader.readValue(json);
+    }
+
+    @Benchmark
+    public Receipt deserializeBinary() {
+        return ReceiptWireFormat.decodeReceipt(binary);
+    }
+
+    @Benchmark
+    public int deserializeAndScoreJson() throws IOException {
+        return evaluator.evaluate(reader.readValue(json));
+    }
+
+    @Benchmark
+    public int deserializeAndScoreBinary() {
+        return evaluator.evaluate(ReceiptWireFormat.decodeReceipt(binary));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.receiptprocessor.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.FastRuleEvaluator;
+import com.example.receiptprocessor.rules.RuleEngine;
+
+/**
+ * Each {@link RuleEngine} rule on its own, and all of them through {@link FastRuleEvaluator}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RuleEngineBenchmark {
+
+    @Param({"morning-receipt", "simple-receipt"})
+    private String sample;
+
+    @Param({"1", "10", "100", "500"})
+    private int itemCount;
+
+    @Param({"16", "256"})
+    private int retailerLength;
+
+    private final RuleEngine ruleEngine = new RuleEngine();
+    private final FastRuleEvaluator ruleEvaluator = new FastRuleEvaluator(ruleEngine);
+    private Receipt receipt;
+    private Double total;
+
+    @Setup
+    public void setUp() {
+        receipt = ReceiptShapes.generate(sample, itemCount, retailerLength);
+        total = Double.valueOf(receipt.getTotal());
+    }
+
+    @Benchmark
+    public int retailerNamePoints() {
+        return ruleEngine.calculateRetailerNamePoints(receipt.getRetailer());
+    }
+
+    @Benchmark
+    public int roundDollarPoints() {
+        return ruleEngine.calculateRoundDollarPoints(total);
+    }
+
+    @Benchmark
+    public int quarterMultiplePoints() {
+        return ruleEngine.calculateQuarterMultiplePoints(total);
+    }
+
+    @Benchmark
+    public int itemPairPoints() {
+        return ruleEngine.calculateItemPairPoints(receipt.getItems());
+    }
+
+    @Benchmark
+    public void itemDescriptionPoints(Blackhole blackhole) {
+        for (Item item : receipt.getItems()) {
+            blackhole.consume(ruleEngine.calculateItemDescriptionPoints(item));
+        }
+    }
+
+    @Benchmark
+    public int purchaseDatePoints() {
+        return ruleEngine.calculatePurchaseDatePoints(receipt.getPurchaseDate());
+    }
+
+    @Benchmark
+    public int purchaseTimePoints() {
+        return ruleEngine.calculatePurchaseTimePoints(receipt.getPurchaseTime());
+    }
+
+    @Benchmark
+    public int allRules() {
+        return ruleEvaluator.evaluate(receipt);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.receiptprocessor.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.FastRuleEvaluator;
+import com.example.receiptprocessor.rules.RuleCompiler;
+import com.example.receiptprocessor.rules.RuleDefinition;
+import com.example.receiptprocessor.rules.RuleEngine;
+import com.example.receiptprocessor.rules.RulePipeline;
+
+/**
+ * The compiled rule pipeline against the hand-written rules: each default rule alone as a one-rule
+ * pipeline against its {@link RuleEngine} method, and all seven against {@link FastRuleEvaluator}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RulePipelineBenchmark {
+
+    @Param({"retailer-alphanumeric", "round-total", "total-multiple", "item-pairs", "item-description-length",
+        "odd-day", "time-window"})
+    private String rule;
+
+    @Param({"1", "10", "100"})
+    private int itemCount;
+
+    private Receipt receipt;
+    private RulePipeline singleRule;
+    private ToIntFunction<Receipt> handWritten;
+    private RulePipeline allRules;
+    private FastRuleEvaluator fastRuleEvaluator;
+
+    @Setup
+    public void setUp() {
+        receipt = ReceiptShapes.generate("morning-receipt", itemCount, 16);
+        List<RuleDefinition> defaults = RuleDefinition.defaults();
+        singleRule = RuleCompiler.compile(defaults.stream().filter(definition -> definition.getType().equals(rule))
+            .toList());
+        handWritten = handWritten(new RuleEngine(), rule);
+        allRules = RuleCompiler.compile(defaults);
+        fastRuleEvaluator = new FastRuleEvaluator(new RuleEngine());
+    }
+
+    @Benchmark
+    public int pipelineRule() {
+        return singleRule.evaluate(receipt);
+    }
+
+    @Benchmark
+    public int handWrittenRule() {
+        return handWritten.applyAsInt(receipt);
+    }
+
+    @Benchmark
+    public int pipelineAllRules() {
+        return allRules.evaluate(receipt);
+    }
+
+    @Benchmark
+    public int fastRuleEvaluatorAllRules() {
+        return fastRuleEvaluator.evaluate(receipt);
+    }
+
+    private static ToIntFunction<Receipt> handWritten(RuleEngine ruleEngine, String rule) {
+        switch (rule) {
+            case "retailer-alphanumeric":
+                return receipt -> ruleEngine.calculateRetailerNamePoints(receipt.getRetailer());
+            case "round-total":
+                return receipt -> ruleEngine.calculateRoundDollarPoints(Double.valueOf(receipt.getTotal()));
+            case "total-multiple":
+                return receipt -> ruleEngine.calculateQuarterMultiplePoints(Double.valueOf(receipt.getTotal()));
+            case "item-pairs":
+                return receipt -> ruleEngine.calculateItemPairPoints(receipt.getItems());
+            case "item-description-length":
+                return receipt -> {
+                    int points = 0;
+                    for (Item item : receipt.getItems()) {
+                        points += ruleEngine.calculateItemDescriptionPoints(item);
+                    }
+                    return points;
+                };
+            case "odd-day":
+                return receipt -> ruleEngine.calculatePurchaseDatePoints(receipt.getPurchaseDate());
+            case "time-window":
+                return receipt -> ruleEngine.calculatePurchaseTimePoints(receipt.getPurchaseTime());
+            default:
+                throw new IllegalArgumentException("Unknown rule " + rule);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.receiptprocessor.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.receiptprocessor.ReceiptProcessorApplication;
+
+/**
+ * Starts the application once per thread mode (platform or virtual request threads) and drives it with a
+ * closed loop of clients, one connection each, alternating POST /receipts/process and GET
+ * /receipts/{id}/points. Prints throughput and latency percentiles per mode and connection count.
+ * Configured through system properties, see the loadTest task in build.gradle.
+ */
+public final class LoadTest {
+    private static final String PREFIX = "loadtest.";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] connections = Arrays.stream(property("connections", "1000,10000").split(","))
+            .mapToInt(value -> Integer.parseInt(value.trim())).toArray();
+        Duration duration = DurationStyle.detectAndParse(property("duration", "30s"));
+        Duration warmup = DurationStyle.detectAndParse(property("warmup", "10s"));
+        String[] modes = property("modes", "platform,virtual").split(",");
+        String receipt = Files.readString(Path.of(property("receipt",
+            "src/test/resources/mockdata/morning-receipt.json")));
+        int maxConnections = Arrays.stream(connections).max().orElse(0);
+
+        List<String> results = new ArrayList<>();
+        for (String mode : modes) {
+            boolean virtual = "virtual".equals(mode.trim());
+            try (ConfigurableApplicationContext context = start(virtual, maxConnections)) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                URI base = URI.create("http://localhost:" + port + "/receipts/");
+                for (int count : connections) {
+                    run(base, receipt, count, warmup);
+                    Result result = run(base, receipt, count, duration);
+                    results.add(String.format("%-8s %11d %12d %9.2f %9.2f %9.2f %9.2f %8d",
+                        mode.trim(), count, result.perSecond(), result.percentile(0.5), result.percentile(0.99),
+                        result.percentile(0.999), result.max(), result.errors));
+                }
+            }
+        }
+
+        System.out.printf("%-8s %11s %12s %9s %9s %9s %9s %8s%n",
+            "mode", "connections", "requests/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+        results.forEach(System.out::println);
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtual, int maxConnections) {
+        return new SpringApplicationBuilder(ReceiptProcessorApplication.class)
+            .profiles("production")
+            .properties(
+                "server.port=0",
+                "spring.threads.virtual.enabled=" + virtual,
+                // Room for every client connection, so Tomcat's thread model is what is measured
+                "server.tomcat.max-connections=" + (maxConnections + 1000),
+                "server.tomcat.accept-count=" + maxConnections,
+                "receipt.logging.access-log.enabled=false")
+            .run();
+    }
+
+    private static Result run(URI base, String receipt, int connections, Duration duration) {
+        Result result = new Result();
+        long deadline = System.nanoTime() + duration.toNanos();
+        // HTTP/1.1 opens a connection per request in flight, so each client loop holds its own connection
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+                HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                    .executor(executor).build()) {
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < connections; i++) {
+                    clients.submit(() -> result.add(drive(client, base, receipt, deadline)));
+                }
+            }
+        }
+        result.nanos = duration.toNanos();
+        return result;
+    }
+
+    // Closed loop for one connection until the deadline; returns the latencies it saw, in nanoseconds
+    private static Latencies drive(HttpClient client, URI base, String receipt, long deadline) {
+        Latencies latencies = new Latencies();
+        HttpRequest process = HttpRequest.newBuilder(base.resolve("process"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(receipt))
+            .build();
+        String id = null;
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = id == null ? process : HttpRequest.newBuilder(base.resolve(id + "/points")).build();
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                latencies.add(System.nanoTime() - start);
+                if (response.statusCode() != 200) {
+                    latencies.errors++;
+                    id = null;
+                } else if (id == null) {
+                    // {"id":"..."}
+                    String body = response.body();
+                    id = body.substring(body.indexOf(':') + 2, body.lastIndexOf('"'));
+                } else {
+                    id = null;
+                }
+            } catch (IOException ex) {
+                latencies.errors++;
+                id = null;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return latencies;
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty(PREFIX + name, defaultValue);
+    }
+
+    private static final class Latencies {
+        private long[] values = new long[1024];
+        private int size;
+        private long errors;
+
+        void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+    }
+
+    private static final class Result {
+        private final List<Latencies> parts = new ArrayList<>();
+        private final LongAdder requests = new LongAdder();
+        private long errors;
+        private long nanos;
+        private long[] sorted;
+
+        synchronized void add(Latencies latencies) {
+            parts.add(latencies);
+            requests.add(latencies.size);
+            errors += latencies.errors;
+        }
+
+        long perSecond() {
+            return requests.sum() * TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanos);
+        }
+
+        double percentile(double quantile) {
+            long[] values = sorted();
+            if (values.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(values.length - 1, Math.ceil(quantile * values.length) - 1);
+            return values[Math.max(0, index)] / 1e6;
+        }
+
+        double max() {
+            long[] values = sorted();
+            return values.length == 0 ? 0 : values[values.length - 1] / 1e6;
+        }
+
+        private synchronized long[] sorted() {
+            if (sorted == null) {
+                long[] all = new long[(int) requests.sum()];
+                int offset = 0;
+                for (Latencies part : parts) {
+                    System.arraycopy(part.values, 0, all, offset, part.size);
+                    offset += part.size;
+                }
+                Arrays.sort(all);
+                sorted = all;
+            }
+            return sorted;
+        }
+    }
+}
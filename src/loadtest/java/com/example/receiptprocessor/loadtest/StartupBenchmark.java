@@ -0,0 +1,162 @@
+package com.example.receiptprocessor.loadtest;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Starts the application in a new JVM once per run and startup mode, and measures the time from launching the
+ * JVM to the first POST /receipts/process answered with 200, which is what a scaled-out node costs in dropped
+ * requests. A mode is "default" or a "+"-joined set of:
+ * <ul>
+ * <li>lazy: the fast-start profile (lazy bean initialization)</li>
+ * <li>cds: the class data sharing archive trained by the cdsArchive task</li>
+ * <li>aot: Spring AOT bean definitions (the jar must be built with -Paot)</li>
+ * </ul>
+ * Every mode runs the same plain jar from the cdsArchive layout, so only the mode differs. Prints the median,
+ * minimum and maximum per mode, and the median startup time Spring reports for comparison. Configured through
+ * system properties, see the startupBenchmark task in build.gradle.
+ */
+public final class StartupBenchmark {
+    private static final String PREFIX = "startup.";
+    private static final Set<String> FLAGS = Set.of("lazy", "cds", "aot");
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String java = property("java", Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        Path directory = Path.of(property("directory", "build/cds"));
+        int runs = Integer.parseInt(property("runs", "5"));
+        String[] modes = property("modes", "default,lazy,cds,cds+lazy").split(",");
+        String receipt = Files.readString(Path.of(property("receipt",
+            "src/test/resources/mockdata/morning-receipt.json")));
+
+        List<String> results = new ArrayList<>();
+        try (HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build()) {
+            for (String mode : modes) {
+                mode = mode.trim();
+                List<String> command = List.of();
+                long[] firstRequest = new long[runs];
+                double[] reported = new double[runs];
+                for (int run = 0; run < runs; run++) {
+                    int port = freePort();
+                    command = command(java, mode, port);
+                    Path log = directory.resolve("startup-" + mode.replace('+', '-') + "-" + run + ".log");
+                    long started = System.nanoTime();
+                    Process process = new ProcessBuilder(command)
+                        .directory(directory.toFile())
+                        .redirectErrorStream(true)
+                        .redirectOutput(log.toFile())
+                        .start();
+                    try {
+                        firstRequest[run] = awaitFirstRequest(client, process, port, receipt, started);
+                    } finally {
+                        stop(process);
+                    }
+                    reported[run] = reportedSeconds(log);
+                }
+                Arrays.sort(firstRequest);
+                Arrays.sort(reported);
+                results.add(String.format("%-16s %5d %12.0f %9.0f %9.0f %12.0f", mode, runs,
+                    firstRequest[runs / 2] / 1e6, firstRequest[0] / 1e6, firstRequest[runs - 1] / 1e6,
+                    reported[runs / 2] * 1000));
+                System.out.println("Ran " + String.join(" ", command));
+            }
+        }
+
+        System.out.printf("%-16s %5s %12s %9s %9s %12s%n",
+            "mode", "runs", "first ms", "min ms", "max ms", "spring ms");
+        results.forEach(System.out::println);
+    }
+
+    private static List<String> command(String java, String mode, int port) {
+        List<String> flags = "default".equals(mode) ? List.of() : Arrays.asList(mode.split("\\+"));
+        for (String flag : flags) {
+            if (!FLAGS.contains(flag)) {
+                throw new IllegalArgumentException("Unknown startup mode " + flag + " in " + mode
+                    + "; use default or a +-joined set of " + FLAGS);
+            }
+        }
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        if (flags.contains("cds")) {
+            command.add("-XX:SharedArchiveFile=application.jsa");
+        }
+        if (flags.contains("aot")) {
+            command.add("-Dspring.aot.enabled=true");
+        }
+        command.add("-jar");
+        command.add("receipt-processor.jar");
+        command.add("--server.port=" + port);
+        if (flags.contains("lazy")) {
+            command.add("--spring.profiles.active=fast-start");
+        }
+        return command;
+    }
+
+    // Nanoseconds from launch to the first 200; retries as fast as the server refuses or fails requests
+    private static long awaitFirstRequest(HttpClient client, Process process, int port, String receipt,
+            long started) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/receipts/process"))
+            .header("Content-Type", "application/json")
+            .timeout(TIMEOUT)
+            .POST(HttpRequest.BodyPublishers.ofString(receipt))
+            .build();
+        long deadline = started + TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("The application exited with " + process.exitValue()
+                    + " before answering; see its log in the startup directory");
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return System.nanoTime() - started;
+                }
+            } catch (ConnectException ex) {
+                // Not listening yet
+            }
+            Thread.sleep(1);
+        }
+        throw new IllegalStateException("No successful request within " + TIMEOUT);
+    }
+
+    private static void stop(Process process) throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    // "Started ReceiptProcessorApplication in 1.234 seconds", or 0 if it was not logged
+    private static double reportedSeconds(Path log) throws IOException {
+        Matcher matcher = STARTED.matcher(Files.readString(log));
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : 0;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty(PREFIX + name, defaultValue);
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.receiptprocessor.analytics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.model.RollupTotals;
+import com.example.receiptprocessor.rules.DecodedFields;
+import com.example.receiptprocessor.rules.ReceiptFields;
+
+/**
+ * Receipt count, spend and points of the stored receipts by retailer, by purchase date and by hour of
+ * day, kept up to date as receipts are stored, scored and removed (see {@link RollupReceiptStore}). A
+ * bucket is read in constant time; the top retailers take one pass over the retailers with stored receipts,
+ * never over the receipts. Receipts whose date or time is not in its plain form count towards their retailer
+ * only.
+ * <p>
+ * Every bucket is updated without locks: it is looked up (or created) once and its adders are added to. A
+ * retailer or date bucket that a removal (e.g. an eviction) leaves empty is dropped right away, so the maps
+ * only hold keys of stored receipts however many retailer names clients have sent. Dropping marks the bucket
+ * retired before checking that it is empty, and an update that finds its bucket retired takes its delta back
+ * and applies it again to the bucket now in the map, so no update is lost to a bucket being dropped.
+ * <p>
+ * Points are counted as they are stored, which depends on the points mode: at ingest in eager mode, on first
+ * read in lazy mode, never in recompute mode. Only eager mode gives points totals over every stored receipt.
+ */
+public class ReceiptRollups {
+    private static final int HOURS = 24;
+
+    private final Map<String, Totals> byRetailer = new ConcurrentHashMap<>();
+    // Keyed by the date as YYYYMMDD
+    private final Map<Integer, Totals> byDay = new ConcurrentHashMap<>();
+    private final Totals[] byHour = new Totals[HOURS];
+
+    public ReceiptRollups() {
+        for (int hour = 0; hour < HOURS; hour++) {
+            byHour[hour] = new Totals();
+        }
+    }
+
+    void stored(Receipt receipt) {
+        bucketsOf(receipt, 1, spendCents(receipt.getTotal()), 0);
+    }
+
+    // The same as stored(receipt), with the fields decoded by validation (null if they were not)
+    void stored(Receipt receipt, DecodedFields fields) {
+        if (fields == null) {
+            stored(receipt);
+            return;
+        }
+        buckets(receipt.getRetailer(), fields.getPurchaseDate(), fields.getMinuteOfDay(), 1, fields.getTotalCents(),
+            0);
+    }
+
+    void removed(Receipt receipt) {
+        bucketsOf(receipt, -1, -spendCents(receipt.getTotal()), 0);
+    }
+
+    // Called once per receipt when its points are first stored, and with the negated points on removal
+    void scored(Receipt receipt, long points) {
+        bucketsOf(receipt, 0, 0, points);
+    }
+
+    public RollupTotals retailer(String retailer) {
+        Totals totals = byRetailer.get(retailer);
+        return totals != null ? totals.snapshot(retailer) : empty(retailer);
+    }
+
+    /**
+     * Totals of a purchase date in the {@code YYYY-MM-DD} form.
+     */
+    public RollupTotals day(String date) {
+        int packed = ReceiptFields.packedDate(date);
+        if (packed < 0) {
+            throw new IllegalArgumentException("Date must be a valid YYYY-MM-DD date");
+        }
+        Totals totals = byDay.get(packed);
+        return totals != null ? totals.snapshot(date) : empty(date);
+    }
+
+    public List<RollupTotals> hours() {
+        List<RollupTotals> hours = new ArrayList<>(HOURS);
+        for (int hour = 0; hour < HOURS; hour++) {
+            hours.add(byHour[hour].snapshot(Integer.toString(hour)));
+        }
+        return hours;
+    }
+
+    /**
+     * The retailers with the most receipts, spend or points, highest first.
+     */
+    public List<RollupTotals> topRetailers(int limit, RollupMeasure measure) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        ToLongFunction<Totals> value = measure.value();
+        // A min-heap of the best so far, so each retailer costs at most log(limit)
+        PriorityQueue<Map.Entry<String, Long>> top = new PriorityQueue<>(limit + 1, Map.Entry.comparingByValue());
+        byRetailer.forEach((retailer, totals) -> {
+            long current = value.applyAsLong(totals);
+            if (current <= 0) {
+                return;
+            }
+            if (top.size() < limit) {
+                top.add(Map.entry(retailer, current));
+            } else if (current > top.peek().getValue()) {
+                top.poll();
+                top.add(Map.entry(retailer, current));
+            }
+        });
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(top);
+        entries.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+            .thenComparing(Map.Entry.comparingByKey()));
+        List<RollupTotals> result = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Long> entry : entries) {
+            result.add(retailer(entry.getKey()));
+        }
+        return result;
+    }
+
+    private void bucketsOf(Receipt receipt, long receiptDelta, long centsDelta, long pointsDelta) {
+        int date = receipt.getPurchaseDate() != null ? ReceiptFields.packedDate(receipt.getPurchaseDate()) : -1;
+        int minute = receipt.getPurchaseTime() != null ? ReceiptFields.minuteOfDay(receipt.getPurchaseTime()) : -1;
+        buckets(receipt.getRetailer(), date, minute, receiptDelta, centsDelta, pointsDelta);
+    }
+
+    // A date or minute of -1 (not in its plain form) leaves that bucket out
+    private void buckets(String retailer, int date, int minute, long receiptDelta, long centsDelta,
+            long pointsDelta) {
+        add(byRetailer, retailer != null ? retailer : "", receiptDelta, centsDelta, pointsDelta);
+        if (date >= 0) {
+            add(byDay, date, receiptDelta, centsDelta, pointsDelta);
+        }
+        if (minute >= 0) {
+            byHour[minute / 60].add(receiptDelta, centsDelta, pointsDelta);
+        }
+    }
+
+    private static <K> void add(Map<K, Totals> buckets, K key, long receiptDelta, long centsDelta,
+            long pointsDelta) {
+        while (true) {
+            Totals totals = buckets.computeIfAbsent(key, k -> new Totals());
+            totals.add(receiptDelta, centsDelta, pointsDelta);
+            if (!totals.retired) {
+                break;
+            }
+            // Being dropped, or dropped already; apply the delta to the bucket in the map instead
+            totals.add(-receiptDelta, -centsDelta, -pointsDelta);
+            Thread.onSpinWait();
+        }
+        if (receiptDelta < 0 || pointsDelta < 0) {
+            Totals totals = buckets.get(key);
+            if (totals != null && totals.receipts.sum() == 0) {
+                drop(buckets, key, totals);
+            }
+        }
+    }
+
+    // Retires the bucket first, so every update that saw it live is in the sums checked here
+    private static <K> void drop(Map<K, Totals> buckets, K key, Totals totals) {
+        synchronized (totals) {
+            if (totals.retired) {
+                return;
+            }
+            totals.retired = true;
+            if (totals.isEmpty()) {
+                buckets.remove(key, totals);
+            } else {
+                totals.retired = false;
+            }
+        }
+    }
+
+    int retailerCount() {
+        return byRetailer.size();
+    }
+
+    int dayCount() {
+        return byDay.size();
+    }
+
+    // Plain totals are read as cents directly; other forms are rounded to the cent, and unreadable ones add nothing
+    static long spendCents(String total) {
+        if (total == null) {
+            return 0;
+        }
+        long cents = ReceiptFields.parseCents(total);
+        if (cents >= 0) {
+            return cents;
+        }
+        try {
+            return new BigDecimal(total.trim()).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (NumberFormatException | ArithmeticException ex) {
+            return 0;
+        }
+    }
+
+    private static RollupTotals empty(String key) {
+        return new RollupTotals(key, 0, "0.00", 0);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.receiptprocessor.analytics;
+
+import java.util.Locale;
+import java.util.function.ToLongFunction;
+
+public enum RollupMeasure {
+    RECEIPTS(totals -> totals.receipts.sum()),
+    SPEND(totals -> totals.spendCents.sum()),
+    POINTS(totals -> totals.points.sum());
+
+    private final ToLongFunction<Totals> value;
+
+    RollupMeasure(ToLongFunction<Totals> value) {
+        this.value = value;
+    }
+
+    /**
+     * Parses the measure name as used in requests, e.g. "points".
+     */
+    public static RollupMeasure parse(String name) {
+        for (RollupMeasure measure : values()) {
+            if (measure.name().equals(name.toUpperCase(Locale.ROOT))) {
+                return measure;
+            }
+        }
+        throw new IllegalArgumentException("Measure must be one of receipts, spend or points");
+    }
+
+    ToLongFunction<Totals> value() {
+        return value;
+    }
+}
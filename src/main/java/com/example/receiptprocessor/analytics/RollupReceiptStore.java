@@ -0,0 +1,115 @@
+package com.example.receiptprocessor.analytics;
+
+import java.util.function.Consumer;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.DecodedFields;
+import com.example.receiptprocessor.store.ReceiptStore;
+
+/**
+ * Feeds {@link ReceiptRollups} from another {@link ReceiptStore}: a stored receipt is added, its points
+ * when they are first stored, and a removed or evicted receipt is taken out again, so the rollups always
+ * match the stored receipts, including after recovery. Points that are only computed on read (recompute
+ * mode) are never stored and so never rolled up.
+ */
+public class RollupReceiptStore implements ReceiptStore {
+    // Stripes serializing the points updates and removal of a receipt, so racing lazy reads roll its points
+    // up once
+    private static final int LOCK_STRIPES = 64;
+
+    private final ReceiptStore delegate;
+    private final ReceiptRollups rollups;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public RollupReceiptStore(ReceiptStore delegate, ReceiptRollups rollups) {
+        this.delegate = delegate;
+        this.rollups = rollups;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public boolean putIfAbsent(String id, Receipt receipt) {
+        if (!delegate.putIfAbsent(id, receipt)) {
+            return false;
+        }
+        rollups.stored(receipt);
+        return true;
+    }
+
+    @Override
+    public boolean putIfAbsent(String id, Receipt receipt, DecodedFields fields) {
+        if (!delegate.putIfAbsent(id, receipt, fields)) {
+            return false;
+        }
+        rollups.stored(receipt, fields);
+        return true;
+    }
+
+    @Override
+    public Receipt get(String id) {
+        return delegate.get(id);
+    }
+
+    @Override
+    public boolean contains(String id) {
+        return delegate.contains(id);
+    }
+
+    @Override
+    public int getPoints(String id) {
+        return delegate.getPoints(id);
+    }
+
+    @Override
+    public void setPoints(String id, int points) {
+        synchronized (lockFor(id)) {
+            int previous = delegate.getPoints(id);
+            Receipt receipt = previous == NO_POINTS ? delegate.get(id) : null;
+            delegate.setPoints(id, points);
+            if (receipt != null) {
+                rollups.scored(receipt, points);
+            } else if (previous != NO_POINTS && previous != points) {
+                // Rescored, e.g. after the rules were reloaded
+                Receipt rescored = delegate.get(id);
+                if (rescored != null) {
+                    rollups.scored(rescored, (long) points - previous);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean remove(String id) {
+        // Under the same lock as setPoints, so points stored concurrently are not left behind
+        synchronized (lockFor(id)) {
+            Receipt receipt = delegate.get(id);
+            int points = delegate.getPoints(id);
+            if (!delegate.remove(id)) {
+                return false;
+            }
+            if (receipt != null) {
+                rollups.removed(receipt);
+                if (points != NO_POINTS) {
+                    rollups.scored(receipt, -points);
+                }
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void forEachId(Consumer<String> action) {
+        delegate.forEachId(action);
+    }
+
+    private Object lockFor(String id) {
+        return locks[(id.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+}
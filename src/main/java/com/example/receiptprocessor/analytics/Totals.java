@@ -0,0 +1,45 @@
+package com.example.receiptprocessor.analytics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.example.receiptprocessor.model.RollupTotals;
+
+/**
+ * The running totals of one bucket. LongAdders keep concurrent ingest from contending on a bucket, such as
+ * today's date or a busy retailer.
+ */
+final class Totals {
+    final LongAdder receipts = new LongAdder();
+    final LongAdder spendCents = new LongAdder();
+    final LongAdder points = new LongAdder();
+    // Set while the bucket is being dropped from its map, and for good once it is
+    volatile boolean retired;
+
+    void add(long receiptDelta, long centsDelta, long pointsDelta) {
+        if (receiptDelta != 0) {
+            receipts.add(receiptDelta);
+        }
+        if (centsDelta != 0) {
+            spendCents.add(centsDelta);
+        }
+        if (pointsDelta != 0) {
+            points.add(pointsDelta);
+        }
+    }
+
+    // Exact only once the bucket is retired, see ReceiptRollups
+    boolean isEmpty() {
+        return receipts.sum() == 0 && spendCents.sum() == 0 && points.sum() == 0;
+    }
+
+    RollupTotals snapshot(String key) {
+        return new RollupTotals(key, receipts.sum(), formatCents(spendCents.sum()), points.sum());
+    }
+
+    static String formatCents(long cents) {
+        String sign = cents < 0 ? "-" : "";
+        long abs = Math.abs(cents);
+        long fraction = abs % 100;
+        return sign + abs / 100 + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.receiptprocessor.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.example.receiptprocessor.logging.AccessLog;
+import com.example.receiptprocessor.logging.AccessLogFilter;
+import com.example.receiptprocessor.logging.RuleTraceFilter;
+
+@Configuration
+public class LoggingConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "receipt.logging.access-log", name = "enabled", havingValue = "true",
+        matchIfMissing = true)
+    public AccessLog accessLog(ReceiptProperties properties) {
+        ReceiptProperties.AccessLog accessLog = properties.getLogging().getAccessLog();
+        return new AccessLog(accessLog.getQueueCapacity(), accessLog.getBatchSize());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "receipt.logging.access-log", name = "enabled", havingValue = "true",
+        matchIfMissing = true)
+    public FilterRegistrationBean<AccessLogFilter> accessLogFilter(AccessLog accessLog) {
+        FilterRegistrationBean<AccessLogFilter> registration =
+            new FilterRegistrationBean<>(new AccessLogFilter(accessLog));
+        // Outermost, so the recorded status and duration cover everything else
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<RuleTraceFilter> ruleTraceFilter(ReceiptProperties properties) {
+        ReceiptProperties.RuleTrace ruleTrace = properties.getLogging().getRuleTrace();
+        return new FilterRegistrationBean<>(new RuleTraceFilter(ruleTrace.getHeader(), ruleTrace.getSampleRate()));
+    }
+}
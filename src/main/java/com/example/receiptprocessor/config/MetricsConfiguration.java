@@ -0,0 +1,76 @@
+package com.example.receiptprocessor.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.receiptprocessor.metrics.MicrometerRuleMetrics;
+import com.example.receiptprocessor.metrics.RequestMetricsFilter;
+import com.example.receiptprocessor.store.IdempotencyIndex;
+import com.example.receiptprocessor.store.MeteredReceiptStore;
+import com.example.receiptprocessor.store.ReceiptStore;
+import com.example.receiptprocessor.store.RetainingReceiptStore;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Application meters on top of the JVM, GC and process meters the actuator registers. Everything is
+ * registered at startup; store meters read counters the stores keep anyway.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<RequestMetricsFilter> requestMetricsFilter(MeterRegistry registry) {
+        FilterRegistrationBean<RequestMetricsFilter> registration =
+            new FilterRegistrationBean<>(new RequestMetricsFilter(registry));
+        registration.addUrlPatterns("/receipts/*");
+        return registration;
+    }
+
+    @Bean
+    public MicrometerRuleMetrics ruleMetrics(MeterRegistry registry, ReceiptProperties properties) {
+        return new MicrometerRuleMetrics(registry, properties.getMetrics().getRuleSampleInterval());
+    }
+
+    @Bean
+    public MeterBinder receiptStoreMetrics(ReceiptStore receiptStore) {
+        return registry -> {
+            Gauge.builder("receipt.store.size", receiptStore, ReceiptStore::size)
+                .description("Receipts currently stored")
+                .register(registry);
+            if (!(receiptStore instanceof MeteredReceiptStore metered)) {
+                return;
+            }
+            FunctionCounter.builder("receipt.ingested", metered, MeteredReceiptStore::getStored)
+                .description("Receipts stored; its rate is the ingest rate")
+                .register(registry);
+            FunctionCounter.builder("receipt.removed", metered, MeteredReceiptStore::getRemoved)
+                .description("Receipts removed after being rejected")
+                .register(registry);
+            if (metered.getDelegate() instanceof RetainingReceiptStore retaining) {
+                FunctionCounter.builder("receipt.store.hits", retaining, RetainingReceiptStore::getHits)
+                    .register(registry);
+                FunctionCounter.builder("receipt.store.misses", retaining, RetainingReceiptStore::getMisses)
+                    .register(registry);
+                FunctionCounter.builder("receipt.store.evictions", retaining, RetainingReceiptStore::getEvictions)
+                    .register(registry);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder idempotencyMetrics(IdempotencyIndex index) {
+        return registry -> {
+            Gauge.builder("receipt.idempotency.keys", index, IdempotencyIndex::size)
+                .description("Content and idempotency keys mapped to stored receipts")
+                .register(registry);
+            FunctionCounter.builder("receipt.duplicates", index, IdempotencyIndex::getDuplicates)
+                .description("Receipts answered with the ID of one already stored")
+                .register(registry);
+        };
+    }
+}
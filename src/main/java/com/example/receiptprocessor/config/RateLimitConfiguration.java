@@ -0,0 +1,63 @@
+package com.example.receiptprocessor.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.example.receiptprocessor.ratelimit.ClientRateLimiter;
+import com.example.receiptprocessor.ratelimit.LoadShedder;
+import com.example.receiptprocessor.ratelimit.RateLimitFilter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+@Configuration
+@ConditionalOnProperty(prefix = "receipt.rate-limit", name = "enabled", havingValue = "true")
+public class RateLimitConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(ReceiptProperties properties) {
+        ReceiptProperties.RateLimit rateLimit = properties.getRateLimit();
+        ClientRateLimiter limiter = new ClientRateLimiter(rateLimit.getRequestsPerSecond(), rateLimit.getBurst(),
+            rateLimit.getMaxClients());
+        Duration shedLatency = rateLimit.getShedLatency();
+        LoadShedder shedder = shedLatency == null || shedLatency.isZero() ? null : new LoadShedder(shedLatency.toNanos());
+        FilterRegistrationBean<RateLimitFilter> registration =
+            new FilterRegistrationBean<>(new RateLimitFilter(limiter, shedder, rateLimit.getClientHeader()));
+        registration.addUrlPatterns("/receipts/*");
+        // Right after the access log, so rejections are logged but cost nothing else
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder rateLimitMetrics(FilterRegistrationBean<RateLimitFilter> rateLimitFilter) {
+        ClientRateLimiter limiter = rateLimitFilter.getFilter().getLimiter();
+        LoadShedder shedder = rateLimitFilter.getFilter().getShedder();
+        return registry -> {
+            Gauge.builder("receipt.ratelimit.clients", limiter, ClientRateLimiter::getClients)
+                .description("Clients with a token bucket")
+                .register(registry);
+            FunctionCounter.builder("receipt.ratelimit.rejected", limiter, ClientRateLimiter::getRejected)
+                .description("Requests answered with 429")
+                .register(registry);
+            FunctionCounter.builder("receipt.ratelimit.overflowed", limiter, ClientRateLimiter::getOverflowed)
+                .description("Requests of new clients limited by the shared bucket while max-clients were tracked")
+                .register(registry);
+            if (shedder != null) {
+                FunctionCounter.builder("receipt.shed", shedder, LoadShedder::getShed)
+                    .description("Requests answered with 503 while latency was above the shedding threshold")
+                    .register(registry);
+                Gauge.builder("receipt.shed.latency", shedder, LoadShedder::getAverageNanos)
+                    .description("Average latency of single requests the shedding decision is based on")
+                    .baseUnit("nanoseconds")
+                    .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.receiptprocessor.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import com.example.receiptprocessor.rules.ItemSplitter;
+import com.example.receiptprocessor.rules.RuleDefinition;
+import com.example.receiptprocessor.service.PointsMode;
+import com.example.receiptprocessor.service.ReceiptValidator;
+import com.example.receiptprocessor.store.IdGeneratorType;
+import com.example.receiptprocessor.store.StoreType;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "receipt")
+public class ReceiptProperties {
+    private final Points points = new Points();
+    private final Store store = new Store();
+    private final Persistence persistence = new Persistence();
+    private final Snapshot snapshot = new Snapshot();
+    private final Validation validation = new Validation();
+    private final Idempotency idempotency = new Idempotency();
+    private final Analytics analytics = new Analytics();
+    private final RateLimit rateLimit = new RateLimit();
+    private final Logging logging = new Logging();
+    private final Metrics metrics = new Metrics();
+    private final Rules rules = new Rules();
+
+    @Data
+    public static class Points {
+        // When points are calculated: eager (at ingest), lazy (first read, memoized) or recompute (every read)
+        private PointsMode mode = PointsMode.LAZY;
+        // In eager mode, calculate points on a background thread instead of the request thread
+        private boolean async = false;
+    }
+
+    @Data
+    public static class Store {
+        // map keeps the received objects; compact packs them into primitives
+        private StoreType type = StoreType.COMPACT;
+        private final Retention retention = new Retention();
+        private final Ids ids = new Ids();
+    }
+
+    @Data
+    public static class Ids {
+        // time-ordered needs no shared state; random is UUID.randomUUID()
+        private IdGeneratorType generator = IdGeneratorType.TIME_ORDERED;
+        // Told apart in time-ordered IDs (0-65535); set a distinct one per instance sharing a store, or
+        // leave unset for a random one
+        private Integer node;
+    }
+
+    @Data
+    public static class Retention {
+        // Maximum number of stored receipts; 0 keeps everything
+        private long maxEntries = 0;
+        // How long a receipt and its points are kept; unset keeps them forever
+        private Duration maxAge;
+
+        public boolean isEnabled() {
+            return maxEntries > 0 || (maxAge != null && !maxAge.isZero());
+        }
+    }
+
+    @Data
+    public static class Persistence {
+        // Append receipts to a segmented log on disk and recover them on startup
+        private boolean enabled = false;
+        private Path directory = Path.of("data", "receipt-log");
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+        // Appends are forced to disk at most this long after they are made
+        private Duration syncInterval = Duration.ofMillis(100);
+        private Duration compactionInterval = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Snapshot {
+        // Keep a snapshot file of the stored receipts and points, written on demand at POST
+        // /receipts/admin/snapshot, for restarts that come back warm without the receipt log
+        private boolean enabled = false;
+        private Path file = Path.of("data", "receipts.snapshot");
+        // Load the snapshot into the store on startup; skipped when the receipt log has already recovered it
+        private boolean restoreOnStartup = true;
+        // Write a snapshot when the application shuts down
+        private boolean writeOnShutdown = true;
+    }
+
+    @Data
+    public static class Validation {
+        // Reject receipts whose fields cannot be scored when they are processed, instead of storing them
+        private boolean enabled = true;
+        // Validation of a receipt stops after this many field errors
+        private int maxErrors = ReceiptValidator.DEFAULT_MAX_ERRORS;
+    }
+
+    @Data
+    public static class Idempotency {
+        // Return the ID of an identical stored receipt instead of storing it again
+        private boolean contentHash = false;
+        // Return the ID first stored under a request's Idempotency-Key header
+        private boolean keys = true;
+
+        public boolean isEnabled() {
+            return contentHash || keys;
+        }
+    }
+
+    @Data
+    public static class Analytics {
+        // Keep totals by retailer, date and hour as receipts are stored, for the analytics endpoints
+        private boolean enabled = true;
+    }
+
+    @Data
+    public static class RateLimit {
+        // Limit each client to a token bucket on the receipt endpoints, answering 429 beyond it
+        private boolean enabled = false;
+        // Clients are told apart by remote address. A header naming the client is only honored when set here,
+        // and should only be set behind a trusted gateway that overwrites it, since any caller can send it
+        private String clientHeader;
+        // Tokens added to each client's bucket per second, and the bucket size
+        private double requestsPerSecond = 1000;
+        private int burst = 2000;
+        // At this many clients idle buckets are swept (at most once a second); new clients beyond it share one bucket
+        private int maxClients = 100_000;
+        // Shed a growing share of requests (503) while their average latency is above this; 0 never sheds
+        private Duration shedLatency = Duration.ofMillis(250);
+    }
+
+    @Data
+    public static class Logging {
+        private final AccessLog accessLog = new AccessLog();
+        private final RuleTrace ruleTrace = new RuleTrace();
+    }
+
+    @Data
+    public static class AccessLog {
+        // One structured line per request, written in batches by a background thread
+        private boolean enabled = true;
+        // Requests beyond this many pending lines are counted as dropped instead of blocking
+        private int queueCapacity = 65536;
+        private int batchSize = 512;
+    }
+
+    @Data
+    public static class RuleTrace {
+        // Requests carrying this header with value true log per-rule debug detail
+        private String header = "X-Debug-Rules";
+        // Fraction of the remaining requests that are traced, 0.0 to 1.0
+        private double sampleRate = 0.0;
+    }
+
+    @Data
+    public static class Metrics {
+        // Per-rule time and points are recorded for one in this many evaluations
+        private int ruleSampleInterval = 64;
+    }
+
+    @Data
+    public static class Rules {
+        // Score receipts with the configured rule pipeline; false uses the hand-written FastRuleEvaluator
+        private boolean pipeline = true;
+        // Rules in evaluation order; empty means the seven default rules
+        private List<RuleDefinition> definitions = new ArrayList<>();
+        // A YAML or JSON file of rules, used instead of the definitions and reloaded when it changes
+        private Path file;
+        private Duration reloadInterval = Duration.ofSeconds(10);
+        // Receipts with at least this many items are scored in parallel on the fork/join pool; 0 never splits
+        private int parallelThreshold = ItemSplitter.DEFAULT_THRESHOLD;
+    }
+}
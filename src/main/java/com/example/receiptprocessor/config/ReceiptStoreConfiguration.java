@@ -0,0 +1,150 @@
+package com.example.receiptprocessor.config;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.receiptprocessor.analytics.ReceiptRollups;
+import com.example.receiptprocessor.analytics.RollupReceiptStore;
+import com.example.receiptprocessor.persistence.PersistentReceiptStore;
+import com.example.receiptprocessor.persistence.ReceiptLog;
+import com.example.receiptprocessor.persistence.ReceiptSnapshotter;
+import com.example.receiptprocessor.service.PointsMode;
+import com.example.receiptprocessor.store.CompactReceiptStore;
+import com.example.receiptprocessor.store.IdGenerator;
+import com.example.receiptprocessor.store.IdempotencyIndex;
+import com.example.receiptprocessor.store.IndexedReceiptStore;
+import com.example.receiptprocessor.store.MapReceiptStore;
+import com.example.receiptprocessor.store.MeteredReceiptStore;
+import com.example.receiptprocessor.store.RandomIdGenerator;
+import com.example.receiptprocessor.store.ReceiptStore;
+import com.example.receiptprocessor.store.RetainingReceiptStore;
+import com.example.receiptprocessor.store.TimeOrderedIdGenerator;
+
+@Configuration
+public class ReceiptStoreConfiguration {
+    private static final Logger logger = LoggerFactory.getLogger(ReceiptStoreConfiguration.class);
+
+    // Under lazy initialization (the fast-start profile) the store is still built at startup, so the receipt
+    // log and snapshot are recovered before the first request instead of during it
+    @Bean
+    static LazyInitializationExcludeFilter eagerReceiptStore() {
+        return LazyInitializationExcludeFilter.forBeanTypes(ReceiptStore.class);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "receipt.persistence", name = "enabled", havingValue = "true")
+    public ReceiptLog receiptLog(ReceiptProperties properties) throws IOException {
+        ReceiptProperties.Persistence persistence = properties.getPersistence();
+        return new ReceiptLog(persistence.getDirectory(), (int) persistence.getSegmentSize().toBytes(),
+            persistence.getSyncInterval());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "receipt.snapshot", name = "enabled", havingValue = "true")
+    public ReceiptSnapshotter receiptSnapshotter(ReceiptProperties properties) {
+        ReceiptProperties.Snapshot snapshot = properties.getSnapshot();
+        // Closed on shutdown, which writes the final snapshot
+        return new ReceiptSnapshotter(snapshot.getFile(), snapshot.isWriteOnShutdown());
+    }
+
+    @Bean
+    public IdGenerator idGenerator(ReceiptProperties properties) {
+        ReceiptProperties.Ids ids = properties.getStore().getIds();
+        switch (ids.getGenerator()) {
+            case RANDOM:
+                return new RandomIdGenerator();
+            case TIME_ORDERED:
+            default:
+                Integer node = ids.getNode();
+                return new TimeOrderedIdGenerator(node != null ? node : new SecureRandom().nextInt(1 << 16));
+        }
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "receipt.analytics", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public ReceiptRollups receiptRollups(ReceiptProperties properties) {
+        PointsMode mode = properties.getPoints().getMode();
+        if (mode != PointsMode.EAGER) {
+            logger.warn("Points mode is {}: analytics points totals only count receipts whose points were stored "
+                + "(on first read in lazy mode, never in recompute mode); use eager mode for complete totals", mode);
+        }
+        return new ReceiptRollups();
+    }
+
+    @Bean
+    public IdempotencyIndex idempotencyIndex(ReceiptProperties properties) {
+        ReceiptProperties.Idempotency idempotency = properties.getIdempotency();
+        return new IdempotencyIndex(idempotency.isContentHash(), idempotency.isKeys());
+    }
+
+    @Bean
+    public ReceiptStore receiptStore(ReceiptProperties properties, ObjectProvider<ReceiptLog> receiptLog,
+            IdempotencyIndex index, ObjectProvider<ReceiptRollups> rollups,
+            ObjectProvider<ReceiptSnapshotter> receiptSnapshotter) throws IOException {
+        ReceiptProperties.Retention retention = properties.getStore().getRetention();
+        ReceiptStore store = createStore(properties);
+        if (index.isEnabled()) {
+            // Innermost, so removals by every outer layer reach the index
+            store = new IndexedReceiptStore(store, index);
+        }
+        ReceiptRollups receiptRollups = rollups.getIfAvailable();
+        if (receiptRollups != null) {
+            // Also inside retention and persistence, so evictions and recovered receipts are rolled up
+            store = new RollupReceiptStore(store, receiptRollups);
+        }
+
+        ReceiptLog log = receiptLog.getIfAvailable();
+        PersistentReceiptStore persistent = null;
+        if (log != null) {
+            store = persistent = new PersistentReceiptStore(store, log);
+        }
+        ReceiptStore snapshotSource = store;
+        RetainingReceiptStore retaining = null;
+        if (retention.isEnabled()) {
+            store = retaining = new RetainingReceiptStore(store, retention.getMaxEntries(), retention.getMaxAge());
+        }
+        ReceiptSnapshotter snapshotter = receiptSnapshotter.getIfAvailable();
+        if (snapshotter != null) {
+            // Read inside retention, so reading every receipt for a snapshot does not count as store hits; the
+            // stored-at times come from retention
+            snapshotter.setStore(snapshotSource, retaining != null ? retaining::getStoredAt : null);
+        }
+        if (persistent != null) {
+            long cutoff = retention.getMaxAge() != null
+                ? System.currentTimeMillis() - retention.getMaxAge().toMillis()
+                : Long.MIN_VALUE;
+            // Replay through the outermost store so retention tracks the recovered receipts too
+            persistent.recover(store, cutoff, properties.getPersistence().getCompactionInterval());
+            index.rebuild(store);
+            if (snapshotter != null && properties.getSnapshot().isRestoreOnStartup()) {
+                logger.info("Not restoring the receipt snapshot: the store was recovered from the receipt log");
+            }
+        } else if (snapshotter != null && properties.getSnapshot().isRestoreOnStartup()) {
+            // Through the outermost store, like the log replay; retention keeps the stored-at times of restored
+            // receipts and skips those past the maximum age
+            if (snapshotter.restore(store) > 0) {
+                index.rebuild(store);
+            }
+        }
+        // Outermost, so recovered receipts are not counted as ingested
+        return new MeteredReceiptStore(store);
+    }
+
+    private ReceiptStore createStore(ReceiptProperties properties) {
+        switch (properties.getStore().getType()) {
+            case MAP:
+                return new MapReceiptStore();
+            case COMPACT:
+            default:
+                return new CompactReceiptStore();
+        }
+    }
+}
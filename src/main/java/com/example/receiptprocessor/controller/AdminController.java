@@ -0,0 +1,39 @@
+package com.example.receiptprocessor.controller;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.receiptprocessor.model.SnapshotResult;
+import com.example.receiptprocessor.persistence.ReceiptSnapshotter;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Operational endpoints; only mapped while receipt snapshots are enabled. Keep them off public routes.
+ */
+@RestController
+@RequestMapping("/receipts/admin")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "receipt.snapshot", name = "enabled", havingValue = "true")
+public class AdminController {
+    private final ReceiptSnapshotter snapshotter;
+
+    // Blocks until the snapshot is on disk, e.g. before a planned restart
+    @PostMapping("/snapshot")
+    public ResponseEntity<SnapshotResult> snapshot() throws IOException {
+        return ResponseEntity.ok(snapshotter.snapshot());
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<?> handleIllegalStateException(IllegalStateException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+    }
+}
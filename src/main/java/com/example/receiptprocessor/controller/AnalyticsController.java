@@ -0,0 +1,58 @@
+package com.example.receiptprocessor.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.receiptprocessor.analytics.ReceiptRollups;
+import com.example.receiptprocessor.analytics.RollupMeasure;
+import com.example.receiptprocessor.model.RollupTotals;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Totals of the stored receipts, read from rollups kept up to date at ingest rather than computed by
+ * scanning the receipts.
+ */
+@RestController
+@RequestMapping("/receipts/analytics")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "receipt.analytics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AnalyticsController {
+    private final ReceiptRollups rollups;
+
+    @GetMapping("/retailers/{retailer}")
+    public ResponseEntity<RollupTotals> getRetailer(@PathVariable("retailer") String retailer) {
+        return ResponseEntity.ok(rollups.retailer(retailer));
+    }
+
+    @GetMapping("/retailers")
+    public ResponseEntity<List<RollupTotals>> getTopRetailers(
+            @RequestParam(name = "limit", defaultValue = "10") int limit,
+            @RequestParam(name = "by", defaultValue = "spend") String by) {
+        return ResponseEntity.ok(rollups.topRetailers(limit, RollupMeasure.parse(by)));
+    }
+
+    @GetMapping("/days/{date}")
+    public ResponseEntity<RollupTotals> getDay(@PathVariable("date") String date) {
+        return ResponseEntity.ok(rollups.day(date));
+    }
+
+    @GetMapping("/hours")
+    public ResponseEntity<List<RollupTotals>> getHours() {
+        return ResponseEntity.ok(rollups.hours());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+}
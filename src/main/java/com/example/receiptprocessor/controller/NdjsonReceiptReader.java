@@ -0,0 +1,110 @@
+package com.example.receiptprocessor.controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Reads a stream of receipt objects (one per line, or any whitespace-separated sequence) token by token,
+ * so only the receipt being read is ever held in memory. Fields are read straight from the parser
+ * without going through data binding; unknown fields are skipped.
+ */
+final class NdjsonReceiptReader implements Closeable {
+    private final JsonParser parser;
+
+    NdjsonReceiptReader(JsonFactory factory, InputStream in) throws IOException {
+        this.parser = factory.createParser(in);
+    }
+
+    /**
+     * Returns the next receipt, or null at the end of the stream. Malformed JSON cannot be resynchronised
+     * and is reported as a {@link JsonParseException}.
+     */
+    Receipt next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a receipt object but found " + token);
+        }
+        Receipt receipt = new Receipt();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "retailer":
+                    receipt.setRetailer(text(value));
+                    break;
+                case "purchaseDate":
+                    receipt.setPurchaseDate(text(value));
+                    break;
+                case "purchaseTime":
+                    receipt.setPurchaseTime(text(value));
+                    break;
+                case "total":
+                    receipt.setTotal(text(value));
+                    break;
+                case "items":
+                    receipt.setItems(items(value));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return receipt;
+    }
+
+    private List<Item> items(JsonToken token) throws IOException {
+        if (token != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<Item> items = new ArrayList<>();
+        JsonToken element;
+        while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (element != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                items.add(null);
+                continue;
+            }
+            Item item = new Item();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("shortDescription".equals(field)) {
+                    item.setShortDescription(text(value));
+                } else if ("price".equals(field)) {
+                    item.setPrice(text(value));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    // Scalars are read as text like data binding to a String field would; objects and arrays read as null
+    private String text(JsonToken token) throws IOException {
+        if (token.isScalarValue()) {
+            return parser.getValueAsString();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -1,21 +1,44 @@
 package com.example.receiptprocessor.controller;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.receiptprocessor.model.BatchResult;
+import com.example.receiptprocessor.model.PointsResult;
 import com.example.receiptprocessor.model.Receipt;
 import com.example.receiptprocessor.service.ReceiptService;
+import com.example.receiptprocessor.service.ReceiptValidationException;
+import com.example.receiptprocessor.wire.ReceiptWireFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 
 @RestController
@@ -23,26 +46,244 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class ReceiptController {
     private static final Logger logger = LoggerFactory.getLogger(ReceiptController.class);
+    // Streamed responses are flushed to the client every this many lines
+    private static final int STREAM_FLUSH_INTERVAL = 256;
     private final ReceiptService receiptService;
+    private final ObjectMapper objectMapper;
     
     @PostMapping("/process")
-    public ResponseEntity<Map<String, String>> processReceipt(@RequestBody Receipt receipt) {
-        logger.info("Received request to process receipt for retailer: {}", receipt.getRetailer());
-        String id = receiptService.processReceipt(receipt);
-        logger.info("Successfully processed receipt. Generated ID: {}", id);
+    public ResponseEntity<Map<String, String>> processReceipt(@RequestBody Receipt receipt,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            HttpServletRequest request) {
+        // A retry with the same key from the same address is answered with the ID of the first attempt; behind
+        // a proxy, server.forward-headers-strategy makes the address the client's
+        String id = receiptService.processReceipt(receipt, request.getRemoteAddr(), idempotencyKey);
         return ResponseEntity.ok(Map.of("id", id));
     }
+
+    @PostMapping(path = "/process", consumes = ReceiptWireFormat.MEDIA_TYPE_VALUE)
+    public ResponseEntity<byte[]> processReceiptBinary(@RequestBody byte[] body,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            HttpServletRequest request) {
+        // Answered in the same encoding it was sent in
+        String id = receiptService.processReceipt(ReceiptWireFormat.decodeReceipt(body), request.getRemoteAddr(),
+            idempotencyKey);
+        return binary(ReceiptWireFormat.encodeId(id));
+    }
+
+    @PostMapping(path = "/process/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchResult> processReceiptBatch(@RequestBody List<Receipt> receipts,
+            @RequestParam(name = "computePoints", defaultValue = "false") boolean computePoints) {
+        logger.debug("Received batch of {} receipts", receipts.size());
+        return ResponseEntity.ok(receiptService.processReceipts(receipts, computePoints));
+    }
+
+    @PostMapping(path = "/process/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BatchResult> processReceiptBatchNdjson(@RequestBody String body,
+            @RequestParam(name = "computePoints", defaultValue = "false") boolean computePoints) throws IOException {
+        // One receipt per line; a line that cannot be read is reported as an error for that entry only
+        List<Receipt> receipts = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new StringReader(body))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    receipts.add(objectMapper.readValue(line, Receipt.class));
+                } catch (JsonProcessingException ex) {
+                    receipts.add(null);
+                }
+            }
+        }
+        logger.debug("Received NDJSON batch of {} receipts", receipts.size());
+        return ResponseEntity.ok(receiptService.processReceipts(receipts, computePoints));
+    }
+    
+    @PostMapping(path = "/process/batch", consumes = ReceiptWireFormat.MEDIA_TYPE_VALUE)
+    public ResponseEntity<byte[]> processReceiptBatchBinary(@RequestBody byte[] body,
+            @RequestParam(name = "computePoints", defaultValue = "false") boolean computePoints) {
+        // An entry that cannot be decoded is null, and reported as an error for that entry only
+        List<Receipt> receipts = ReceiptWireFormat.decodeReceipts(body);
+        logger.debug("Received binary batch of {} receipts", receipts.size());
+        return binary(ReceiptWireFormat.encodeBatchResult(receiptService.processReceipts(receipts, computePoints)));
+    }
+
+    @PostMapping(path = "/process/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void processReceiptStream(InputStream body, HttpServletResponse response) throws IOException {
+        // Each receipt is stored as soon as it is read and its ID written back, so memory use does not grow
+        // with the size of the upload
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        long count = 0;
+        try (NdjsonReceiptReader reader = new NdjsonReceiptReader(objectMapper.getFactory(), body);
+                JsonGenerator generator = ndjsonGenerator(response)) {
+            Receipt receipt;
+            try {
+                while ((receipt = reader.next()) != null) {
+                    generator.writeStartObject();
+                    try {
+                        generator.writeStringField("id", receiptService.ingest(receipt));
+                    } catch (ReceiptValidationException ex) {
+                        // The line is answered with its errors; the stream itself is still in step
+                        generator.writeStringField("error", ex.getMessage());
+                        generator.writeObjectField("fields", ex.getFieldErrors());
+                    }
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                    if (++count % STREAM_FLUSH_INTERVAL == 0) {
+                        generator.flush();
+                    }
+                }
+            } catch (JsonProcessingException ex) {
+                // The stream cannot be resynchronised; report where it stopped after the IDs already assigned
+                generator.writeStartObject();
+                generator.writeStringField("error", "Malformed receipt after " + count + " receipts: "
+                    + ex.getOriginalMessage());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Processed stream of {} receipts", count);
+        }
+    }
+
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportPoints(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        try (JsonGenerator generator = ndjsonGenerator(response)) {
+            long[] count = new long[1];
+            receiptService.forEachReceiptId(id -> {
+                try {
+                    writePoints(generator, id);
+                    if (++count[0] % STREAM_FLUSH_INTERVAL == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            if (logger.isDebugEnabled()) {
+                logger.debug("Exported points of {} receipts", count[0]);
+            }
+        }
+    }
+
+    @PostMapping(path = "/points", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE },
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void lookupPoints(InputStream body, HttpServletResponse response) throws IOException {
+        // IDs are looked up a chunk at a time and each chunk is written back as soon as its points are known,
+        // so neither the request nor the response is held in memory
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        List<String> chunk = new ArrayList<>(STREAM_FLUSH_INTERVAL);
+        long count = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body);
+                JsonGenerator generator = ndjsonGenerator(response)) {
+            try {
+                // Either a JSON array of IDs or NDJSON with one per line; an ID may also be given as {"id": "..."},
+                // so the output of /receipts/process/stream can be sent as it is
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_ARRAY) {
+                    token = parser.nextToken();
+                }
+                while (token != null && token != JsonToken.END_ARRAY) {
+                    chunk.add(readId(parser, token));
+                    if (chunk.size() == STREAM_FLUSH_INTERVAL) {
+                        count += writeLookups(generator, chunk);
+                    }
+                    token = parser.nextToken();
+                }
+                count += writeLookups(generator, chunk);
+            } catch (JsonProcessingException ex) {
+                // Answer the IDs read so far, then say where the request stopped
+                count += writeLookups(generator, chunk);
+                generator.writeStartObject();
+                generator.writeStringField("error", "Malformed request after " + count + " IDs: "
+                    + ex.getOriginalMessage());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Looked up points of {} receipts", count);
+        }
+    }
+
+    private static String readId(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.START_OBJECT) {
+            JsonNode id = parser.<JsonNode>readValueAsTree().get("id");
+            return id == null || id.isNull() ? null : id.asText();
+        }
+        if (!token.isScalarValue()) {
+            throw new JsonParseException(parser, "Expected a receipt ID but found " + token);
+        }
+        return parser.getValueAsString();
+    }
+
+    private int writeLookups(JsonGenerator generator, List<String> ids) throws IOException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        for (PointsResult result : receiptService.calculatePoints(ids)) {
+            generator.writeStartObject();
+            generator.writeStringField("id", result.getId());
+            if (result.getPoints() != null) {
+                generator.writeNumberField("points", result.getPoints());
+            } else {
+                generator.writeStringField("error", result.getError());
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+        int count = ids.size();
+        ids.clear();
+        return count;
+    }
+
+    // Lines are terminated explicitly, so no separator is written between root-level values
+    private JsonGenerator ndjsonGenerator(HttpServletResponse response) throws IOException {
+        return objectMapper.getFactory().createGenerator(response.getOutputStream()).setRootValueSeparator(null);
+    }
+
+    private void writePoints(JsonGenerator generator, String id) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", id);
+        try {
+            generator.writeNumberField("points", receiptService.calculatePoints(id));
+        } catch (RuntimeException ex) {
+            // Covers receipts evicted while the export was running as well as ones that cannot be scored
+            generator.writeStringField("error", ex.getMessage());
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
     
     @GetMapping("/{id}/points")
     public ResponseEntity<Map<String, Integer>> getPoints(@PathVariable("id") String id) {
-        logger.info("Received request to calculate points for receipt ID: {}", id);
         int points = receiptService.calculatePoints(id);
-        logger.info("Calculated {} points for receipt ID: {}", points, id);
         return ResponseEntity.ok(Map.of("points", points));
     }
 
+    @GetMapping(path = "/{id}/points", produces = ReceiptWireFormat.MEDIA_TYPE_VALUE)
+    public ResponseEntity<byte[]> getPointsBinary(@PathVariable("id") String id) {
+        return binary(ReceiptWireFormat.encodePoints(receiptService.calculatePoints(id)));
+    }
+
+    private static ResponseEntity<byte[]> binary(byte[] body) {
+        return ResponseEntity.ok().contentType(ReceiptWireFormat.MEDIA_TYPE).body(body);
+    }
+
+    @ExceptionHandler(ReceiptValidationException.class)
+    public ResponseEntity<?> handleReceiptValidationException(ReceiptValidationException ex) {
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+            .body(Map.of("error", ex.getMessage(), "fields", ex.getFieldErrors()));
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<?> handleIllegalArgumentException(IllegalArgumentException ex) {
-        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        // Errors are JSON whatever the client accepts, binary callers included
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+            .body(Map.of("error", ex.getMessage()));
     }
 }
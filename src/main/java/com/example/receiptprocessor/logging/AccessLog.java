@@ -0,0 +1,140 @@
+package com.example.receiptprocessor.logging;
+
+import java.io.Closeable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Structured access log written off the request thread. Request threads only enqueue a small entry; a
+ * single writer thread drains the queue in batches, formats each entry as one JSON line and hands it to
+ * the {@code access} logger. When the queue is full the entry is dropped and counted rather than making
+ * the request wait.
+ */
+public class AccessLog implements Closeable {
+    private static final Logger accessLogger = LoggerFactory.getLogger("access");
+    private static final Logger logger = LoggerFactory.getLogger(AccessLog.class);
+    private static final long POLL_MILLIS = 100;
+
+    private final BlockingQueue<Entry> queue;
+    private final int batchSize;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public AccessLog(int queueCapacity, int batchSize) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.writer = new Thread(this::drain, "access-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public void record(long startMillis, String method, String path, int status, long durationNanos,
+            String client) {
+        if (!queue.offer(new Entry(startMillis, method, path, status, durationNanos, client))) {
+            dropped.increment();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        StringBuilder line = new StringBuilder(256);
+        long reportedDrops = 0;
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException ex) {
+                // close() interrupts the wait; the loop condition decides whether anything is left to write
+                continue;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            if (accessLogger.isInfoEnabled()) {
+                for (Entry entry : batch) {
+                    line.setLength(0);
+                    entry.format(line);
+                    accessLogger.info(line.toString());
+                }
+            }
+            batch.clear();
+
+            long drops = dropped.sum();
+            if (drops != reportedDrops) {
+                logger.warn("Access log queue full, {} entries dropped so far", drops);
+                reportedDrops = drops;
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final long startMillis;
+        private final String method;
+        private final String path;
+        private final int status;
+        private final long durationNanos;
+        private final String client;
+
+        Entry(long startMillis, String method, String path, int status, long durationNanos, String client) {
+            this.startMillis = startMillis;
+            this.method = method;
+            this.path = path;
+            this.status = status;
+            this.durationNanos = durationNanos;
+            this.client = client;
+        }
+
+        void format(StringBuilder out) {
+            out.append("{\"ts\":\"").append(Instant.ofEpochMilli(startMillis))
+                .append("\",\"method\":\"").append(method)
+                .append("\",\"path\":\"");
+            appendEscaped(out, path);
+            out.append("\",\"status\":").append(status)
+                .append(",\"durationUs\":").append(durationNanos / 1000)
+                .append(",\"client\":\"");
+            appendEscaped(out, client);
+            out.append("\"}");
+        }
+
+        private static void appendEscaped(StringBuilder out, String value) {
+            if (value == null) {
+                return;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    out.append('\\').append(c);
+                } else if (c < 0x20) {
+                    out.append(String.format("\\u%04x", (int) c));
+                } else {
+                    out.append(c);
+                }
+            }
+        }
+    }
+}
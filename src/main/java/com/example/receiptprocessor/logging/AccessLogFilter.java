@@ -0,0 +1,33 @@
+package com.example.receiptprocessor.logging;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Records one {@link AccessLog} entry per request, in place of the per-request INFO lines the controller
+ * and service used to write.
+ */
+@RequiredArgsConstructor
+public class AccessLogFilter extends OncePerRequestFilter {
+    private final AccessLog accessLog;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long startMillis = System.currentTimeMillis();
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            accessLog.record(startMillis, request.getMethod(), request.getRequestURI(), response.getStatus(),
+                System.nanoTime() - start, request.getRemoteAddr());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.receiptprocessor.logging;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.receiptprocessor.rules.RuleTrace;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Turns on {@link RuleTrace} for a request that asks for it with the trace header, or for a sampled
+ * fraction of requests. The detail itself still needs DEBUG enabled for the rules package.
+ */
+@RequiredArgsConstructor
+public class RuleTraceFilter extends OncePerRequestFilter {
+    private final String header;
+    private final double sampleRate;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!"true".equalsIgnoreCase(request.getHeader(header))
+                && (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        RuleTrace.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RuleTrace.stop();
+        }
+    }
+}
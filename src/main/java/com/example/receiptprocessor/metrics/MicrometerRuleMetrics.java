@@ -0,0 +1,70 @@
+package com.example.receiptprocessor.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.example.receiptprocessor.rules.RuleMetrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records rule evaluation time ({@code receipt.rule.time}) and points ({@code receipt.rule.points}) per
+ * rule, tagged with the rule's number. The meters for the seven default rules are registered up front and
+ * all meters are looked up by index, so recording does not allocate; a configured pipeline with more
+ * rules registers the extra meters the first time they are used. One in {@code sampleInterval}
+ * evaluations is measured.
+ */
+public class MicrometerRuleMetrics implements RuleMetrics {
+    private static final int DEFAULT_RULES = 7;
+
+    private final MeterRegistry registry;
+    private final int sampleInterval;
+    // Index 0 is unused; replaced by a longer copy when a higher-numbered rule shows up
+    private volatile Timer[] timers = new Timer[1];
+    private volatile DistributionSummary[] points = new DistributionSummary[1];
+
+    public MicrometerRuleMetrics(MeterRegistry registry, int sampleInterval) {
+        this.registry = registry;
+        this.sampleInterval = Math.max(1, sampleInterval);
+        register(DEFAULT_RULES);
+    }
+
+    @Override
+    public boolean sample() {
+        return sampleInterval == 1 || ThreadLocalRandom.current().nextInt(sampleInterval) == 0;
+    }
+
+    @Override
+    public void record(int rule, int points, long nanos) {
+        if (rule >= timers.length) {
+            register(rule);
+        }
+        timers[rule].record(nanos, TimeUnit.NANOSECONDS);
+        this.points[rule].record(points);
+    }
+
+    private synchronized void register(int rules) {
+        if (rules < timers.length) {
+            return;
+        }
+        Timer[] newTimers = Arrays.copyOf(timers, rules + 1);
+        DistributionSummary[] newPoints = Arrays.copyOf(points, rules + 1);
+        for (int rule = timers.length; rule <= rules; rule++) {
+            String tag = Integer.toString(rule);
+            newTimers[rule] = Timer.builder("receipt.rule.time")
+                .description("Time to evaluate one rule on a sampled receipt")
+                .tag("rule", tag)
+                .register(registry);
+            newPoints[rule] = DistributionSummary.builder("receipt.rule.points")
+                .description("Points one rule contributed to a sampled receipt")
+                .tag("rule", tag)
+                .register(registry);
+        }
+        // points first: readers check timers.length before reading either array
+        points = newPoints;
+        timers = newTimers;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.receiptprocessor.metrics;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Latency of the receipt endpoints as {@code receipt.request} timers, tagged {@code endpoint}, with
+ * p50/p99/p999 and a percentile histogram. The timers are registered up front and chosen by comparing
+ * the request path, so timing a request does not allocate.
+ */
+public class RequestMetricsFilter extends OncePerRequestFilter {
+    private static final String PREFIX = "/receipts/";
+
+    private final Timer process;
+    private final Timer batch;
+    private final Timer stream;
+    private final Timer export;
+    private final Timer points;
+    private final Timer bulkPoints;
+    private final Timer analytics;
+
+    public RequestMetricsFilter(MeterRegistry registry) {
+        this.process = timer(registry, "process");
+        this.batch = timer(registry, "batch");
+        this.stream = timer(registry, "stream");
+        this.export = timer(registry, "export");
+        this.points = timer(registry, "points");
+        this.bulkPoints = timer(registry, "bulk-points");
+        this.analytics = timer(registry, "analytics");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Timer timer = timerFor(request.getRequestURI());
+        if (timer == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timerFor(String uri) {
+        if (!uri.startsWith(PREFIX)) {
+            return null;
+        }
+        int offset = PREFIX.length();
+        if (uri.startsWith("analytics/", offset)) {
+            return analytics;
+        }
+        if (uri.endsWith("/points")) {
+            // POST /receipts/points against GET /receipts/{id}/points
+            return uri.length() == offset + "points".length() ? bulkPoints : points;
+        }
+        if (uri.startsWith("process", offset)) {
+            if (uri.length() == offset + "process".length()) {
+                return process;
+            }
+            if (uri.endsWith("/batch")) {
+                return batch;
+            }
+            if (uri.endsWith("/stream")) {
+                return stream;
+            }
+            return null;
+        }
+        return uri.endsWith("/export") ? export : null;
+    }
+
+    private static Timer timer(MeterRegistry registry, String endpoint) {
+        return Timer.builder("receipt.request")
+            .description("Latency of the receipt endpoints")
+            .tag("endpoint", endpoint)
+            .publishPercentiles(0.5, 0.99, 0.999)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.receiptprocessor.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a batch ingest: one ID per submitted receipt, in order (null where it was rejected),
+ * plus the reason for each rejected entry.
+ */
+@Data
+public class BatchResult {
+    private List<String> ids = new ArrayList<>();
+    private List<EntryError> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EntryError {
+        private int index;
+        private String error;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.receiptprocessor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of looking up the points of one receipt in a bulk lookup: the points, or why there are none
+ * (an unknown ID, or a receipt that cannot be scored).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PointsResult {
+    private String id;
+    private Integer points;
+    private String error;
+}
@@ -0,0 +1,21 @@
+package com.example.receiptprocessor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Totals of the stored receipts in one analytics bucket: a retailer, a purchase date or an hour of day.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupTotals {
+    // The retailer, the date (YYYY-MM-DD) or the hour (0-23)
+    private String key;
+    private long receipts;
+    // Sum of the receipt totals, in dollars
+    private String spend;
+    // Sum of the points calculated so far; receipts whose points are not known yet add none
+    private long points;
+}
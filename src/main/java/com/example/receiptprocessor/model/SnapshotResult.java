@@ -0,0 +1,20 @@
+package com.example.receiptprocessor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of writing or restoring a snapshot of the stored receipts: how many receipts, the size of the
+ * file and how fast it was written or read, in megabytes (10^6 bytes) per second.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnapshotResult {
+    private String file;
+    private long receipts;
+    private long bytes;
+    private long millis;
+    private double megabytesPerSecond;
+}
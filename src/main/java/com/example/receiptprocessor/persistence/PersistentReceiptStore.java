@@ -0,0 +1,148 @@
+package com.example.receiptprocessor.persistence;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.DecodedFields;
+import com.example.receiptprocessor.store.ReceiptStore;
+
+/**
+ * Writes every change to the wrapped in-memory {@link ReceiptStore} through to a {@link ReceiptLog}, and
+ * rebuilds the in-memory state from the log on startup. A receipt that cannot be appended to the log is
+ * removed from memory again before the failure is thrown.
+ */
+public class PersistentReceiptStore implements ReceiptStore {
+    private static final Logger logger = LoggerFactory.getLogger(PersistentReceiptStore.class);
+
+    private final ReceiptStore delegate;
+    private final ReceiptLog log;
+    // Set while the log is replayed so recovered records are not appended a second time
+    private volatile boolean recovering;
+
+    public PersistentReceiptStore(ReceiptStore delegate, ReceiptLog log) {
+        this.delegate = delegate;
+        this.log = log;
+    }
+
+    /**
+     * Replays the log into {@code target}, which is this store or a store wrapping it, so that any
+     * bookkeeping of the outer layers (such as retention) sees the recovered receipts. Receipts stored
+     * before {@code cutoffMillis} are skipped. Then starts compacting the log on the given interval.
+     */
+    public void recover(ReceiptStore target, long cutoffMillis, Duration compactionInterval) throws IOException {
+        long started = System.nanoTime();
+        long[] recovered = new long[1];
+        recovering = true;
+        try {
+            log.replay(new ReceiptLog.Visitor() {
+                @Override
+                public void receipt(String id, long storedAtMillis, Receipt receipt) {
+                    if (storedAtMillis >= cutoffMillis && target.putIfAbsent(id, receipt, storedAtMillis)) {
+                        recovered[0]++;
+                    }
+                }
+
+                @Override
+                public void points(String id, int points) {
+                    target.setPoints(id, points);
+                }
+
+                @Override
+                public void removal(String id) {
+                    target.remove(id);
+                }
+            });
+        } finally {
+            recovering = false;
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        logger.info("Recovered {} receipts from the receipt log in {} ms ({} receipts/s)", recovered[0], elapsedMillis,
+            elapsedMillis == 0 ? recovered[0] : recovered[0] * 1000 / elapsedMillis);
+        log.scheduleCompaction(compactionInterval, delegate::contains);
+    }
+
+    @Override
+    public boolean putIfAbsent(String id, Receipt receipt) {
+        return putIfAbsent(id, receipt, System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean putIfAbsent(String id, Receipt receipt, DecodedFields fields) {
+        if (!delegate.putIfAbsent(id, receipt, fields)) {
+            return false;
+        }
+        append(id, System.currentTimeMillis(), receipt);
+        return true;
+    }
+
+    @Override
+    public boolean putIfAbsent(String id, Receipt receipt, long storedAtMillis) {
+        if (!delegate.putIfAbsent(id, receipt, storedAtMillis)) {
+            return false;
+        }
+        append(id, storedAtMillis, receipt);
+        return true;
+    }
+
+    // Logs a receipt just stored in the delegate, or takes it out again if that fails
+    private void append(String id, long storedAtMillis, Receipt receipt) {
+        if (!recovering) {
+            try {
+                log.appendReceipt(id, storedAtMillis, receipt);
+            } catch (RuntimeException ex) {
+                // Not stored unless it is in the log, so the caller's failure leaves nothing behind to retry into
+                delegate.remove(id);
+                throw ex;
+            }
+        }
+    }
+
+    @Override
+    public Receipt get(String id) {
+        return delegate.get(id);
+    }
+
+    @Override
+    public boolean contains(String id) {
+        return delegate.contains(id);
+    }
+
+    @Override
+    public int getPoints(String id) {
+        return delegate.getPoints(id);
+    }
+
+    @Override
+    public void setPoints(String id, int points) {
+        delegate.setPoints(id, points);
+        if (!recovering) {
+            log.appendPoints(id, points);
+        }
+    }
+
+    @Override
+    public boolean remove(String id) {
+        // Removals are logged even while recovering, e.g. receipts evicted by retention during the replay
+        if (!delegate.remove(id)) {
+            return false;
+        }
+        log.appendRemoval(id);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void forEachId(Consumer<String> action) {
+        delegate.forEachId(action);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.receiptprocessor.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+
+/**
+ * Compact binary form of a {@link Receipt}: every field is a length-prefixed UTF-8 string (length -1 for
+ * null) and the items are preceded by their count (-1 for a null list). Strings are kept verbatim so a
+ * decoded receipt is equal to the one that was encoded.
+ */
+public final class ReceiptCodec {
+
+    private ReceiptCodec() {
+    }
+
+    public static void write(ByteBuffer buffer, Receipt receipt) {
+        writeString(buffer, receipt.getRetailer());
+        writeString(buffer, receipt.getPurchaseDate());
+        writeString(buffer, receipt.getPurchaseTime());
+        writeString(buffer, receipt.getTotal());
+        List<Item> items = receipt.getItems();
+        if (items == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(items.size());
+        for (Item item : items) {
+            writeString(buffer, item.getShortDescription());
+            writeString(buffer, item.getPrice());
+        }
+    }
+
+    public static Receipt read(ByteBuffer buffer) {
+        Receipt receipt = new Receipt();
+        receipt.setRetailer(readString(buffer));
+        receipt.setPurchaseDate(readString(buffer));
+        receipt.setPurchaseTime(readString(buffer));
+        receipt.setTotal(readString(buffer));
+        int count = buffer.getInt();
+        if (count >= 0) {
+            List<Item> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Item item = new Item();
+                item.setShortDescription(readString(buffer));
+                item.setPrice(readString(buffer));
+                items.add(item);
+            }
+            receipt.setItems(items);
+        }
+        return receipt;
+    }
+
+    public static void writeString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    public static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,434 @@
+package com.example.receiptprocessor.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.receiptprocessor.model.Receipt;
+
+/**
+ * Append-only log of processed receipts, their points and their removals, kept in fixed-size segment files
+ * that are written through a {@link MappedByteBuffer}. Appends are not fsynced individually; the active
+ * segment is forced to disk every sync interval, so a crash loses at most that window of writes.
+ *
+ * <p>Segment layout: an 8-byte header (magic, version) followed by records of
+ * {@code [int length][int crc32c][byte type][payload]} where every payload starts with the receipt ID.
+ * A zero length marks the unused tail of a segment; a bad checksum marks a torn write and ends the scan.
+ */
+public final class ReceiptLog implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ReceiptLog.class);
+
+    private static final int MAGIC = 0x52435054;
+    private static final int VERSION = 1;
+    private static final int SEGMENT_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String COMPACTING_SUFFIX = ".compacting";
+    private static final int SCRATCH_BUFFER_SIZE = 4096;
+    // Encode buffers kept for reuse; enough for the appends in flight at once
+    private static final int SCRATCH_POOL_SIZE = 256;
+
+    static final byte RECEIPT = 1;
+    static final byte POINTS = 2;
+    static final byte REMOVAL = 3;
+
+    /**
+     * Receives the records of the log in the order they were appended.
+     */
+    public interface Visitor {
+        void receipt(String id, long storedAtMillis, Receipt receipt);
+
+        void points(String id, int points);
+
+        void removal(String id);
+    }
+
+    private interface PayloadWriter {
+        void write(ByteBuffer buffer);
+    }
+
+    private interface RecordHandler {
+        void handle(byte type, String id, ByteBuffer payload, ByteBuffer record) throws IOException;
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    // Sealed segments, oldest first; guarded by appendLock
+    private final List<Path> sealed = new ArrayList<>();
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong removalsSinceCompaction = new AtomicLong();
+    // Pooled rather than thread-local: with virtual threads every request runs on a new thread
+    private final BlockingQueue<ByteBuffer> scratch = new ArrayBlockingQueue<>(SCRATCH_POOL_SIZE);
+    // Guarded by appendLock
+    private long nextSequence;
+    private Segment active;
+
+    public ReceiptLog(Path directory, int segmentSize, Duration syncInterval) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                if (file.getFileName().toString().endsWith(COMPACTING_SUFFIX)) {
+                    // Left behind by a compaction that did not finish; its inputs are all still in place
+                    Files.delete(file);
+                }
+            }
+        }
+        sealed.addAll(listSegments());
+        nextSequence = sealed.isEmpty() ? 0 : sequenceOf(sealed.get(sealed.size() - 1)) + 1;
+        active = openSegment(nextSequence++);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "receipt-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = Math.max(1, syncInterval.toMillis());
+        scheduler.scheduleWithFixedDelay(this::sync, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void appendReceipt(String id, long storedAtMillis, Receipt receipt) {
+        append(RECEIPT, id, buffer -> {
+            buffer.putLong(storedAtMillis);
+            ReceiptCodec.write(buffer, receipt);
+        });
+    }
+
+    public void appendPoints(String id, int points) {
+        append(POINTS, id, buffer -> buffer.putInt(points));
+    }
+
+    public void appendRemoval(String id) {
+        append(REMOVAL, id, buffer -> { });
+        removalsSinceCompaction.incrementAndGet();
+    }
+
+    /**
+     * Replays every record written before this log was opened.
+     */
+    public void replay(Visitor visitor) throws IOException {
+        List<Path> segments;
+        appendLock.lock();
+        try {
+            segments = new ArrayList<>(sealed);
+        } finally {
+            appendLock.unlock();
+        }
+        for (Path segment : segments) {
+            scan(segment, (type, id, payload, record) -> {
+                switch (type) {
+                    case RECEIPT:
+                        long storedAt = payload.getLong();
+                        visitor.receipt(id, storedAt, ReceiptCodec.read(payload));
+                        break;
+                    case POINTS:
+                        visitor.points(id, payload.getInt());
+                        break;
+                    case REMOVAL:
+                        visitor.removal(id);
+                        break;
+                    default:
+                        logger.warn("Skipping record of unknown type {} in {}", type, segment);
+                }
+            });
+        }
+    }
+
+    /**
+     * Rewrites all sealed segments into one, keeping only the receipt and points records of live IDs.
+     * Removal records are dropped with the receipts they refer to, which are always in the same or an
+     * older segment.
+     */
+    public void compact(Predicate<String> isLive) throws IOException {
+        compactionLock.lock();
+        try {
+            List<Path> inputs;
+            appendLock.lock();
+            try {
+                if (active.buffer.position() > SEGMENT_HEADER_SIZE) {
+                    roll();
+                }
+                inputs = new ArrayList<>(sealed);
+            } finally {
+                appendLock.unlock();
+            }
+            if (inputs.isEmpty()) {
+                return;
+            }
+            long removals = removalsSinceCompaction.getAndSet(0);
+            long started = System.nanoTime();
+
+            Path target = inputs.get(inputs.size() - 1);
+            Path output = target.resolveSibling(target.getFileName() + COMPACTING_SUFFIX);
+            long kept = 0;
+            try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer out = ByteBuffer.allocateDirect(1 << 20);
+                out.putInt(MAGIC).putInt(VERSION);
+                long[] copied = new long[1];
+                for (Path input : inputs) {
+                    scan(input, (type, id, payload, record) -> {
+                        if (type == REMOVAL || !isLive.test(id)) {
+                            return;
+                        }
+                        if (out.remaining() < record.remaining()) {
+                            flush(channel, out);
+                        }
+                        if (out.remaining() < record.remaining()) {
+                            writeFully(channel, record);
+                        } else {
+                            out.put(record);
+                        }
+                        copied[0]++;
+                    });
+                }
+                flush(channel, out);
+                channel.force(true);
+                kept = copied[0];
+            }
+            // Replace the newest input first: a crash before the deletes only leaves duplicates behind
+            Files.move(output, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            for (Path input : inputs) {
+                if (!input.equals(target)) {
+                    Files.deleteIfExists(input);
+                }
+            }
+
+            appendLock.lock();
+            try {
+                sealed.removeAll(inputs);
+                sealed.add(0, target);
+            } finally {
+                appendLock.unlock();
+            }
+            logger.info("Compacted {} segments ({} removals) into {} keeping {} records in {} ms",
+                inputs.size(), removals, target.getFileName(), kept,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Compacts on the given interval whenever receipts have been removed or there is more than one sealed
+     * segment to merge.
+     */
+    public void scheduleCompaction(Duration interval, Predicate<String> isLive) {
+        long intervalMillis = Math.max(1, interval.toMillis());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                if (removalsSinceCompaction.get() > 0 || sealedCount() > 1) {
+                    compact(isLive);
+                }
+            } catch (IOException | RuntimeException ex) {
+                logger.error("Receipt log compaction failed", ex);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Forces the active segment to disk; appends carry on while the force is in progress
+    public void sync() {
+        Segment segment;
+        appendLock.lock();
+        try {
+            segment = active;
+        } finally {
+            appendLock.unlock();
+        }
+        segment.buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdown();
+        compactionLock.lock();
+        appendLock.lock();
+        try {
+            active.buffer.force();
+        } finally {
+            appendLock.unlock();
+            compactionLock.unlock();
+        }
+    }
+
+    int sealedCount() {
+        appendLock.lock();
+        try {
+            return sealed.size();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void append(byte type, String id, PayloadWriter payload) {
+        ByteBuffer record = encode(type, id, payload);
+        appendLock.lock();
+        try {
+            if (active.buffer.remaining() < record.remaining()) {
+                roll();
+                if (active.buffer.remaining() < record.remaining()) {
+                    throw new IllegalStateException("Record of " + record.remaining()
+                        + " bytes does not fit in a receipt log segment");
+                }
+            }
+            active.buffer.put(record);
+        } finally {
+            appendLock.unlock();
+            // Dropped if the pool is full
+            scratch.offer(record);
+        }
+    }
+
+    // Encodes the record into a pooled buffer outside the append lock
+    private ByteBuffer encode(byte type, String id, PayloadWriter payload) {
+        ByteBuffer buffer = scratch.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(SCRATCH_BUFFER_SIZE);
+        }
+        while (true) {
+            try {
+                buffer.clear();
+                buffer.position(RECORD_HEADER_SIZE);
+                buffer.put(type);
+                ReceiptCodec.writeString(buffer, id);
+                payload.write(buffer);
+                break;
+            } catch (BufferOverflowException ex) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+        int end = buffer.position();
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), RECORD_HEADER_SIZE, end - RECORD_HEADER_SIZE);
+        buffer.putInt(0, end - RECORD_HEADER_SIZE);
+        buffer.putInt(4, (int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    // Caller holds appendLock
+    private void roll() {
+        active.buffer.force();
+        try {
+            sealed.add(active.path);
+            active = openSegment(nextSequence++);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open a new receipt log segment", ex);
+        }
+    }
+
+    private Segment openSegment(long sequence) throws IOException {
+        Path path = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Mapping past the end grows the file; the zero-filled tail ends the scan on recovery
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.putInt(MAGIC).putInt(VERSION);
+            // The mapping stays valid after the channel is closed
+            return new Segment(path, buffer);
+        }
+    }
+
+    private void scan(Path segment, RecordHandler handler) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            if (channel.size() < SEGMENT_HEADER_SIZE) {
+                return;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            logger.warn("Skipping {}: not a receipt log segment", segment);
+            return;
+        }
+        CRC32C crc = new CRC32C();
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                return;
+            }
+            ByteBuffer payload = buffer.slice(buffer.position(), length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                logger.warn("Torn record at offset {} of {}, ignoring the rest of the segment", start, segment);
+                return;
+            }
+            byte type = payload.get();
+            String id = ReceiptCodec.readString(payload);
+            ByteBuffer record = buffer.slice(start, RECORD_HEADER_SIZE + length);
+            handler.handle(type, id, payload, record);
+            buffer.position(start + RECORD_HEADER_SIZE + length);
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(file -> {
+                    String name = file.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                })
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        writeFully(channel, buffer);
+        buffer.clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+
+        private Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+}
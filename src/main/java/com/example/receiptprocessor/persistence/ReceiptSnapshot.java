@@ -0,0 +1,308 @@
+package com.example.receiptprocessor.persistence;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.model.SnapshotResult;
+import com.example.receiptprocessor.store.ReceiptStore;
+
+/**
+ * Point-in-time copy of a {@link ReceiptStore} in one file, written and read back in parallel chunks.
+ *
+ * <p>File layout: an 8-byte header (magic, version), then blocks of records
+ * {@code [string id][long stored at][int points][receipt]} in {@link ReceiptCodec} form (stored at in epoch
+ * milliseconds, points {@link ReceiptStore#NO_POINTS} if not calculated), then an index of
+ * {@code [long offset][int length][int count][int crc32c]} per block preceded by the block count, then a trailer of {@code [long index offset][int index crc32c][int magic]}.
+ * Each chunk of IDs is encoded by its own thread, which reserves room for a full block at the end of the file
+ * and writes it there with a positional write, so blocks are in no particular order; the index, written last,
+ * is what finds them. A snapshot is written to a temporary file and moved over the previous one when complete.
+ * Version 1 snapshots, whose records have no stored-at time, are still restored.
+ */
+public final class ReceiptSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(ReceiptSnapshot.class);
+
+    private static final int MAGIC = 0x52435053;
+    private static final int VERSION = 2;
+    // Records without a stored-at time
+    private static final int VERSION_UNTIMED = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int INDEX_ENTRY_SIZE = 20;
+    private static final int TRAILER_SIZE = 16;
+    // IDs encoded by one task, and the size a task's block is written out at
+    private static final int CHUNK_SIZE = 16384;
+    private static final int BLOCK_SIZE = 1 << 20;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private ReceiptSnapshot() {
+    }
+
+    /**
+     * Writes every receipt of {@code store} and its points to {@code file}, replacing it, with the time the
+     * snapshot is started at as their stored-at time.
+     */
+    public static SnapshotResult write(ReceiptStore store, Path file) throws IOException {
+        return write(store, null, file);
+    }
+
+    /**
+     * Writes every receipt of {@code store} and its points to {@code file}, replacing it. Receipts stored
+     * while the snapshot is written may or may not be in it.
+     *
+     * @param storedAt the time each receipt was stored at in epoch milliseconds, negative where unknown, or
+     *                 null if unknown for all; unknown times are written as the time the snapshot is started at
+     */
+    public static SnapshotResult write(ReceiptStore store, ToLongFunction<String> storedAt, Path file)
+            throws IOException {
+        long started = System.nanoTime();
+        long startedAtMillis = System.currentTimeMillis();
+        List<String> ids = new ArrayList<>(store.size());
+        store.forEachId(ids::add);
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        ConcurrentLinkedQueue<Block> blocks = new ConcurrentLinkedQueue<>();
+        AtomicLong end = new AtomicLong(HEADER_SIZE);
+        long size;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip(), 0);
+            int chunks = (ids.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            try {
+                IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                    int from = chunk * CHUNK_SIZE;
+                    try {
+                        writeChunk(store, storedAt, startedAtMillis,
+                            ids.subList(from, Math.min(ids.size(), from + CHUNK_SIZE)), channel, end, blocks);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+
+            List<Block> index = new ArrayList<>(blocks);
+            index.sort(Comparator.comparingLong(block -> block.offset));
+            long indexOffset = end.get();
+            ByteBuffer buffer = ByteBuffer.allocate(4 + index.size() * INDEX_ENTRY_SIZE + TRAILER_SIZE);
+            buffer.putInt(index.size());
+            for (Block block : index) {
+                buffer.putLong(block.offset).putInt(block.length).putInt(block.count).putInt(block.crc);
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.array(), 0, buffer.position());
+            buffer.putLong(indexOffset).putInt((int) crc.getValue()).putInt(MAGIC);
+            writeFully(channel, buffer.flip(), indexOffset);
+            channel.force(true);
+            size = channel.size();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        long receipts = blocks.stream().mapToLong(block -> block.count).sum();
+        return result(file, receipts, size, System.nanoTime() - started);
+    }
+
+    /**
+     * Stores every receipt of the snapshot in {@code target}, with its points and the time it was stored at,
+     * decoding the blocks in parallel. Receipts whose ID is already taken, or that {@code target} does not
+     * keep at their age, are skipped. A block that fails its checksum is skipped with a
+     * warning; a file that is not a complete snapshot is rejected with an {@link IOException} before anything
+     * is stored.
+     */
+    public static SnapshotResult restore(Path file, ReceiptStore target) throws IOException {
+        long started = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + 4 + TRAILER_SIZE) {
+                throw new IOException("Not a receipt snapshot: " + file);
+            }
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            int version = header.getInt() == MAGIC ? header.getInt() : -1;
+            if (version != VERSION && version != VERSION_UNTIMED) {
+                throw new IOException("Not a receipt snapshot: " + file);
+            }
+            boolean timed = version == VERSION;
+            ByteBuffer trailer = readFully(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+            long indexOffset = trailer.getLong();
+            int indexCrc = trailer.getInt();
+            if (trailer.getInt() != MAGIC || indexOffset < HEADER_SIZE || indexOffset > size - TRAILER_SIZE - 4) {
+                throw new IOException("Incomplete receipt snapshot: " + file);
+            }
+            ByteBuffer index = readFully(channel, indexOffset, (int) (size - TRAILER_SIZE - indexOffset));
+            CRC32C crc = new CRC32C();
+            crc.update(index.duplicate());
+            int count = index.getInt();
+            if ((int) crc.getValue() != indexCrc || count < 0 || index.remaining() != (long) count * INDEX_ENTRY_SIZE) {
+                throw new IOException("Corrupt index in receipt snapshot: " + file);
+            }
+            Block[] blocks = new Block[count];
+            for (int i = 0; i < count; i++) {
+                blocks[i] = new Block(index.getLong(), index.getInt(), index.getInt(), index.getInt());
+            }
+
+            LongAdder restored = new LongAdder();
+            try {
+                IntStream.range(0, count).parallel().forEach(i -> {
+                    try {
+                        restoreBlock(file, channel, blocks[i], timed, target, restored);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            return result(file, restored.sum(), size, System.nanoTime() - started);
+        }
+    }
+
+    private static void writeChunk(ReceiptStore store, ToLongFunction<String> storedAt, long startedAtMillis,
+            List<String> ids, FileChannel channel, AtomicLong end, ConcurrentLinkedQueue<Block> blocks)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+        int count = 0;
+        for (String id : ids) {
+            Receipt receipt = store.get(id);
+            if (receipt == null) {
+                // Removed since the IDs were listed
+                continue;
+            }
+            int points = store.getPoints(id);
+            long storedAtMillis = storedAt != null ? storedAt.applyAsLong(id) : -1;
+            if (storedAtMillis < 0) {
+                storedAtMillis = startedAtMillis;
+            }
+            int start = buffer.position();
+            while (true) {
+                try {
+                    ReceiptCodec.writeString(buffer, id);
+                    buffer.putLong(storedAtMillis);
+                    buffer.putInt(points);
+                    ReceiptCodec.write(buffer, receipt);
+                    count++;
+                    break;
+                } catch (BufferOverflowException ex) {
+                    buffer.position(start);
+                    if (count > 0) {
+                        writeBlock(channel, buffer, count, end, blocks);
+                        count = 0;
+                        start = 0;
+                    } else {
+                        // A single receipt larger than a block
+                        buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                    }
+                }
+            }
+        }
+        if (count > 0) {
+            writeBlock(channel, buffer, count, end, blocks);
+        }
+    }
+
+    // Writes the buffer as one block at the end of the file and clears it for the next
+    private static void writeBlock(FileChannel channel, ByteBuffer buffer, int count, AtomicLong end,
+            ConcurrentLinkedQueue<Block> blocks) throws IOException {
+        buffer.flip();
+        int length = buffer.remaining();
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, length);
+        long offset = end.getAndAdd(length);
+        writeFully(channel, buffer, offset);
+        blocks.add(new Block(offset, length, count, (int) crc.getValue()));
+        buffer.clear();
+    }
+
+    private static void restoreBlock(Path file, FileChannel channel, Block block, boolean timed,
+            ReceiptStore target, LongAdder restored) throws IOException {
+        ByteBuffer buffer = readFully(channel, block.offset, block.length);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate());
+        if ((int) crc.getValue() != block.crc) {
+            logger.warn("Skipping {} receipts at offset {} of {}: bad checksum", block.count, block.offset, file);
+            return;
+        }
+        long stored = 0;
+        try {
+            for (int i = 0; i < block.count; i++) {
+                String id = ReceiptCodec.readString(buffer);
+                long storedAtMillis = timed ? buffer.getLong() : -1;
+                int points = buffer.getInt();
+                Receipt receipt = ReceiptCodec.read(buffer);
+                boolean put = timed
+                    ? target.putIfAbsent(id, receipt, storedAtMillis)
+                    : target.putIfAbsent(id, receipt);
+                if (put) {
+                    stored++;
+                    if (points != ReceiptStore.NO_POINTS) {
+                        target.setPoints(id, points);
+                    }
+                }
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            // Only possible for a block written by a different version that still matches its checksum
+            logger.warn("Skipping the rest of the block at offset {} of {}: {}", block.offset, file, ex.toString());
+        }
+        restored.add(stored);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Receipt snapshot ends at " + (position + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static SnapshotResult result(Path file, long receipts, long bytes, long nanos) {
+        // Megabytes of 10^6 bytes per second
+        double megabytesPerSecond = bytes * 1000.0 / Math.max(1, nanos);
+        return new SnapshotResult(file.toString(), receipts, bytes, nanos / 1_000_000,
+            Math.round(megabytesPerSecond * 10) / 10.0);
+    }
+
+    private static final class Block {
+        private final long offset;
+        private final int length;
+        private final int count;
+        private final int crc;
+
+        private Block(long offset, int length, int count, int crc) {
+            this.offset = offset;
+            this.length = length;
+            this.count = count;
+            this.crc = crc;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.receiptprocessor.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.receiptprocessor.model.SnapshotResult;
+import com.example.receiptprocessor.store.ReceiptStore;
+
+/**
+ * Keeps a {@link ReceiptSnapshot} of the store in one file: restores it on startup, rewrites it on demand
+ * and, if configured, when closed on shutdown, so a restarted node comes back with its receipts and points
+ * instead of empty. Only one snapshot is written at a time.
+ */
+public class ReceiptSnapshotter implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ReceiptSnapshotter.class);
+
+    private final Path file;
+    private final boolean writeOnShutdown;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile ReceiptStore store;
+    private volatile ToLongFunction<String> storedAt;
+
+    public ReceiptSnapshotter(Path file, boolean writeOnShutdown) {
+        this.file = file;
+        this.writeOnShutdown = writeOnShutdown;
+    }
+
+    /**
+     * Sets the store the snapshots are taken of. Pass one inside any retention layer, so reading every receipt
+     * for a snapshot is not counted as store hits.
+     */
+    public void setStore(ReceiptStore store) {
+        setStore(store, null);
+    }
+
+    /**
+     * Sets the store the snapshots are taken of, and where the time each receipt was stored at is found, so a
+     * restored receipt keeps its age; see {@link ReceiptSnapshot#write(ReceiptStore, ToLongFunction, Path)}.
+     */
+    public void setStore(ReceiptStore store, ToLongFunction<String> storedAt) {
+        this.storedAt = storedAt;
+        this.store = store;
+    }
+
+    /**
+     * Stores the receipts of the last snapshot in {@code target}, returning how many were restored. A missing
+     * snapshot restores nothing, and one that cannot be read is logged and restores what it can: the node
+     * then starts cold rather than not at all.
+     */
+    public long restore(ReceiptStore target) {
+        if (!Files.exists(file)) {
+            logger.info("No receipt snapshot at {}, starting empty", file);
+            return 0;
+        }
+        int before = target.size();
+        try {
+            SnapshotResult result = ReceiptSnapshot.restore(file, target);
+            logger.info("Restored {} receipts from {} ({} bytes) in {} ms ({} MB/s)", result.getReceipts(), file,
+                result.getBytes(), result.getMillis(), result.getMegabytesPerSecond());
+            return result.getReceipts();
+        } catch (NoSuchFileException ex) {
+            logger.info("No receipt snapshot at {}, starting empty", file);
+            return 0;
+        } catch (IOException | RuntimeException ex) {
+            logger.warn("Could not restore the receipt snapshot {}", file, ex);
+            return Math.max(0, target.size() - before);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the store now, replacing the previous one.
+     *
+     * @throws IllegalStateException if a snapshot is already being written
+     */
+    public SnapshotResult snapshot() throws IOException {
+        if (!writeLock.tryLock()) {
+            throw new IllegalStateException("A receipt snapshot is already being written");
+        }
+        try {
+            return write();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!writeOnShutdown || store == null) {
+            return;
+        }
+        // Waits for a snapshot already in progress instead of skipping the final one
+        writeLock.lock();
+        try {
+            write();
+        } catch (IOException | RuntimeException ex) {
+            logger.error("Could not write the receipt snapshot {} on shutdown", file, ex);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Caller holds writeLock
+    private SnapshotResult write() throws IOException {
+        ReceiptStore source = store;
+        if (source == null) {
+            throw new IllegalStateException("No receipt store to snapshot");
+        }
+        SnapshotResult result = ReceiptSnapshot.write(source, storedAt, file);
+        logger.info("Wrote a snapshot of {} receipts to {} ({} bytes) in {} ms ({} MB/s)", result.getReceipts(),
+            file, result.getBytes(), result.getMillis(), result.getMegabytesPerSecond());
+        return result;
+    }
+}
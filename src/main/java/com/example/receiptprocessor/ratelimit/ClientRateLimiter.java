@@ -0,0 +1,113 @@
+package com.example.receiptprocessor.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client token buckets, each a single {@link AtomicLong} updated by compare-and-set, so admitting a
+ * request takes one map lookup and one CAS and never blocks. The buckets use the virtual-scheduling form
+ * of a token bucket (GCRA): the long holds the time at which the bucket will be full again, each request
+ * moves it one refill interval later, and a request is admitted while that time is at most
+ * {@code burst - 1} intervals ahead of now. It admits exactly what a bucket of {@code burst} tokens
+ * refilled at {@code rate} per second would, without a separate token count to keep in step with the clock.
+ * <p>
+ * A bucket that is full again is indistinguishable from a new one, so once {@code maxClients} buckets exist
+ * the full ones are swept, at most once a second however many new clients arrive. While the map is still at
+ * {@code maxClients} after that, new clients share one overflow bucket instead of getting their own: a flood
+ * of made-up client IDs is limited as one client and costs neither memory nor a sweep per request. The
+ * bound may be passed by the few new clients racing past the check at once.
+ */
+public class ClientRateLimiter {
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final int maxClients;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    // Shared by the clients that arrive while the map is full; Long.MIN_VALUE is full since forever
+    private final AtomicLong overflow = new AtomicLong(Long.MIN_VALUE);
+    // Clock time before which no sweep starts
+    private final AtomicLong nextSweep;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+
+    public ClientRateLimiter(double ratePerSecond, int burst, int maxClients) {
+        this(ratePerSecond, burst, maxClients, System::nanoTime);
+    }
+
+    ClientRateLimiter(double ratePerSecond, int burst, int maxClients, LongSupplier clock) {
+        if (!(ratePerSecond > 0) || burst < 1 || maxClients < 1) {
+            throw new IllegalArgumentException("Rate, burst and max clients must be positive: " + ratePerSecond
+                + ", " + burst + ", " + maxClients);
+        }
+        this.intervalNanos = Math.max(1, Math.round(1_000_000_000 / ratePerSecond));
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.maxClients = maxClients;
+        this.clock = clock;
+        this.nextSweep = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * Takes a token from the client's bucket. Returns 0 when the request is admitted, otherwise how many
+     * nanoseconds until the next token, for a Retry-After header.
+     */
+    public long tryAcquire(String client) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = buckets.get(client);
+        if (bucket == null) {
+            bucket = newBucket(client, now);
+        }
+        while (true) {
+            long full = bucket.get();
+            long start = Math.max(full, now);
+            long wait = start - now - toleranceNanos;
+            if (wait > 0) {
+                rejected.increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(full, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    private AtomicLong newBucket(String client, long now) {
+        if (buckets.size() >= maxClients) {
+            sweep(now);
+            if (buckets.size() >= maxClients) {
+                overflowed.increment();
+                return overflow;
+            }
+        }
+        // Long.MIN_VALUE: full since forever
+        return buckets.computeIfAbsent(client, key -> new AtomicLong(Long.MIN_VALUE));
+    }
+
+    // Drops the buckets that are full again; only the first caller in each sweep interval does the work
+    private void sweep(long now) {
+        long next = nextSweep.get();
+        if (now - next < 0 || !nextSweep.compareAndSet(next, now + SWEEP_INTERVAL_NANOS)) {
+            return;
+        }
+        // A request racing the removal of its bucket may be admitted by a fresh one; that is at most one burst,
+        // and only for clients idle long enough to be full
+        buckets.values().removeIf(bucket -> bucket.get() <= now);
+    }
+
+    public int getClients() {
+        return buckets.size();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    // Requests from new clients that were counted against the shared overflow bucket
+    public long getOverflowed() {
+        return overflowed.sum();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.receiptprocessor.ratelimit;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sheds a share of requests while the server is slow. Latency is tracked as a moving average of recent
+ * requests (each moves it 1/16 of the way); above the threshold, requests are shed with a probability
+ * that grows with the overshoot, reaching the maximum of 90% at twice the threshold. The tenth still
+ * admitted keeps the average measured, so shedding eases off as soon as latency recovers.
+ * <p>
+ * The average is read and written without synchronization: an update lost to a racing one only makes it
+ * follow latency slightly more slowly, which is cheaper than making every request contend on a CAS.
+ */
+public class LoadShedder {
+    private static final double MAX_SHED = 0.9;
+
+    private final long thresholdNanos;
+    private final LongAdder shed = new LongAdder();
+    private volatile long averageNanos;
+
+    public LoadShedder(long thresholdNanos) {
+        if (thresholdNanos <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive: " + thresholdNanos);
+        }
+        this.thresholdNanos = thresholdNanos;
+    }
+
+    public boolean shouldShed() {
+        long average = averageNanos;
+        if (average <= thresholdNanos) {
+            return false;
+        }
+        double probability = Math.min(MAX_SHED, (double) (average - thresholdNanos) / thresholdNanos);
+        if (ThreadLocalRandom.current().nextDouble() >= probability) {
+            return false;
+        }
+        shed.increment();
+        return true;
+    }
+
+    public void record(long latencyNanos) {
+        long average = averageNanos;
+        averageNanos = average + ((latencyNanos - average) >> 4);
+    }
+
+    public long getAverageNanos() {
+        return averageNanos;
+    }
+
+    public long getShed() {
+        return shed.sum();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.receiptprocessor.ratelimit;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Rate limits the receipt endpoints per client and sheds load while they are slow. A client is identified
+ * by the client header when the request has one (set it at a trusted gateway, since clients choose their
+ * own headers) and by its address otherwise. A client over its rate gets 429 and one arriving while load
+ * is shed gets 503, both with Retry-After, before any of the request is read.
+ * <p>
+ * Only the short requests (single ingest and points lookups) feed the shedder's latency: batches and
+ * streams take long by design and would make the server look congested when it is not.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final byte[] TOO_MANY_REQUESTS = "{\"error\":\"Too many requests\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OVERLOADED = "{\"error\":\"Server overloaded, retry later\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final ClientRateLimiter limiter;
+    private final LoadShedder shedder;
+    private final String clientHeader;
+
+    /**
+     * @param shedder null to only rate limit
+     * @param clientHeader null or empty to identify clients by address only
+     */
+    public RateLimitFilter(ClientRateLimiter limiter, LoadShedder shedder, String clientHeader) {
+        this.limiter = limiter;
+        this.shedder = shedder;
+        this.clientHeader = clientHeader == null || clientHeader.isEmpty() ? null : clientHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long wait = limiter.tryAcquire(client(request));
+        if (wait > 0) {
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, wait, TOO_MANY_REQUESTS);
+            return;
+        }
+        if (shedder == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (shedder.shouldShed()) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1), OVERLOADED);
+            return;
+        }
+        if (!isShort(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            shedder.record(System.nanoTime() - start);
+        }
+    }
+
+    public ClientRateLimiter getLimiter() {
+        return limiter;
+    }
+
+    public LoadShedder getShedder() {
+        return shedder;
+    }
+
+    private String client(HttpServletRequest request) {
+        if (clientHeader != null) {
+            String client = request.getHeader(clientHeader);
+            if (client != null) {
+                return client;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    // POST /receipts/process and GET /receipts/{id}/points
+    private static boolean isShort(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if ("GET".equals(request.getMethod())) {
+            return uri.endsWith("/points");
+        }
+        return uri.endsWith("/process");
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long waitNanos, byte[] body)
+            throws IOException {
+        response.setStatus(status.value());
+        // Whole seconds, rounded up
+        response.setHeader("Retry-After", Long.toString(Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
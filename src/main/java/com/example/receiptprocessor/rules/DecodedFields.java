@@ -0,0 +1,38 @@
+package com.example.receiptprocessor.rules;
+
+/**
+ * The amounts, date and time of a receipt that passed validation, decoded once by {@link ReceiptFields}, so
+ * the store, the rules and the analytics read them instead of parsing the strings again. Every field was in
+ * its plain form, so none of them is -1.
+ */
+public final class DecodedFields {
+    private final long totalCents;
+    // YYYYMMDD
+    private final int purchaseDate;
+    private final int minuteOfDay;
+    private final long[] priceCents;
+
+    public DecodedFields(long totalCents, int purchaseDate, int minuteOfDay, long[] priceCents) {
+        this.totalCents = totalCents;
+        this.purchaseDate = purchaseDate;
+        this.minuteOfDay = minuteOfDay;
+        this.priceCents = priceCents;
+    }
+
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    // YYYYMMDD
+    public int getPurchaseDate() {
+        return purchaseDate;
+    }
+
+    public int getMinuteOfDay() {
+        return minuteOfDay;
+    }
+
+    public long getPriceCents(int item) {
+        return priceCents[item];
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.receiptprocessor.rules;
+
+import java.util.List;
+
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+
+/**
+ * The fields of a receipt the rules of a {@link RulePipeline} read, decoded once and shared by all of them.
+ * Fields are decoded in the order the original rules read them, and only those some rule needs. Apart
+ * from the total, which the original rules parsed up front, a field that is missing or not in its plain
+ * form is left at -1 for the rule to parse the general way, so it fails where the original rule would.
+ * Amounts, the date and the time that validation already decoded are taken from its {@link DecodedFields}.
+ * Item descriptions and prices are decoded by the rule as it reaches each item, like the original rule, so
+ * a receipt costs no arrays however many items it has.
+ */
+final class DecodedReceipt {
+    static final int TOTAL = 1;
+    static final int RETAILER = 1 << 1;
+    static final int ITEMS = 1 << 2;
+    static final int DATE = 1 << 3;
+    static final int TIME = 1 << 4;
+
+    final Receipt receipt;
+    final ItemSplitter itemSplitter;
+    private final DecodedFields decodedFields;
+    // -1 when the total is not plain; it is then in total
+    long totalCents = -1;
+    double total;
+    int retailerAlphanumerics;
+    List<Item> items;
+    int itemCount;
+    // YYYYMMDD, or -1
+    int date = -1;
+    int minuteOfDay = -1;
+
+    private DecodedReceipt(Receipt receipt, DecodedFields decodedFields, ItemSplitter itemSplitter) {
+        this.receipt = receipt;
+        this.decodedFields = decodedFields;
+        this.itemSplitter = itemSplitter;
+    }
+
+    static DecodedReceipt decode(Receipt receipt, int fields, DecodedFields decodedFields,
+            ItemSplitter itemSplitter) {
+        DecodedReceipt decoded = new DecodedReceipt(receipt, decodedFields, itemSplitter);
+        if ((fields & TOTAL) != 0) {
+            decoded.totalCents = decodedFields != null ? decodedFields.getTotalCents()
+                : ReceiptFields.parseCents(receipt.getTotal());
+            if (decoded.totalCents < 0) {
+                decoded.total = Double.parseDouble(receipt.getTotal());
+            }
+        }
+        if ((fields & RETAILER) != 0) {
+            decoded.retailerAlphanumerics = ReceiptFields.alphanumericCount(receipt.getRetailer());
+        }
+        if ((fields & ITEMS) != 0) {
+            decoded.items = receipt.getItems();
+            decoded.itemCount = decoded.items.size();
+        }
+        if ((fields & DATE) != 0) {
+            String date = receipt.getPurchaseDate();
+            if (decodedFields != null) {
+                decoded.date = decodedFields.getPurchaseDate();
+            } else if (date != null) {
+                decoded.date = ReceiptFields.packedDate(date);
+            }
+        }
+        if ((fields & TIME) != 0) {
+            String time = receipt.getPurchaseTime();
+            if (decodedFields != null) {
+                decoded.minuteOfDay = decodedFields.getMinuteOfDay();
+            } else if (time != null) {
+                decoded.minuteOfDay = ReceiptFields.minuteOfDay(time);
+            }
+        }
+        return decoded;
+    }
+
+    // Reads only item i, so items can be scored from several threads
+    int descriptionLength(int i) {
+        return ReceiptFields.trimmedLength(items.get(i).getShortDescription());
+    }
+
+    // The price of item i in cents, or -1 where it is missing or not plain
+    long priceCents(int i) {
+        if (decodedFields != null) {
+            return decodedFields.getPriceCents(i);
+        }
+        String price = items.get(i).getPrice();
+        return price == null ? -1 : ReceiptFields.parseCents(price);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.receiptprocessor.rules;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Hot-path evaluation of the seven {@link RuleEngine} rules. Fields are decoded by scanning characters
+ * (no regexes, no trimmed copies, no LocalDate/LocalTime) and money is handled as integer cents, so a
+ * typical receipt is scored without allocating. A field that is not in its plain form is handed to the
+ * matching {@link RuleEngine} method instead, so the result, and any exception for invalid input, is the
+ * same as evaluating the rules one by one. For a traced request (see {@link RuleTrace}) the rules are
+ * also replayed through {@link RuleEngine} so its per-rule debug detail is logged. When {@link RuleMetrics}
+ * are present, the evaluations they sample are timed rule by rule; the others pay for one call.
+ */
+@Component
+@RequiredArgsConstructor
+public class FastRuleEvaluator implements PointsEvaluator {
+    private static final Logger logger = LoggerFactory.getLogger(FastRuleEvaluator.class);
+
+    private final RuleEngine ruleEngine;
+    private RuleMetrics ruleMetrics;
+    private ItemSplitter itemSplitter = ItemSplitter.DEFAULT;
+
+    @Autowired(required = false)
+    public void setRuleMetrics(RuleMetrics ruleMetrics) {
+        this.ruleMetrics = ruleMetrics;
+    }
+
+    @Autowired(required = false)
+    public void setItemSplitter(ItemSplitter itemSplitter) {
+        this.itemSplitter = itemSplitter;
+    }
+
+    @Override
+    public int evaluate(Receipt receipt) {
+        RuleMetrics metrics = ruleMetrics;
+        if (metrics != null && metrics.sample()) {
+            return evaluateMeasured(receipt, metrics);
+        }
+        long totalCents = ReceiptFields.parseCents(receipt.getTotal());
+        // Parsed up front like the original rules did, so a malformed total fails first
+        Double total = totalCents < 0 ? Double.valueOf(receipt.getTotal()) : null;
+
+        // Rule 1
+        int points = ReceiptFields.alphanumericCount(receipt.getRetailer());
+        // Rules 2 and 3
+        points += roundDollarPoints(totalCents, total) + quarterMultiplePoints(totalCents, total);
+        // Rule 4
+        List<Item> items = receipt.getItems();
+        int itemCount = items.size();
+        points += itemCount / 2 * 5;
+        // Rule 5
+        points += itemDescriptionPoints(items);
+        // Rule 6
+        points += purchaseDatePoints(receipt.getPurchaseDate());
+        // Rule 7
+        points += purchaseTimePoints(receipt.getPurchaseTime());
+        if (RuleTrace.isActive() && logger.isDebugEnabled()) {
+            trace(receipt, points);
+        }
+        return points;
+    }
+
+    // The same evaluation as evaluate(), reporting each rule's time and points
+    private int evaluateMeasured(Receipt receipt, RuleMetrics metrics) {
+        long start = System.nanoTime();
+        long totalCents = ReceiptFields.parseCents(receipt.getTotal());
+        Double total = totalCents < 0 ? Double.valueOf(receipt.getTotal()) : null;
+
+        int rule1 = ReceiptFields.alphanumericCount(receipt.getRetailer());
+        start = record(metrics, 1, rule1, start);
+        int rule2 = roundDollarPoints(totalCents, total);
+        start = record(metrics, 2, rule2, start);
+        int rule3 = quarterMultiplePoints(totalCents, total);
+        start = record(metrics, 3, rule3, start);
+        List<Item> items = receipt.getItems();
+        int itemCount = items.size();
+        int rule4 = itemCount / 2 * 5;
+        start = record(metrics, 4, rule4, start);
+        int rule5 = itemDescriptionPoints(items);
+        start = record(metrics, 5, rule5, start);
+        int rule6 = purchaseDatePoints(receipt.getPurchaseDate());
+        start = record(metrics, 6, rule6, start);
+        int rule7 = purchaseTimePoints(receipt.getPurchaseTime());
+        record(metrics, 7, rule7, start);
+
+        int points = rule1 + rule2 + rule3 + rule4 + rule5 + rule6 + rule7;
+        if (RuleTrace.isActive() && logger.isDebugEnabled()) {
+            trace(receipt, points);
+        }
+        return points;
+    }
+
+    // Returns the start time of the next rule, leaving out the time spent recording
+    private static long record(RuleMetrics metrics, int rule, int points, long start) {
+        metrics.record(rule, points, System.nanoTime() - start);
+        return System.nanoTime();
+    }
+
+    private void trace(Receipt receipt, int points) {
+        ruleEngine.calculateRetailerNamePoints(receipt.getRetailer());
+        Double total = Double.valueOf(receipt.getTotal());
+        ruleEngine.calculateRoundDollarPoints(total);
+        ruleEngine.calculateQuarterMultiplePoints(total);
+        ruleEngine.calculateItemPairPoints(receipt.getItems());
+        for (Item item : receipt.getItems()) {
+            ruleEngine.calculateItemDescriptionPoints(item);
+        }
+        ruleEngine.calculatePurchaseDatePoints(receipt.getPurchaseDate());
+        ruleEngine.calculatePurchaseTimePoints(receipt.getPurchaseTime());
+        logger.debug("Receipt earned {} points in total", points);
+    }
+
+    static int roundDollarPoints(long totalCents) {
+        return totalCents > 0 && totalCents % 100 == 0 ? 50 : 0;
+    }
+
+    static int quarterMultiplePoints(long totalCents) {
+        return totalCents > 0 && totalCents % 25 == 0 ? 25 : 0;
+    }
+
+    // A total that is not plain (total != null) is scored by RuleEngine
+    private int roundDollarPoints(long totalCents, Double total) {
+        return total == null ? roundDollarPoints(totalCents) : ruleEngine.calculateRoundDollarPoints(total);
+    }
+
+    private int quarterMultiplePoints(long totalCents, Double total) {
+        return total == null ? quarterMultiplePoints(totalCents) : ruleEngine.calculateQuarterMultiplePoints(total);
+    }
+
+    // Rule 5 over all items; a very large receipt is split across the fork/join pool
+    private int itemDescriptionPoints(List<Item> items) {
+        int itemCount = items.size();
+        if (itemSplitter.splits(itemCount)) {
+            return itemSplitter.sum(itemCount, i -> itemDescriptionPoints(items.get(i)));
+        }
+        int points = 0;
+        for (int i = 0; i < itemCount; i++) {
+            points += itemDescriptionPoints(items.get(i));
+        }
+        return points;
+    }
+
+    int itemDescriptionPoints(Item item) {
+        if (ReceiptFields.trimmedLength(item.getShortDescription()) % 3 != 0) {
+            return 0;
+        }
+        long priceCents = ReceiptFields.parseCents(item.getPrice());
+        if (priceCents < 0) {
+            return ruleEngine.calculateItemDescriptionPoints(item);
+        }
+        // ceil(price * 0.2) in cents: ceil(cents / 500)
+        return (int) ((priceCents + 499) / 500);
+    }
+
+    int purchaseDatePoints(String purchaseDate) {
+        int day = ReceiptFields.dayOfMonth(purchaseDate);
+        if (day < 0) {
+            return ruleEngine.calculatePurchaseDatePoints(purchaseDate);
+        }
+        return day % 2 != 0 ? 6 : 0;
+    }
+
+    int purchaseTimePoints(String purchaseTime) {
+        int minute = ReceiptFields.minuteOfDay(purchaseTime);
+        if (minute < 0) {
+            return ruleEngine.calculatePurchaseTimePoints(purchaseTime);
+        }
+        // Strictly after 14:00 and strictly before 16:00
+        return minute > 14 * 60 && minute < 16 * 60 ? 10 : 0;
+    }
+}
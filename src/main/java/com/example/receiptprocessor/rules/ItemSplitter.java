@@ -0,0 +1,135 @@
+package com.example.receiptprocessor.rules;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Spreads per-item work of very large receipts over a {@link ForkJoinPool}. Receipts below the threshold
+ * are left to the caller's plain loop, so the common case pays one comparison. Item points are summed in
+ * int arithmetic, which gives the same total in any grouping, and if any item fails the whole range is
+ * redone in order, so the result, or the exception, is exactly that of the sequential loop.
+ */
+public final class ItemSplitter {
+    // Items cost tens of nanoseconds each, so below a few thousand the fork/join overhead outweighs the
+    // saving; ItemSplitterBenchmark finds the crossover for a given machine
+    public static final int DEFAULT_THRESHOLD = 8192;
+    public static final ItemSplitter DEFAULT = new ItemSplitter(DEFAULT_THRESHOLD, ForkJoinPool.commonPool());
+
+    // Smallest range worth a task of its own
+    private static final int MIN_LEAF_SIZE = 1024;
+
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param threshold the number of items from which work is split, or 0 to never split
+     */
+    public ItemSplitter(int threshold, ForkJoinPool pool) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative: " + threshold);
+        }
+        this.threshold = threshold > 0 ? threshold : Integer.MAX_VALUE;
+        this.pool = pool;
+    }
+
+    public boolean splits(int count) {
+        return count >= threshold;
+    }
+
+    /**
+     * Returns the sum of {@code points} over 0 to count - 1, computed in parallel.
+     */
+    int sum(int count, IntUnaryOperator points) {
+        try {
+            return pool.invoke(new SumTask(points, 0, count, leafSize(count)));
+        } catch (RuntimeException ex) {
+            return sequentialSum(points, 0, count);
+        }
+    }
+
+    /**
+     * Applies the action to 0 to count - 1 in parallel. The action must be safe to repeat: after a failure
+     * every index is visited again in order, so the first failing index throws.
+     */
+    void forEach(int count, IntConsumer action) {
+        try {
+            pool.invoke(new ForEachTask(action, 0, count, leafSize(count)));
+        } catch (RuntimeException ex) {
+            for (int i = 0; i < count; i++) {
+                action.accept(i);
+            }
+        }
+    }
+
+    private int leafSize(int count) {
+        return Math.max(MIN_LEAF_SIZE, count / (pool.getParallelism() * 4));
+    }
+
+    private static int sequentialSum(IntUnaryOperator points, int from, int to) {
+        int sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += points.applyAsInt(i);
+        }
+        return sum;
+    }
+
+    private static final class SumTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        // Tasks are serializable only because ForkJoinTask is; they never leave the pool
+        private final transient IntUnaryOperator points;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        private SumTask(IntUnaryOperator points, int from, int to, int leafSize) {
+            this.points = points;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= leafSize) {
+                return sequentialSum(points, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            SumTask left = new SumTask(points, from, middle, leafSize);
+            left.fork();
+            int right = new SumTask(points, middle, to, leafSize).compute();
+            return left.join() + right;
+        }
+    }
+
+    private static final class ForEachTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient IntConsumer action;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        private ForEachTask(IntConsumer action, int from, int to, int leafSize) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ForEachTask(action, from, middle, leafSize), new ForEachTask(action, middle, to, leafSize));
+        }
+    }
+}
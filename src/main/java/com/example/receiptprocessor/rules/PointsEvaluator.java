@@ -0,0 +1,20 @@
+package com.example.receiptprocessor.rules;
+
+import com.example.receiptprocessor.model.Receipt;
+
+/**
+ * Scores a receipt. Implemented by the hand-written {@link FastRuleEvaluator} and by the configured
+ * {@link RulePipelineEvaluator}.
+ */
+public interface PointsEvaluator {
+
+    int evaluate(Receipt receipt);
+
+    /**
+     * Scores a receipt whose amounts, date and time were decoded by validation (null if they were not).
+     * Evaluators that decode the fields themselves can leave this to {@link #evaluate(Receipt)}.
+     */
+    default int evaluate(Receipt receipt, DecodedFields fields) {
+        return evaluate(receipt);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.receiptprocessor.rules;
+
+/**
+ * One compiled rule of a {@link RulePipeline}. Its parameters are fixed when it is compiled, so evaluating
+ * it only reads the decoded receipt.
+ */
+@FunctionalInterface
+interface PointsRule {
+
+    /**
+     * @param pointsSoFar the points of the rules before this one, for rules that scale them
+     */
+    int points(DecodedReceipt receipt, int pointsSoFar);
+}
@@ -0,0 +1,151 @@
+package com.example.receiptprocessor.rules;
+
+/**
+ * Allocation-free decoding of the receipt's text fields. Each method accepts only the plain form of its
+ * field and returns -1 for anything else, so callers can fall back to the general-purpose parsers for
+ * unusual input.
+ */
+public final class ReceiptFields {
+    // Amounts are decoded only below this many cents, where the cent arithmetic was checked to agree with
+    // the double arithmetic of the original rules (and their int casts do not saturate)
+    static final long MAX_CENTS = 100_000_000_000L;
+
+    private ReceiptFields() {
+    }
+
+    /**
+     * Decodes {@code digits[.d[d]]} into cents, e.g. "6.49" -> 649 and "6.5" -> 650.
+     */
+    public static long parseCents(String amount) {
+        int length = amount.length();
+        if (length == 0) {
+            return -1;
+        }
+        long cents = 0;
+        int i = 0;
+        while (i < length && isDigit(amount.charAt(i))) {
+            cents = cents * 10 + (amount.charAt(i) - '0');
+            if (cents >= MAX_CENTS) {
+                return -1;
+            }
+            i++;
+        }
+        if (i == 0) {
+            return -1;
+        }
+        int fractionDigits = 0;
+        if (i < length) {
+            if (amount.charAt(i) != '.') {
+                return -1;
+            }
+            i++;
+            while (i < length && fractionDigits < 2 && isDigit(amount.charAt(i))) {
+                cents = cents * 10 + (amount.charAt(i) - '0');
+                fractionDigits++;
+                i++;
+            }
+            if (i < length || fractionDigits == 0) {
+                return -1;
+            }
+        }
+        for (; fractionDigits < 2; fractionDigits++) {
+            cents *= 10;
+        }
+        return cents < MAX_CENTS ? cents : -1;
+    }
+
+    /**
+     * Returns the day of month of a valid {@code YYYY-MM-DD} calendar date.
+     */
+    public static int dayOfMonth(String date) {
+        int packed = packedDate(date);
+        return packed < 0 ? -1 : packed % 100;
+    }
+
+    /**
+     * Returns a valid {@code YYYY-MM-DD} calendar date as the number YYYYMMDD, which orders like the date.
+     */
+    public static int packedDate(String date) {
+        if (date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return -1;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return -1;
+        }
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * Returns the minute of day of a valid {@code HH:MM} time.
+     */
+    public static int minuteOfDay(String time) {
+        if (time.length() != 5 || time.charAt(2) != ':') {
+            return -1;
+        }
+        int hour = digits(time, 0, 2);
+        int minute = digits(time, 3, 5);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return -1;
+        }
+        return hour * 60 + minute;
+    }
+
+    // Same set of characters as the regex [A-Za-z0-9]
+    public static int alphanumericCount(String value) {
+        int count = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Length of String.trim() without creating the trimmed string
+    public static int trimmedLength(String value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end - start;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
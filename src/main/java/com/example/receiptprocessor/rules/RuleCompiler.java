@@ -0,0 +1,224 @@
+package com.example.receiptprocessor.rules;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import com.example.receiptprocessor.model.Receipt;
+
+/**
+ * Compiles {@link RuleDefinition}s into a {@link RulePipeline}. Every parameter is validated and converted
+ * here (amounts to cents, dates to YYYYMMDD, times to minute of day), so the compiled rules only compare
+ * numbers. With the {@link RuleDefinition#defaults() default} definitions the pipeline scores every
+ * receipt like {@link RuleEngine}, including which exception an invalid receipt fails with.
+ */
+public final class RuleCompiler {
+    // Price multipliers are applied as exact fractions; this keeps cents * numerator within a long
+    private static final long MAX_NUMERATOR = 10_000_000L;
+
+    private RuleCompiler() {
+    }
+
+    public static RulePipeline compile(List<RuleDefinition> definitions) {
+        PointsRule[] rules = new PointsRule[definitions.size()];
+        String[] names = new String[definitions.size()];
+        int fields = 0;
+        for (int i = 0; i < rules.length; i++) {
+            RuleDefinition definition = definitions.get(i);
+            if (definition.getType() == null) {
+                throw new IllegalArgumentException("Rule " + (i + 1) + " has no type");
+            }
+            names[i] = definition.getName() != null ? definition.getName() : definition.getType();
+            try {
+                Compiled compiled = compile(definition);
+                rules[i] = compiled.rule;
+                fields |= compiled.fields;
+            } catch (IllegalArgumentException | DateTimeParseException | ArithmeticException ex) {
+                throw new IllegalArgumentException("Rule " + (i + 1) + " (" + names[i] + "): " + ex.getMessage(), ex);
+            }
+        }
+        return new RulePipeline(rules, names, fields);
+    }
+
+    private static Compiled compile(RuleDefinition definition) {
+        switch (definition.getType()) {
+            case "retailer-alphanumeric":
+                return retailerAlphanumeric(points(definition, 1));
+            case "round-total":
+                return roundTotal(points(definition, null));
+            case "total-multiple":
+                return totalMultiple(required(definition.getMultiple(), "multiple"), points(definition, null));
+            case "item-pairs":
+                return itemPairs(points(definition, null));
+            case "item-description-length":
+                return itemDescriptionLength(required(definition.getMultiple(), "multiple").intValueExact(),
+                    required(definition.getPriceMultiplier(), "price-multiplier"));
+            case "odd-day":
+                return oddDay(points(definition, null));
+            case "time-window":
+                return timeWindow(LocalTime.parse(required(definition.getAfter(), "after")),
+                    LocalTime.parse(required(definition.getBefore(), "before")), points(definition, null));
+            case "date-range":
+                return dateRange(LocalDate.parse(required(definition.getFrom(), "from")),
+                    LocalDate.parse(required(definition.getTo(), "to")), points(definition, null));
+            case "retailer-bonus":
+                return retailerBonus(required(definition.getRetailer(), "retailer"), points(definition, null));
+            case "retailer-multiplier":
+                return retailerMultiplier(required(definition.getRetailer(), "retailer"),
+                    required(definition.getFactor(), "factor"));
+            default:
+                throw new IllegalArgumentException("unknown type " + definition.getType());
+        }
+    }
+
+    private static Compiled retailerAlphanumeric(int points) {
+        return new Compiled(DecodedReceipt.RETAILER, (receipt, sum) -> receipt.retailerAlphanumerics * points);
+    }
+
+    private static Compiled roundTotal(int points) {
+        return new Compiled(DecodedReceipt.TOTAL, (receipt, sum) -> {
+            if (receipt.totalCents >= 0) {
+                return receipt.totalCents > 0 && receipt.totalCents % 100 == 0 ? points : 0;
+            }
+            double total = receipt.total;
+            return total == Math.floor(total) && total > 0 ? points : 0;
+        });
+    }
+
+    private static Compiled totalMultiple(BigDecimal multiple, int points) {
+        long multipleCents = positive(multiple.movePointRight(2).longValueExact(), "multiple");
+        double multipleValue = multiple.doubleValue();
+        return new Compiled(DecodedReceipt.TOTAL, (receipt, sum) -> {
+            if (receipt.totalCents >= 0) {
+                return receipt.totalCents > 0 && receipt.totalCents % multipleCents == 0 ? points : 0;
+            }
+            double total = receipt.total;
+            return total % multipleValue == 0 && total > 0 ? points : 0;
+        });
+    }
+
+    private static Compiled itemPairs(int points) {
+        return new Compiled(DecodedReceipt.ITEMS, (receipt, sum) -> receipt.itemCount / 2 * points);
+    }
+
+    private static Compiled itemDescriptionLength(int multiple, BigDecimal priceMultiplier) {
+        positive(multiple, "multiple");
+        // price * multiplier = cents * numerator / denominator, rounded up exactly in integers
+        BigDecimal fraction = priceMultiplier.setScale(Math.max(0, priceMultiplier.stripTrailingZeros().scale()));
+        long numerator = fraction.unscaledValue().longValueExact();
+        long denominator = BigDecimal.TEN.pow(fraction.scale() + 2).longValueExact();
+        if (numerator < 0 || numerator > MAX_NUMERATOR) {
+            throw new IllegalArgumentException("price-multiplier must be from 0 to " + MAX_NUMERATOR);
+        }
+        double multiplier = priceMultiplier.doubleValue();
+        return new Compiled(DecodedReceipt.ITEMS, (receipt, sum) -> {
+            if (receipt.itemSplitter.splits(receipt.itemCount)) {
+                return receipt.itemSplitter.sum(receipt.itemCount,
+                    i -> itemDescriptionPoints(receipt, i, multiple, numerator, denominator, multiplier));
+            }
+            int points = 0;
+            for (int i = 0; i < receipt.itemCount; i++) {
+                points += itemDescriptionPoints(receipt, i, multiple, numerator, denominator, multiplier);
+            }
+            return points;
+        });
+    }
+
+    private static int itemDescriptionPoints(DecodedReceipt receipt, int i, int multiple, long numerator,
+            long denominator, double multiplier) {
+        if (receipt.descriptionLength(i) % multiple != 0) {
+            return 0;
+        }
+        long cents = receipt.priceCents(i);
+        if (cents >= 0) {
+            return (int) ((cents * numerator + denominator - 1) / denominator);
+        }
+        String price = receipt.items.get(i).getPrice();
+        return (int) Math.ceil(Double.parseDouble(price) * multiplier);
+    }
+
+    private static Compiled oddDay(int points) {
+        return new Compiled(DecodedReceipt.DATE, (receipt, sum) -> {
+            int day = receipt.date >= 0 ? receipt.date % 100
+                : LocalDate.parse(receipt.receipt.getPurchaseDate()).getDayOfMonth();
+            return day % 2 != 0 ? points : 0;
+        });
+    }
+
+    private static Compiled timeWindow(LocalTime after, LocalTime before, int points) {
+        if (!before.isAfter(after)) {
+            throw new IllegalArgumentException("before must be later than after");
+        }
+        // Minutes compare exactly only when both bounds are whole minutes
+        boolean wholeMinutes = after.getSecond() == 0 && after.getNano() == 0
+            && before.getSecond() == 0 && before.getNano() == 0;
+        int afterMinute = after.getHour() * 60 + after.getMinute();
+        int beforeMinute = before.getHour() * 60 + before.getMinute();
+        return new Compiled(DecodedReceipt.TIME, (receipt, sum) -> {
+            int minute = receipt.minuteOfDay;
+            if (minute >= 0 && wholeMinutes) {
+                return minute > afterMinute && minute < beforeMinute ? points : 0;
+            }
+            LocalTime time = LocalTime.parse(receipt.receipt.getPurchaseTime());
+            return time.isAfter(after) && time.isBefore(before) ? points : 0;
+        });
+    }
+
+    private static Compiled dateRange(LocalDate from, LocalDate to, int points) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        int fromDate = pack(from);
+        int toDate = pack(to);
+        return new Compiled(DecodedReceipt.DATE, (receipt, sum) -> {
+            int date = receipt.date >= 0 ? receipt.date : pack(LocalDate.parse(receipt.receipt.getPurchaseDate()));
+            return date >= fromDate && date <= toDate ? points : 0;
+        });
+    }
+
+    private static Compiled retailerBonus(String retailer, int points) {
+        return new Compiled(0, (receipt, sum) -> isRetailer(receipt.receipt, retailer) ? points : 0);
+    }
+
+    private static Compiled retailerMultiplier(String retailer, int factor) {
+        return new Compiled(0, (receipt, sum) -> isRetailer(receipt.receipt, retailer) ? sum * (factor - 1) : 0);
+    }
+
+    private static boolean isRetailer(Receipt receipt, String retailer) {
+        return retailer.equalsIgnoreCase(receipt.getRetailer());
+    }
+
+    private static int pack(LocalDate date) {
+        return date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+    }
+
+    private static int points(RuleDefinition definition, Integer defaultPoints) {
+        return required(definition.getPoints() != null ? definition.getPoints() : defaultPoints, "points");
+    }
+
+    private static <T> T required(T value, String property) {
+        if (value == null) {
+            throw new IllegalArgumentException(property + " is required");
+        }
+        return value;
+    }
+
+    private static long positive(long value, String property) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(property + " must be positive");
+        }
+        return value;
+    }
+
+    private static final class Compiled {
+        private final int fields;
+        private final PointsRule rule;
+
+        private Compiled(int fields, PointsRule rule) {
+            this.fields = fields;
+            this.rule = rule;
+        }
+    }
+}
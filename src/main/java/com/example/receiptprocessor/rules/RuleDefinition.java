@@ -0,0 +1,74 @@
+package com.example.receiptprocessor.rules;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * One rule as written in configuration, under {@code receipt.rules.definitions} or in a rules file.
+ * Which properties apply depends on the type:
+ * <ul>
+ * <li>{@code retailer-alphanumeric}: points for every alphanumeric character in the retailer name</li>
+ * <li>{@code round-total}: points if the total is a whole dollar amount above zero</li>
+ * <li>{@code total-multiple}: points if the total is a multiple of {@code multiple}</li>
+ * <li>{@code item-pairs}: points for every two items</li>
+ * <li>{@code item-description-length}: for each item whose trimmed description length is a multiple of
+ * {@code multiple}, the price times {@code price-multiplier}, rounded up</li>
+ * <li>{@code odd-day}: points if the day of the purchase date is odd</li>
+ * <li>{@code time-window}: points if the purchase time is strictly between {@code after} and
+ * {@code before}</li>
+ * <li>{@code date-range}: points if the purchase date is from {@code from} to {@code to}, inclusive</li>
+ * <li>{@code retailer-bonus}: points if the retailer is {@code retailer}, ignoring case</li>
+ * <li>{@code retailer-multiplier}: multiplies the points of the rules before it by {@code factor} if the
+ * retailer is {@code retailer}, ignoring case</li>
+ * </ul>
+ */
+@Data
+public class RuleDefinition {
+    // Used in logs and errors; defaults to the type
+    private String name;
+    private String type;
+    private Integer points;
+    private BigDecimal multiple;
+    private BigDecimal priceMultiplier;
+    // HH:MM[:SS] for time-window
+    private String after;
+    private String before;
+    // YYYY-MM-DD for date-range
+    private String from;
+    private String to;
+    private String retailer;
+    private Integer factor;
+
+    /**
+     * The seven rules of the receipt processor challenge, which {@link RuleEngine} implements by hand.
+     */
+    public static List<RuleDefinition> defaults() {
+        List<RuleDefinition> rules = new ArrayList<>();
+        rules.add(rule("retailer-alphanumeric", 1));
+        rules.add(rule("round-total", 50));
+        RuleDefinition quarter = rule("total-multiple", 25);
+        quarter.setMultiple(new BigDecimal("0.25"));
+        rules.add(quarter);
+        rules.add(rule("item-pairs", 5));
+        RuleDefinition description = rule("item-description-length", null);
+        description.setMultiple(BigDecimal.valueOf(3));
+        description.setPriceMultiplier(new BigDecimal("0.2"));
+        rules.add(description);
+        rules.add(rule("odd-day", 6));
+        RuleDefinition afternoon = rule("time-window", 10);
+        afternoon.setAfter("14:00");
+        afternoon.setBefore("16:00");
+        rules.add(afternoon);
+        return rules;
+    }
+
+    private static RuleDefinition rule(String type, Integer points) {
+        RuleDefinition rule = new RuleDefinition();
+        rule.setType(type);
+        rule.setPoints(points);
+        return rule;
+    }
+}
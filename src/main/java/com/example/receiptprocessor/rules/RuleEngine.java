@@ -14,10 +14,17 @@ import com.example.receiptprocessor.model.Item;
 public class RuleEngine {
     private static final Logger logger = LoggerFactory.getLogger(RuleEngine.class);
 
+    // Per-rule detail is only logged for traced requests, see RuleTrace
+    private static boolean tracing() {
+        return RuleTrace.isActive() && logger.isDebugEnabled();
+    }
+
     // Rule 1: One point for every alphanumeric character in the retailer name
     public int calculateRetailerNamePoints(String retailerName) {
         int points = retailerName.replaceAll("[^A-Za-z0-9]", "").length();
-        logger.debug("Retailer name '{}' earned {} points for alphanumeric characters", retailerName, points);
+        if (tracing()) {
+            logger.debug("Retailer name '{}' earned {} points for alphanumeric characters", retailerName, points);
+        }
         return points;
     }
 
@@ -25,10 +32,14 @@ public class RuleEngine {
     public int calculateRoundDollarPoints(Double total) {
         // No points awarded if total is 0
         if (total == Math.floor(total) && total > 0) {
-            logger.debug("Receipt total ${} is a round dollar amount, earned 50 points", total);
+            if (tracing()) {
+                logger.debug("Receipt total ${} is a round dollar amount, earned 50 points", total);
+            }
             return 50;
         }
-        logger.debug("Receipt total ${} is not a round dollar amount, earned 0 points", total);
+        if (tracing()) {
+            logger.debug("Receipt total ${} is not a round dollar amount, earned 0 points", total);
+        }
         return 0;
     }
 
@@ -36,10 +47,14 @@ public class RuleEngine {
     public int calculateQuarterMultiplePoints(Double total) {
         // No points awarded if total is 0
         if (total % 0.25 == 0 && total > 0) {
-            logger.debug("Receipt total ${} is a multiple of 0.25, earned 25 points", total);
+            if (tracing()) {
+                logger.debug("Receipt total ${} is a multiple of 0.25, earned 25 points", total);
+            }
             return 25;
         }
-        logger.debug("Receipt total ${} is not a multiple of 0.25, earned 0 points", total);
+        if (tracing()) {
+            logger.debug("Receipt total ${} is not a multiple of 0.25, earned 0 points", total);
+        }
         return 0;
     }
 
@@ -47,7 +62,9 @@ public class RuleEngine {
     public int calculateItemPairPoints(List<Item> items) {
         int pairs = items.size() / 2;
         int points = pairs * 5;
-        logger.debug("Receipt has {} items ({} pairs), earned {} points", items.size(), pairs, points);
+        if (tracing()) {
+            logger.debug("Receipt has {} items ({} pairs), earned {} points", items.size(), pairs, points);
+        }
         return points;
     }
 
@@ -58,12 +75,16 @@ public class RuleEngine {
         if (trimmedDesc.length() % 3 == 0) {
             double price = Double.parseDouble(item.getPrice());
             int points = (int) Math.ceil(price * 0.2);
-            logger.debug("Item '{}' description length ({}) is a multiple of 3, price ${}, earned {} points", 
-                trimmedDesc, trimmedDesc.length(), price, points);
+            if (tracing()) {
+                logger.debug("Item '{}' description length ({}) is a multiple of 3, price ${}, earned {} points", 
+                    trimmedDesc, trimmedDesc.length(), price, points);
+            }
             return points;
         }
-        logger.debug("Item '{}' description length ({}) is not a multiple of 3, earned 0 points", 
-            trimmedDesc, trimmedDesc.length());
+        if (tracing()) {
+            logger.debug("Item '{}' description length ({}) is not a multiple of 3, earned 0 points", 
+                trimmedDesc, trimmedDesc.length());
+        }
         return 0;
     }
 
@@ -71,10 +92,14 @@ public class RuleEngine {
     public int calculatePurchaseDatePoints(String purchaseDate) {
         LocalDate date = LocalDate.parse(purchaseDate);
         if (date.getDayOfMonth() % 2 != 0) {
-            logger.debug("Purchase date {} has odd day, earned 6 points", purchaseDate);
+            if (tracing()) {
+                logger.debug("Purchase date {} has odd day, earned 6 points", purchaseDate);
+            }
             return 6;
         }
-        logger.debug("Purchase date {} has even day, earned 0 points", purchaseDate);
+        if (tracing()) {
+            logger.debug("Purchase date {} has even day, earned 0 points", purchaseDate);
+        }
         return 0;
     }
 
@@ -85,10 +110,14 @@ public class RuleEngine {
         LocalTime end = LocalTime.of(16, 0);
         
         if (time.isAfter(start) && time.isBefore(end)) {
-            logger.debug("Purchase time {} is between 2:00 PM and 4:00 PM, earned 10 points", purchaseTime);
+            if (tracing()) {
+                logger.debug("Purchase time {} is between 2:00 PM and 4:00 PM, earned 10 points", purchaseTime);
+            }
             return 10;
         }
-        logger.debug("Purchase time {} is not between 2:00 PM and 4:00 PM, earned 0 points", purchaseTime);
+        if (tracing()) {
+            logger.debug("Purchase time {} is not between 2:00 PM and 4:00 PM, earned 0 points", purchaseTime);
+        }
         return 0;
     }
 }
@@ -0,0 +1,87 @@
+package com.example.receiptprocessor.rules;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.Yaml;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+
+/**
+ * Loads rule definitions from a YAML ({@code .yaml}/{@code .yml}) or JSON file holding a list of rules,
+ * with the same kebab-case properties as {@code receipt.rules.definitions}, and recompiles them when the
+ * file changes. A file that fails to load or compile is logged and the previous pipeline stays in use.
+ */
+public final class RuleFileWatcher implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(RuleFileWatcher.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+        .setPropertyNamingStrategy(PropertyNamingStrategies.KEBAB_CASE);
+
+    private final Path file;
+    private final Consumer<RulePipeline> onReload;
+    private final ScheduledExecutorService scheduler;
+    private FileTime lastModified;
+
+    public RuleFileWatcher(Path file, Duration interval, Consumer<RulePipeline> onReload) throws IOException {
+        this.file = file;
+        this.onReload = onReload;
+        this.lastModified = Files.getLastModifiedTime(file);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rule-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkForChanges, interval.toMillis(), interval.toMillis(),
+            TimeUnit.MILLISECONDS);
+    }
+
+    public static RulePipeline load(Path file) throws IOException {
+        return RuleCompiler.compile(readDefinitions(file));
+    }
+
+    static List<RuleDefinition> readDefinitions(Path file) throws IOException {
+        TypeReference<List<RuleDefinition>> type = new TypeReference<>() {
+        };
+        String name = file.getFileName().toString();
+        if (name.endsWith(".yaml") || name.endsWith(".yml")) {
+            try (InputStream in = Files.newInputStream(file)) {
+                return objectMapper.convertValue(new Yaml().load(in), type);
+            }
+        }
+        return objectMapper.readValue(file.toFile(), type);
+    }
+
+    // Runs on the scheduler; package-private for tests
+    void checkForChanges() {
+        try {
+            FileTime modified = Files.getLastModifiedTime(file);
+            if (modified.equals(lastModified)) {
+                return;
+            }
+            lastModified = modified;
+            onReload.accept(load(file));
+            logger.info("Reloaded rules from {}", file);
+        } catch (IOException | RuntimeException ex) {
+            logger.warn("Could not reload rules from {}, keeping the current rules: {}", file, ex.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
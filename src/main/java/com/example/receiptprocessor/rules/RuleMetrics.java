@@ -0,0 +1,15 @@
+package com.example.receiptprocessor.rules;
+
+/**
+ * Receives the time and points of each rule for the evaluations {@link FastRuleEvaluator} samples.
+ * Rules are numbered 1 to 7 as in {@link RuleEngine}.
+ */
+public interface RuleMetrics {
+
+    /**
+     * Called once per evaluation; returns whether this one should be measured rule by rule.
+     */
+    boolean sample();
+
+    void record(int rule, int points, long nanos);
+}
@@ -0,0 +1,78 @@
+package com.example.receiptprocessor.rules;
+
+import com.example.receiptprocessor.model.Receipt;
+
+/**
+ * Rules compiled by {@link RuleCompiler} into a flat array. Evaluating a receipt decodes the fields the
+ * rules need once and adds up the rules in order; there is no lookup or reflection per receipt.
+ */
+public final class RulePipeline {
+    private final PointsRule[] rules;
+    private final String[] names;
+    private final int fields;
+    private final ItemSplitter itemSplitter;
+
+    RulePipeline(PointsRule[] rules, String[] names, int fields) {
+        this(rules, names, fields, ItemSplitter.DEFAULT);
+    }
+
+    private RulePipeline(PointsRule[] rules, String[] names, int fields, ItemSplitter itemSplitter) {
+        this.rules = rules;
+        this.names = names;
+        this.fields = fields;
+        this.itemSplitter = itemSplitter;
+    }
+
+    /**
+     * Returns the same rules, splitting the items of very large receipts with the given splitter.
+     */
+    public RulePipeline withItemSplitter(ItemSplitter itemSplitter) {
+        return new RulePipeline(rules, names, fields, itemSplitter);
+    }
+
+    public int evaluate(Receipt receipt) {
+        return evaluate(receipt, (DecodedFields) null);
+    }
+
+    /**
+     * Evaluates the receipt like {@link #evaluate(Receipt)}, taking the amounts, date and time from
+     * {@code decodedFields} (null to decode them here).
+     */
+    public int evaluate(Receipt receipt, DecodedFields decodedFields) {
+        DecodedReceipt decoded = DecodedReceipt.decode(receipt, fields, decodedFields, itemSplitter);
+        int points = 0;
+        for (PointsRule rule : rules) {
+            points += rule.points(decoded, points);
+        }
+        return points;
+    }
+
+    /**
+     * Evaluates the receipt like {@link #evaluate}, reporting each rule's time and points; rules are
+     * numbered from 1 in configuration order. Decoding is counted in the first rule's time.
+     */
+    public int evaluate(Receipt receipt, RuleMetrics metrics) {
+        return evaluate(receipt, null, metrics);
+    }
+
+    public int evaluate(Receipt receipt, DecodedFields decodedFields, RuleMetrics metrics) {
+        long start = System.nanoTime();
+        DecodedReceipt decoded = DecodedReceipt.decode(receipt, fields, decodedFields, itemSplitter);
+        int points = 0;
+        for (int i = 0; i < rules.length; i++) {
+            int rulePoints = rules[i].points(decoded, points);
+            metrics.record(i + 1, rulePoints, System.nanoTime() - start);
+            points += rulePoints;
+            start = System.nanoTime();
+        }
+        return points;
+    }
+
+    public int size() {
+        return rules.length;
+    }
+
+    public String name(int index) {
+        return names[index];
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.receiptprocessor.rules;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.receiptprocessor.model.Receipt;
+
+/**
+ * Scores receipts with the configured {@link RulePipeline}. The pipeline can be swapped while requests
+ * are being served; each evaluation uses the pipeline current when it started. Sampling by
+ * {@link RuleMetrics} and per-rule detail for traced requests work as in {@link FastRuleEvaluator}.
+ */
+public class RulePipelineEvaluator implements PointsEvaluator {
+    private static final Logger logger = LoggerFactory.getLogger(RulePipelineEvaluator.class);
+
+    private final RuleMetrics ruleMetrics;
+    private final ItemSplitter itemSplitter;
+    private volatile RulePipeline pipeline;
+
+    public RulePipelineEvaluator(RulePipeline pipeline, RuleMetrics ruleMetrics, ItemSplitter itemSplitter) {
+        this.itemSplitter = itemSplitter;
+        this.pipeline = pipeline.withItemSplitter(itemSplitter);
+        this.ruleMetrics = ruleMetrics;
+    }
+
+    @Override
+    public int evaluate(Receipt receipt) {
+        return evaluate(receipt, null);
+    }
+
+    @Override
+    public int evaluate(Receipt receipt, DecodedFields fields) {
+        RulePipeline current = pipeline;
+        if (RuleTrace.isActive() && logger.isDebugEnabled()) {
+            return current.evaluate(receipt, fields, new TraceMetrics(current));
+        }
+        if (ruleMetrics != null && ruleMetrics.sample()) {
+            return current.evaluate(receipt, fields, ruleMetrics);
+        }
+        return current.evaluate(receipt, fields);
+    }
+
+    public RulePipeline getPipeline() {
+        return pipeline;
+    }
+
+    public void setPipeline(RulePipeline pipeline) {
+        this.pipeline = pipeline.withItemSplitter(itemSplitter);
+        logger.info("Using a rule pipeline of {} rules", pipeline.size());
+    }
+
+    // Logs each rule's points for a traced request
+    private static final class TraceMetrics implements RuleMetrics {
+        private final RulePipeline pipeline;
+
+        private TraceMetrics(RulePipeline pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        @Override
+        public boolean sample() {
+            return true;
+        }
+
+        @Override
+        public void record(int rule, int points, long nanos) {
+            logger.debug("Rule {} ({}) earned {} points in {} ns", rule, pipeline.name(rule - 1), points, nanos);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.receiptprocessor.rules;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Marks the current thread as tracing rule evaluation. Per-rule debug detail is only logged while a trace
+ * is active, so the common path does not pay for building log arguments.
+ */
+public final class RuleTrace {
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+    // Traces active on any thread; while zero the thread-local is not touched, which would otherwise
+    // create a thread-local map on every (virtual) request thread
+    private static final AtomicInteger activeCount = new AtomicInteger();
+
+    private RuleTrace() {
+    }
+
+    public static boolean isActive() {
+        return activeCount.get() > 0 && ACTIVE.get() == Boolean.TRUE;
+    }
+
+    public static void start() {
+        if (ACTIVE.get() != Boolean.TRUE) {
+            ACTIVE.set(Boolean.TRUE);
+            activeCount.incrementAndGet();
+        }
+    }
+
+    public static void stop() {
+        if (ACTIVE.get() == Boolean.TRUE) {
+            ACTIVE.remove();
+            activeCount.decrementAndGet();
+        }
+    }
+}
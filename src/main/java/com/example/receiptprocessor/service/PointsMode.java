@@ -0,0 +1,13 @@
+package com.example.receiptprocessor.service;
+
+/**
+ * Controls when the points for a stored receipt are calculated.
+ */
+public enum PointsMode {
+    // Points are calculated once when the receipt is processed and served from the stored result
+    EAGER,
+    // Points are calculated on the first read and memoized next to the stored receipt
+    LAZY,
+    // Points are re-calculated by the rule engine on every read
+    RECOMPUTE
+}
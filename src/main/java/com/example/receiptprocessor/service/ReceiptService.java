@@ -1,16 +1,24 @@
 package com.example.receiptprocessor.service;
 
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.config.ReceiptProperties;
+import com.example.receiptprocessor.model.BatchResult;
+import com.example.receiptprocessor.model.PointsResult;
 import com.example.receiptprocessor.model.Receipt;
-import com.example.receiptprocessor.rules.RuleEngine;
+import com.example.receiptprocessor.rules.DecodedFields;
+import com.example.receiptprocessor.rules.PointsEvaluator;
+import com.example.receiptprocessor.store.IdGenerator;
+import com.example.receiptprocessor.store.IdempotencyIndex;
+import com.example.receiptprocessor.store.ReceiptStore;
 
 import lombok.RequiredArgsConstructor;
 
@@ -18,54 +26,311 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class ReceiptService {
     private static final Logger logger = LoggerFactory.getLogger(ReceiptService.class);
-    private final RuleEngine ruleEngine;
-
-    private final Map<String, Receipt> receipts = new ConcurrentHashMap<>();
+    private final PointsEvaluator ruleEvaluator;
+    private final ReceiptStore receiptStore;
+    private final ReceiptProperties properties;
+    private final IdempotencyIndex idempotencyIndex;
+    private final IdGenerator idGenerator;
     
     public String processReceipt(Receipt receipt) {
-        String id;
-        do {
-            id = UUID.randomUUID().toString();
-        } while (receipts.containsKey(id));
+        return processReceipt(receipt, null);
+    }
 
-        receipts.put(id, receipt);
+    public String processReceipt(Receipt receipt, String idempotencyKey) {
+        return processReceipt(receipt, null, idempotencyKey);
+    }
+
+    /**
+     * Processes a receipt unless it was processed already: under the same idempotency key from the same
+     * client, or, with content hashing on, as an identical receipt. A repeated receipt gets the ID it was
+     * first stored under; a key used again with a different receipt is rejected with an
+     * {@link IllegalArgumentException}. A receipt that fails {@link ReceiptValidator} is not stored; its
+     * field errors are thrown as a {@link ReceiptValidationException}.
+     *
+     * @param client what tells the sender apart from other clients, such as its address; the same
+     *               idempotency key from two clients is two keys
+     */
+    public String processReceipt(Receipt receipt, String client, String idempotencyKey) {
+        String id = ingest(receipt, client, idempotencyKey);
         // Using in memory storage for now. This can be migrated to DB whenever required.
-        logger.info("Processed receipt with ID: {}", id);
+        logger.debug("Processed receipt with ID: {}", id);
         return id;
     }
+
+    /**
+     * Stores a receipt (and in eager mode its points) without per-receipt logging, for the streaming path.
+     */
+    public String ingest(Receipt receipt) {
+        return ingest(receipt, null, null);
+    }
+
+    private String ingest(Receipt receipt, String client, String idempotencyKey) {
+        ReceiptValidator.Result validation = validate(receipt);
+        if (!validation.isValid()) {
+            throw validation.toException();
+        }
+        // The amounts, date and time as validation decoded them, for every layer below to reuse
+        DecodedFields fields = validation.getFields();
+        IdempotencyIndex.Key requestKey = idempotencyIndex.requestKey(client, idempotencyKey);
+        String id = liveId(requestKey);
+        if (id != null) {
+            requireSameReceipt(id, receipt);
+            idempotencyIndex.recordDuplicate();
+            return id;
+        }
+        IdempotencyIndex.Key contentKey = idempotencyIndex.contentKey(receipt, fields);
+        id = liveId(contentKey);
+        boolean created = false;
+        if (id == null) {
+            String newId = store(receipt, fields);
+            id = claim(contentKey, newId);
+            created = id.equals(newId);
+            if (!created) {
+                // An identical receipt was stored concurrently and claimed the key first
+                receiptStore.remove(newId);
+            }
+        }
+        String winner = claim(requestKey, id);
+        if (!winner.equals(id)) {
+            // A retry with the same key got there first; answer with its receipt
+            if (created) {
+                receiptStore.remove(id);
+            }
+            requireSameReceipt(winner, receipt);
+            id = winner;
+            created = false;
+        }
+        if (!created) {
+            idempotencyIndex.recordDuplicate();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Receipt already processed with ID: {}", id);
+            }
+            return id;
+        }
+        if (properties.getPoints().getMode() == PointsMode.EAGER) {
+            String storedId = id;
+            if (properties.getPoints().isAsync()) {
+                CompletableFuture.runAsync(() -> computeEagerly(storedId, receipt, fields));
+            } else {
+                computeEagerly(storedId, receipt, fields);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Stores a batch of receipts in one pass. When {@code computePoints} is set the points are calculated in
+     * the same pass, and a receipt whose points cannot be calculated is rejected instead of stored.
+     */
+    public BatchResult processReceipts(List<Receipt> receipts, boolean computePoints) {
+        BatchResult result = new BatchResult();
+        for (int i = 0; i < receipts.size(); i++) {
+            Receipt receipt = receipts.get(i);
+            if (receipt == null) {
+                result.getIds().add(null);
+                result.getErrors().add(new BatchResult.EntryError(i, "Receipt is missing or unreadable"));
+                continue;
+            }
+            ReceiptValidator.Result validation = validate(receipt);
+            if (!validation.isValid()) {
+                result.getIds().add(null);
+                result.getErrors().add(new BatchResult.EntryError(i, validation.toException().getMessage()));
+                continue;
+            }
+            DecodedFields fields = validation.getFields();
+            IdempotencyIndex.Key contentKey = idempotencyIndex.contentKey(receipt, fields);
+            String id = liveId(contentKey);
+            boolean created = false;
+            if (id == null) {
+                String newId = store(receipt, fields);
+                id = claim(contentKey, newId);
+                created = id.equals(newId);
+                if (!created) {
+                    receiptStore.remove(newId);
+                }
+            }
+            if (!created) {
+                // Already stored, and its points calculated the way they were then
+                idempotencyIndex.recordDuplicate();
+                result.getIds().add(id);
+                continue;
+            }
+            if (computePoints || properties.getPoints().getMode() == PointsMode.EAGER) {
+                try {
+                    receiptStore.setPoints(id, computePoints(id, receipt, fields));
+                } catch (RuntimeException ex) {
+                    if (computePoints) {
+                        receiptStore.remove(id);
+                        result.getIds().add(null);
+                        result.getErrors().add(new BatchResult.EntryError(i, "Invalid receipt: " + ex.getMessage()));
+                        continue;
+                    }
+                    logger.warn("Could not calculate points at ingest for receipt {}: {}", id, ex.getMessage());
+                }
+            }
+            result.getIds().add(id);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Processed batch of {} receipts with {} errors", receipts.size(), result.getErrors().size());
+        }
+        return result;
+    }
+    
+    public void forEachReceiptId(Consumer<String> action) {
+        receiptStore.forEachId(action);
+    }
     
     public int calculatePoints(String id) {
-        Receipt receipt = receipts.get(id);
+        if (properties.getPoints().getMode() != PointsMode.RECOMPUTE) {
+            int points = receiptStore.getPoints(id);
+            if (points != ReceiptStore.NO_POINTS) {
+                return points;
+            }
+        }
+
+        return computeStoredReceipt(id);
+    }
+
+    /**
+     * Looks up the points of many receipts, in the order of the IDs. Points already stored are read in one
+     * pass; the rest are calculated in parallel. An unknown ID, or a receipt that cannot be scored, gets an
+     * error in its result instead of failing the others.
+     */
+    public List<PointsResult> calculatePoints(List<String> ids) {
+        PointsResult[] results = new PointsResult[ids.size()];
+        int[] missing = new int[ids.size()];
+        int missingCount = 0;
+        boolean stored = properties.getPoints().getMode() != PointsMode.RECOMPUTE;
+        for (int i = 0; i < results.length; i++) {
+            String id = ids.get(i);
+            if (id == null) {
+                results[i] = new PointsResult(null, null, "Receipt ID is missing");
+                continue;
+            }
+            if (stored) {
+                try {
+                    int points = receiptStore.getPoints(id);
+                    if (points != ReceiptStore.NO_POINTS) {
+                        results[i] = new PointsResult(id, points, null);
+                        continue;
+                    }
+                } catch (RuntimeException ex) {
+                    // An ID the store cannot hold, such as one that is not a UUID
+                    results[i] = new PointsResult(id, null, ex.getMessage());
+                    continue;
+                }
+            }
+            missing[missingCount++] = i;
+        }
+        IntStream computations = IntStream.range(0, missingCount);
+        if (missingCount > 1) {
+            computations = computations.parallel();
+        }
+        computations.forEach(j -> results[missing[j]] = computeResult(ids.get(missing[j])));
+        if (logger.isDebugEnabled()) {
+            logger.debug("Looked up points of {} receipts, {} calculated", results.length, missingCount);
+        }
+        return Arrays.asList(results);
+    }
+
+    private PointsResult computeResult(String id) {
+        try {
+            return new PointsResult(id, computeStoredReceipt(id), null);
+        } catch (RuntimeException ex) {
+            return new PointsResult(id, null, ex.getMessage());
+        }
+    }
+
+    // Points of a stored receipt whose points are not stored yet (or never are, in recompute mode)
+    private int computeStoredReceipt(String id) {
+        Receipt receipt = receiptStore.get(id);
         if (receipt == null) {
-            logger.error("Receipt not found for ID: {}", id);
+            // Reported to the client as a 400; not an error of the service
+            logger.debug("Receipt not found for ID: {}", id);
             throw new IllegalArgumentException("Receipt not found");
         }
-        
-        logger.info("Calculating points for receipt ID: {}", id);
-        int totalPoints = 0;
-        Double total = Double.valueOf(receipt.getTotal());
-
-        // Apply each rule and sum up points
-        // Rule 1
-        totalPoints += ruleEngine.calculateRetailerNamePoints(receipt.getRetailer());
-        // Rule 2
-        totalPoints += ruleEngine.calculateRoundDollarPoints(total);
-        // Rule 3
-        totalPoints += ruleEngine.calculateQuarterMultiplePoints(total);
-        // Rule 4
-        totalPoints += ruleEngine.calculateItemPairPoints(receipt.getItems());
-        // Rule 5
-        // We can use an AtomicInteger here to make it thread safe while scaling the app
-        for (Item item : receipt.getItems()) {
-            totalPoints += ruleEngine.calculateItemDescriptionPoints(item);
-        }
-
-        // Rule 6
-        totalPoints += ruleEngine.calculatePurchaseDatePoints(receipt.getPurchaseDate());
-        // Rule 7
-        totalPoints += ruleEngine.calculatePurchaseTimePoints(receipt.getPurchaseTime());
-        
-        logger.info("Total points calculated for receipt {}: {}", id, totalPoints);
+
+        int points = computePoints(id, receipt, null);
+        if (properties.getPoints().getMode() != PointsMode.RECOMPUTE) {
+            // Not computed yet (lazy mode, or an eager computation still in flight); racing callers compute the same value
+            receiptStore.setPoints(id, points);
+        }
+        return points;
+    }
+
+    // Shared insert path of the single and batch ingest. One atomic putIfAbsent per receipt; the loop only
+    // guards against a generator that repeats an ID
+    private String store(Receipt receipt, DecodedFields fields) {
+        String id;
+        do {
+            id = idGenerator.nextId();
+        } while (!receiptStore.putIfAbsent(id, receipt, fields));
+        return id;
+    }
+
+    // Every field checked in one pass; with validation off every receipt passes, as it did before
+    private ReceiptValidator.Result validate(Receipt receipt) {
+        ReceiptProperties.Validation validation = properties.getValidation();
+        return validation.isEnabled() ? ReceiptValidator.validate(receipt, validation.getMaxErrors())
+            : ReceiptValidator.Result.VALID;
+    }
+
+    // A retry must resend the receipt its idempotency key was first used with; only read on the retry path
+    private void requireSameReceipt(String id, Receipt receipt) {
+        Receipt stored = receiptStore.get(id);
+        if (stored != null && !idempotencyIndex.isSameContent(stored, receipt)) {
+            throw new IllegalArgumentException("Idempotency-Key was already used with a different receipt");
+        }
+    }
+
+    // The ID the key maps to if that receipt is still stored; stale entries are dropped on the way
+    private String liveId(IdempotencyIndex.Key key) {
+        if (key == null) {
+            return null;
+        }
+        String id = idempotencyIndex.get(key);
+        if (id != null && !receiptStore.contains(id)) {
+            idempotencyIndex.remove(key, id);
+            return null;
+        }
+        return id;
+    }
+
+    // Maps the key to the ID unless a stored receipt holds it already; returns the ID that holds it
+    private String claim(IdempotencyIndex.Key key, String id) {
+        if (key == null) {
+            return id;
+        }
+        while (true) {
+            String existing = idempotencyIndex.putIfAbsent(key, id);
+            if (existing == null || existing.equals(id)) {
+                return id;
+            }
+            if (receiptStore.contains(existing)) {
+                return existing;
+            }
+            if (idempotencyIndex.replace(key, existing, id)) {
+                return id;
+            }
+            // Another caller replaced the stale entry first; look again
+        }
+    }
+
+    private void computeEagerly(String id, Receipt receipt, DecodedFields fields) {
+        try {
+            receiptStore.setPoints(id, computePoints(id, receipt, fields));
+        } catch (RuntimeException ex) {
+            // Leave the points uncomputed so the failure surfaces on read, as it does in the other modes
+            logger.warn("Could not calculate points at ingest for receipt {}: {}", id, ex.getMessage());
+        }
+    }
+
+    // Fields are null for a stored receipt, which is decoded again
+    private int computePoints(String id, Receipt receipt, DecodedFields fields) {
+        int totalPoints = ruleEvaluator.evaluate(receipt, fields);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Total points calculated for receipt {}: {}", id, totalPoints);
+        }
         return totalPoints;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package com.example.receiptprocessor.service;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A receipt rejected by {@link ReceiptValidator}, with the errors of each field. It is an
+ * {@link IllegalArgumentException} so callers that only know that type still answer 400. The stack trace
+ * is not filled in: the exception reports bad input, and a flood of it should cost no more than rejecting it.
+ */
+public class ReceiptValidationException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<FieldError> fieldErrors;
+
+    public ReceiptValidationException(List<FieldError> fieldErrors) {
+        super(message(fieldErrors));
+        this.fieldErrors = List.copyOf(fieldErrors);
+    }
+
+    public List<FieldError> getFieldErrors() {
+        return fieldErrors;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+    private static String message(List<FieldError> fieldErrors) {
+        StringBuilder message = new StringBuilder("Invalid receipt: ");
+        for (int i = 0; i < fieldErrors.size(); i++) {
+            if (i > 0) {
+                message.append("; ");
+            }
+            FieldError error = fieldErrors.get(i);
+            message.append(error.getField()).append(' ').append(error.getError());
+        }
+        return message.toString();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FieldError {
+        // Path of the field, e.g. total or items[2].price
+        private String field;
+        private String error;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.receiptprocessor.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.DecodedFields;
+import com.example.receiptprocessor.rules.ReceiptFields;
+
+/**
+ * Checks a receipt in one pass over its fields, decoding each into its typed form on the way: amounts into
+ * cents, the date into YYYYMMDD and the time into minute of day. Only the plain forms are accepted (amounts
+ * {@code digits[.d[d]]}, {@code YYYY-MM-DD} dates, {@code HH:MM} times), which are the forms every rule can
+ * score, so a receipt that passes cannot fail scoring later. The decoded values of a valid receipt are handed
+ * on as {@link DecodedFields} to the store and the evaluator. No regexes are used and no exceptions are
+ * thrown or caught; the errors are returned, and collection stops after {@code maxErrors} of them so a
+ * flood of malformed items costs no more than that.
+ */
+public final class ReceiptValidator {
+    public static final int DEFAULT_MAX_ERRORS = 20;
+
+    private static final String REQUIRED = "is required";
+    private static final String AMOUNT = "must be an amount like 6.49";
+
+    private ReceiptValidator() {
+    }
+
+    public static Result validate(Receipt receipt, int maxErrors) {
+        Result result = new Result(maxErrors);
+        if (receipt == null) {
+            result.reject("receipt", REQUIRED);
+            return result;
+        }
+        if (receipt.getRetailer() == null) {
+            result.reject("retailer", REQUIRED);
+        }
+        String date = receipt.getPurchaseDate();
+        int purchaseDate = -1;
+        if (date == null) {
+            result.reject("purchaseDate", REQUIRED);
+        } else if ((purchaseDate = ReceiptFields.packedDate(date)) < 0) {
+            result.reject("purchaseDate", "must be a valid date like 2022-01-31");
+        }
+        String time = receipt.getPurchaseTime();
+        int minuteOfDay = -1;
+        if (time == null) {
+            result.reject("purchaseTime", REQUIRED);
+        } else if ((minuteOfDay = ReceiptFields.minuteOfDay(time)) < 0) {
+            result.reject("purchaseTime", "must be a time like 13:01");
+        }
+        String total = receipt.getTotal();
+        long totalCents = -1;
+        if (total == null) {
+            result.reject("total", REQUIRED);
+        } else if ((totalCents = ReceiptFields.parseCents(total)) < 0) {
+            result.reject("total", AMOUNT);
+        }
+        List<Item> items = receipt.getItems();
+        if (items == null) {
+            result.reject("items", REQUIRED);
+            return result;
+        }
+        int count = items.size();
+        long[] priceCents = new long[count];
+        for (int i = 0; i < count && !result.isFull(); i++) {
+            Item item = items.get(i);
+            if (item == null) {
+                result.reject(itemField(i, null), REQUIRED);
+                continue;
+            }
+            if (item.getShortDescription() == null) {
+                result.reject(itemField(i, "shortDescription"), REQUIRED);
+            }
+            String price = item.getPrice();
+            if (price == null) {
+                result.reject(itemField(i, "price"), REQUIRED);
+            } else if ((priceCents[i] = ReceiptFields.parseCents(price)) < 0) {
+                result.reject(itemField(i, "price"), AMOUNT);
+            }
+        }
+        if (result.isValid()) {
+            result.fields = new DecodedFields(totalCents, purchaseDate, minuteOfDay, priceCents);
+        }
+        return result;
+    }
+
+    private static String itemField(int index, String field) {
+        String item = "items[" + index + "]";
+        return field == null ? item : item + "." + field;
+    }
+
+    /**
+     * The field errors of a receipt, and when there are none its fields in typed form.
+     */
+    public static final class Result {
+        // Passes without typed fields; used when validation is turned off
+        static final Result VALID = new Result(1);
+
+        private final int maxErrors;
+        private List<ReceiptValidationException.FieldError> errors = Collections.emptyList();
+        private DecodedFields fields;
+
+        private Result(int maxErrors) {
+            this.maxErrors = Math.max(1, maxErrors);
+        }
+
+        public boolean isValid() {
+            return errors.isEmpty();
+        }
+
+        public List<ReceiptValidationException.FieldError> getErrors() {
+            return errors;
+        }
+
+        /**
+         * The decoded fields of a valid receipt; null for an invalid one, or when validation is off.
+         */
+        public DecodedFields getFields() {
+            return fields;
+        }
+
+        /**
+         * The exception reporting these errors to the client; only meaningful when the receipt is invalid.
+         */
+        public ReceiptValidationException toException() {
+            return new ReceiptValidationException(errors);
+        }
+
+        private boolean isFull() {
+            return errors.size() >= maxErrors;
+        }
+
+        private void reject(String field, String error) {
+            if (errors.isEmpty()) {
+                errors = new ArrayList<>();
+            }
+            if (!isFull()) {
+                errors.add(new ReceiptValidationException.FieldError(field, error));
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.receiptprocessor.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.DecodedFields;
+
+/**
+ * A memory-lean {@link ReceiptStore}. IDs are kept as two longs, amounts as integer cents, the purchase
+ * date and time as packed primitives, and retailer names and item descriptions go through a shared
+ * interner. Receipts whose fields are not in the canonical form (e.g. "6.5" instead of "6.50") cannot be
+ * rebuilt exactly from primitives, so they are kept verbatim instead. A receipt stored with the fields
+ * validation decoded is packed from those, checking only that each amount is in the canonical form.
+ */
+public class CompactReceiptStore implements ReceiptStore {
+    private static final int INTERNER_CAPACITY = 1 << 16;
+
+    private final Map<UuidKey, Slot> receipts = new ConcurrentHashMap<>();
+    private final StringInterner interner = new StringInterner(INTERNER_CAPACITY);
+
+    @Override
+    public boolean putIfAbsent(String id, Receipt receipt) {
+        return putIfAbsent(id, receipt, (DecodedFields) null);
+    }
+
+    @Override
+    public boolean putIfAbsent(String id, Receipt receipt, DecodedFields fields) {
+        UuidKey key = UuidKey.parse(id);
+        if (key == null) {
+            throw new IllegalArgumentException("Receipt ID is not a UUID: " + id);
+        }
+        Slot slot = CompactReceipt.encode(receipt, fields, interner);
+        return receipts.putIfAbsent(key, slot != null ? slot : new VerbatimReceipt(receipt)) == null;
+    }
+
+    @Override
+    public Receipt get(String id) {
+        Slot slot = lookup(id);
+        return slot == null ? null : slot.toReceipt();
+    }
+
+    @Override
+    public boolean contains(String id) {
+        return lookup(id) != null;
+    }
+
+    @Override
+    public int getPoints(String id) {
+        Slot slot = lookup(id);
+        return slot == null ? NO_POINTS : slot.points;
+    }
+
+    @Override
+    public void setPoints(String id, int points) {
+        Slot slot = lookup(id);
+        if (slot != null) {
+            slot.points = points;
+        }
+    }
+
+    @Override
+    public boolean remove(String id) {
+        UuidKey key = UuidKey.parse(id);
+        return key != null && receipts.remove(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return receipts.size();
+    }
+
+    @Override
+    public void forEachId(Consumer<String> action) {
+        receipts.keySet().forEach(key -> action.accept(key.toString()));
+    }
+
+    private Slot lookup(String id) {
+        UuidKey key = UuidKey.parse(id);
+        return key == null ? null : receipts.get(key);
+    }
+
+    private abstract static class Slot {
+        volatile int points = NO_POINTS;
+
+        abstract Receipt toReceipt();
+    }
+
+    private static final class VerbatimReceipt extends Slot {
+        private final Receipt receipt;
+
+        private VerbatimReceipt(Receipt receipt) {
+            this.receipt = receipt;
+        }
+
+        @Override
+        Receipt toReceipt() {
+            return receipt;
+        }
+    }
+
+    private static final class CompactReceipt extends Slot {
+        private final String retailer;
+        // year * 10000 + month * 100 + day
+        private final int purchaseDate;
+        // hour * 60 + minute
+        private final short purchaseTime;
+        private final long totalCents;
+        private final String[] descriptions;
+        private final int[] priceCents;
+
+        private CompactReceipt(String retailer, int purchaseDate, short purchaseTime, long totalCents,
+                String[] descriptions, int[] priceCents) {
+            this.retailer = retailer;
+            this.purchaseDate = purchaseDate;
+            this.purchaseTime = purchaseTime;
+            this.totalCents = totalCents;
+            this.descriptions = descriptions;
+            this.priceCents = priceCents;
+        }
+
+        // Returns null when the receipt cannot be rebuilt exactly from its packed form
+        static CompactReceipt encode(Receipt receipt, DecodedFields fields, StringInterner interner) {
+            List<Item> items = receipt.getItems();
+            if (receipt.getRetailer() == null || items == null) {
+                return null;
+            }
+            int date;
+            int time;
+            long total;
+            if (fields != null) {
+                // Validated dates and times are already in the packed shape
+                date = fields.getPurchaseDate();
+                time = fields.getMinuteOfDay();
+                total = isCanonical(receipt.getTotal()) ? fields.getTotalCents() : -1;
+            } else {
+                date = packDate(receipt.getPurchaseDate());
+                time = packTime(receipt.getPurchaseTime());
+                total = parseCents(receipt.getTotal());
+            }
+            if (date < 0 || time < 0 || total < 0) {
+                return null;
+            }
+            int count = items.size();
+            String[] descriptions = new String[count];
+            int[] prices = new int[count];
+            for (int i = 0; i < count; i++) {
+                Item item = items.get(i);
+                long price;
+                if (item == null) {
+                    price = -1;
+                } else if (fields != null) {
+                    price = isCanonical(item.getPrice()) ? fields.getPriceCents(i) : -1;
+                } else {
+                    price = parseCents(item.getPrice());
+                }
+                if (price < 0 || price > Integer.MAX_VALUE || item.getShortDescription() == null) {
+                    return null;
+                }
+                descriptions[i] = interner.intern(item.getShortDescription());
+                prices[i] = (int) price;
+            }
+            return new CompactReceipt(interner.intern(receipt.getRetailer()), date, (short) time, total,
+                descriptions, prices);
+        }
+
+        @Override
+        Receipt toReceipt() {
+            List<Item> items = new ArrayList<>(descriptions.length);
+            for (int i = 0; i < descriptions.length; i++) {
+                Item item = new Item();
+                item.setShortDescription(descriptions[i]);
+                item.setPrice(formatCents(priceCents[i]));
+                items.add(item);
+            }
+            Receipt receipt = new Receipt();
+            receipt.setRetailer(retailer);
+            receipt.setPurchaseDate(formatDate(purchaseDate));
+            receipt.setPurchaseTime(formatTime(purchaseTime));
+            receipt.setItems(items);
+            receipt.setTotal(formatCents(totalCents));
+            return receipt;
+        }
+    }
+
+    // "YYYY-MM-DD" -> YYYYMMDD, or -1 if not in that exact shape
+    static int packDate(String date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return -1;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return -1;
+        }
+        return year * 10000 + month * 100 + day;
+    }
+
+    // "HH:MM" -> minute of day, or -1 if not in that exact shape
+    static int packTime(String time) {
+        if (time == null || time.length() != 5 || time.charAt(2) != ':') {
+            return -1;
+        }
+        int hour = digits(time, 0, 2);
+        int minute = digits(time, 3, 5);
+        if (hour < 0 || minute < 0 || minute > 59) {
+            return -1;
+        }
+        return hour * 60 + minute;
+    }
+
+    // Canonical "D.DD" (no sign, no leading zeros) -> cents, or -1 if not in that exact shape
+    static long parseCents(String amount) {
+        if (amount == null) {
+            return -1;
+        }
+        int length = amount.length();
+        int dot = length - 3;
+        if (dot < 1 || dot > 15 || amount.charAt(dot) != '.' || (amount.charAt(0) == '0' && dot > 1)) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            if (i == dot) {
+                continue;
+            }
+            char c = amount.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // Whether an amount validation accepted (digits[.d[d]]) is in the canonical "D.DD" form
+    static boolean isCanonical(String amount) {
+        int dot = amount.length() - 3;
+        return dot >= 1 && amount.charAt(dot) == '.' && (amount.charAt(0) != '0' || dot == 1);
+    }
+
+    static String formatCents(long cents) {
+        long fraction = cents % 100;
+        return (cents / 100) + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    static String formatDate(int packed) {
+        int year = packed / 10000;
+        int month = packed / 100 % 100;
+        int day = packed % 100;
+        char[] out = new char[10];
+        out[0] = (char) ('0' + year / 1000);
+        out[1] = (char) ('0' + year / 100 % 10);
+        out[2] = (char) ('0' + year / 10 % 10);
+        out[3] = (char) ('0' + year % 10);
+        out[4] = '-';
+        out[5] = (char) ('0' + month / 10);
+        out[6] = (char) ('0' + month % 10);
+        out[7] = '-';
+        out[8] = (char) ('0' + day / 10);
+        out[9] = (char) ('0' + day % 10);
+        return new String(out);
+    }
+
+    static String formatTime(int minuteOfDay) {
+        int hour = minuteOfDay / 60;
+        int minute = minuteOfDay % 60;
+        return new String(new char[] {
+            (char) ('0' + hour / 10), (char) ('0' + hour % 10), ':', (char) ('0' + minute / 10), (char) ('0' + minute % 10)
+        });
+    }
+
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
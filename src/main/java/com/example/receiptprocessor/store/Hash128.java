@@ -0,0 +1,107 @@
+package com.example.receiptprocessor.store;
+
+/**
+ * Streaming 128-bit hash built from the MurmurHash3 x64 128-bit block and finalization functions, fed
+ * with 64-bit words instead of bytes. Fast and well mixed, but not cryptographic: it guards against
+ * accidental collisions only.
+ */
+final class Hash128 {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private long h1;
+    private long h2;
+    private long pending;
+    private boolean hasPending;
+    private long words;
+
+    Hash128(long seed) {
+        this.h1 = seed;
+        this.h2 = seed;
+    }
+
+    Hash128 putLong(long value) {
+        if (hasPending) {
+            mixBlock(pending, value);
+            hasPending = false;
+        } else {
+            pending = value;
+            hasPending = true;
+        }
+        words++;
+        return this;
+    }
+
+    // Length-prefixed, so adjacent strings cannot run into each other; null hashes differently from ""
+    Hash128 putString(String value) {
+        if (value == null) {
+            return putLong(-1L);
+        }
+        int length = value.length();
+        putLong(length);
+        long word = 0;
+        int chars = 0;
+        for (int i = 0; i < length; i++) {
+            word = (word << 16) | value.charAt(i);
+            if (++chars == 4) {
+                putLong(word);
+                word = 0;
+                chars = 0;
+            }
+        }
+        if (chars > 0) {
+            putLong(word);
+        }
+        return this;
+    }
+
+    /**
+     * Finishes the hash; the two halves are written to {@code out[0]} and {@code out[1]}.
+     */
+    void finish(long[] out) {
+        if (hasPending) {
+            long k1 = pending * C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+        }
+        long length = words * Long.BYTES;
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        out[0] = h1;
+        out[1] = h2;
+    }
+
+    private void mixBlock(long k1, long k2) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        h1 ^= k1;
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        h2 ^= k2;
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
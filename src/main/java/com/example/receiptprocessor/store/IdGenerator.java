@@ -0,0 +1,9 @@
+package com.example.receiptprocessor.store;
+
+/**
+ * Generates receipt IDs. IDs are rendered in the canonical lower-case UUID form, which clients see and
+ * {@link CompactReceiptStore} packs into two longs. Implementations must be safe for concurrent use.
+ */
+public interface IdGenerator {
+    String nextId();
+}
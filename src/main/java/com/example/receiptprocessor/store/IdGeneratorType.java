@@ -0,0 +1,8 @@
+package com.example.receiptprocessor.store;
+
+public enum IdGeneratorType {
+    // Version 7 style: millisecond timestamp, node, thread and per-thread sequence; no shared state
+    TIME_ORDERED,
+    // UUID.randomUUID(), drawn from the shared SecureRandom
+    RANDOM
+}
@@ -0,0 +1,263 @@
+package com.example.receiptprocessor.store;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.DecodedFields;
+import com.example.receiptprocessor.rules.ReceiptFields;
+
+/**
+ * Maps 128-bit keys to the ID of the receipt they were first stored under: content keys hash the
+ * canonicalized receipt, request keys hash a client's {@code Idempotency-Key} header together with the
+ * client, so two clients that pick the same key do not share it. Entries are removed with their receipt by
+ * {@link IndexedReceiptStore}, every request key of a receipt included; one that is left pointing at a
+ * receipt that no longer exists is treated as absent by callers, who check the ID against the store.
+ */
+public class IdempotencyIndex {
+    private static final long CONTENT_SEED = 0x5265636569707431L;
+    private static final long REQUEST_SEED = 0x4964656d706f7431L;
+
+    private final boolean contentHash;
+    private final boolean requestKeys;
+    private final Map<Key, String> ids = new ConcurrentHashMap<>();
+    // The request keys of each receipt stored with one, so their entries can go when the receipt does
+    private final Map<String, Key[]> requestKeysById = new ConcurrentHashMap<>();
+    private final LongAdder duplicates = new LongAdder();
+
+    public IdempotencyIndex(boolean contentHash, boolean requestKeys) {
+        this.contentHash = contentHash;
+        this.requestKeys = requestKeys;
+    }
+
+    public boolean isEnabled() {
+        return contentHash || requestKeys;
+    }
+
+    /**
+     * Returns the content key of the receipt, or null when deduplication by content is off. Amounts are
+     * hashed as cents where they are plain, so "6.5" and "6.50" are the same receipt.
+     */
+    public Key contentKey(Receipt receipt) {
+        return contentKey(receipt, null);
+    }
+
+    /**
+     * Returns the content key like {@link #contentKey(Receipt)}, hashing the amounts validation decoded
+     * (null if it did not) instead of parsing them again.
+     */
+    public Key contentKey(Receipt receipt, DecodedFields fields) {
+        if (!contentHash || receipt == null) {
+            return null;
+        }
+        return new Key(hash(receipt, fields), false);
+    }
+
+    /**
+     * Whether two receipts have the same content, in the sense of {@link #contentKey}, whether or not
+     * deduplication by content is on.
+     */
+    public boolean isSameContent(Receipt receipt, Receipt other) {
+        return new Key(hash(receipt, null), false).equals(new Key(hash(other, null), false));
+    }
+
+    /**
+     * Returns the key for a client's idempotency key, or null when there is none or they are not honored.
+     * The client is whatever tells clients apart, such as their address; null for callers that are not told
+     * apart.
+     */
+    public Key requestKey(String client, String idempotencyKey) {
+        if (!requestKeys || idempotencyKey == null || idempotencyKey.isEmpty()) {
+            return null;
+        }
+        return new Key(new Hash128(REQUEST_SEED).putString(client).putString(idempotencyKey), true);
+    }
+
+    // Decoded amounts are plain, so they hash as the cents putAmount would have parsed
+    private static Hash128 hash(Receipt receipt, DecodedFields fields) {
+        Hash128 hash = new Hash128(CONTENT_SEED)
+            .putString(receipt.getRetailer())
+            .putString(receipt.getPurchaseDate())
+            .putString(receipt.getPurchaseTime());
+        if (fields != null) {
+            hash.putLong(fields.getTotalCents());
+        } else {
+            putAmount(hash, receipt.getTotal());
+        }
+        List<Item> items = receipt.getItems();
+        if (items == null) {
+            hash.putLong(-1L);
+        } else {
+            int count = items.size();
+            hash.putLong(count);
+            for (int i = 0; i < count; i++) {
+                Item item = items.get(i);
+                if (item == null) {
+                    hash.putLong(-1L);
+                    continue;
+                }
+                hash.putString(item.getShortDescription());
+                if (fields != null) {
+                    hash.putLong(fields.getPriceCents(i));
+                } else {
+                    putAmount(hash, item.getPrice());
+                }
+            }
+        }
+        return hash;
+    }
+
+    public String get(Key key) {
+        return ids.get(key);
+    }
+
+    /**
+     * Maps the key to the ID unless it is mapped already; returns the existing ID, or null.
+     */
+    public String putIfAbsent(Key key, String id) {
+        String existing = ids.putIfAbsent(key, id);
+        if (existing == null) {
+            trackRequestKey(key, id);
+        }
+        return existing;
+    }
+
+    /**
+     * Points the key from a receipt that no longer exists to a new ID.
+     */
+    public boolean replace(Key key, String staleId, String id) {
+        if (!ids.replace(key, staleId, id)) {
+            return false;
+        }
+        trackRequestKey(key, id);
+        return true;
+    }
+
+    /**
+     * Drops the entry of a key found pointing at a receipt that no longer exists, and the other request keys
+     * of that receipt with it.
+     */
+    public void remove(Key key, String id) {
+        ids.remove(key, id);
+        removeRequestKeys(id);
+    }
+
+    /**
+     * Drops the entries of a removed receipt. The receipt, as stored, is needed to find its content key.
+     */
+    public void removed(String id, Receipt receipt) {
+        Key contentKey = contentKey(receipt);
+        if (contentKey != null) {
+            ids.remove(contentKey, id);
+        }
+        removeRequestKeys(id);
+    }
+
+    /**
+     * Indexes the content of every receipt in the store, e.g. after it was recovered from disk. Request
+     * keys are not persisted, so they are not recovered.
+     */
+    public void rebuild(ReceiptStore store) {
+        if (!contentHash) {
+            return;
+        }
+        store.forEachId(id -> {
+            Receipt receipt = store.get(id);
+            if (receipt != null) {
+                ids.putIfAbsent(contentKey(receipt), id);
+            }
+        });
+    }
+
+    public boolean isContentHash() {
+        return contentHash;
+    }
+
+    public void recordDuplicate() {
+        duplicates.increment();
+    }
+
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    private void trackRequestKey(Key key, String id) {
+        if (key.request) {
+            // Usually one per receipt; more when retries with other keys, or by other clients, resolve to it
+            requestKeysById.merge(id, new Key[] { key }, IdempotencyIndex::union);
+        }
+    }
+
+    private void removeRequestKeys(String id) {
+        Key[] keys = requestKeysById.remove(id);
+        if (keys != null) {
+            for (Key key : keys) {
+                ids.remove(key, id);
+            }
+        }
+    }
+
+    private static Key[] union(Key[] keys, Key[] added) {
+        Key key = added[0];
+        for (Key existing : keys) {
+            if (existing.equals(key)) {
+                return keys;
+            }
+        }
+        Key[] union = Arrays.copyOf(keys, keys.length + 1);
+        union[keys.length] = key;
+        return union;
+    }
+
+    private static void putAmount(Hash128 hash, String amount) {
+        long cents = amount == null ? -1 : ReceiptFields.parseCents(amount);
+        if (cents >= 0) {
+            hash.putLong(cents);
+        } else {
+            // Negative markers cannot collide with cents
+            hash.putLong(-2L).putString(amount);
+        }
+    }
+
+    /**
+     * A 128-bit content or request key.
+     */
+    public static final class Key {
+        private final long high;
+        private final long low;
+        private final boolean request;
+
+        private Key(Hash128 hash, boolean request) {
+            long[] halves = new long[2];
+            hash.finish(halves);
+            this.high = halves[0];
+            this.low = halves[1];
+            this.request = request;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return high == key.high && low == key.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high ^ low);
+        }
+    }
+}
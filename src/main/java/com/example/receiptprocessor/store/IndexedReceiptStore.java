@@ -0,0 +1,72 @@
+package com.example.receiptprocessor.store;
+
+import java.util.function.Consumer;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.DecodedFields;
+
+/**
+ * Keeps an {@link IdempotencyIndex} in step with removals from another {@link ReceiptStore}, whether by
+ * retention, by recovery or by a caller, so a removed receipt's content or idempotency key can be used
+ * again. Entries are added by the service, which decides which receipt a key belongs to.
+ */
+public class IndexedReceiptStore implements ReceiptStore {
+    private final ReceiptStore delegate;
+    private final IdempotencyIndex index;
+
+    public IndexedReceiptStore(ReceiptStore delegate, IdempotencyIndex index) {
+        this.delegate = delegate;
+        this.index = index;
+    }
+
+    @Override
+    public boolean putIfAbsent(String id, Receipt receipt) {
+        return delegate.putIfAbsent(id, receipt);
+    }
+
+    @Override
+    public boolean putIfAbsent(String id, Receipt receipt, DecodedFields fields) {
+        return delegate.putIfAbsent(id, receipt, fields);
+    }
+
+    @Override
+    public Receipt get(String id) {
+        return delegate.get(id);
+    }
+
+    @Override
+    public boolean contains(String id) {
+        return delegate.contains(id);
+    }
+
+    @Override
+    public int getPoints(String id) {
+        return delegate.getPoints(id);
+    }
+
+    @Override
+    public void setPoints(String id, int points) {
+        delegate.setPoints(id, points);
+    }
+
+    @Override
+    public boolean remove(String id) {
+        // The content key is derived from the receipt, so it has to be read before it is gone
+        Receipt receipt = index.isContentHash() ? delegate.get(id) : null;
+        if (!delegate.remove(id)) {
+            return false;
+        }
+        index.removed(id, receipt);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void forEachId(Consumer<String> action) {
+        delegate.forEachId(action);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.receiptprocessor.store;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import com.example.receiptprocessor.model.Receipt;
+
+/**
+ * Keeps the received {@link Receipt} objects as-is in a {@link ConcurrentHashMap}.
+ */
+public class MapReceiptStore implements ReceiptStore {
+    private final Map<String, Entry> receipts = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean putIfAbsent(String id, Receipt receipt) {
+        return receipts.putIfAbsent(id, new Entry(receipt)) == null;
+    }
+
+    @Override
+    public Receipt get(String id) {
+        Entry entry = receipts.get(id);
+        return entry == null ? null : entry.receipt;
+    }
+
+    @Override
+    public boolean contains(String id) {
+        return receipts.containsKey(id);
+    }
+
+    @Override
+    public int getPoints(String id) {
+        Entry entry = receipts.get(id);
+        return entry == null ? NO_POINTS : entry.points;
+    }
+
+    @Override
+    public void setPoints(String id, int points) {
+        Entry entry = receipts.get(id);
+        if (entry != null) {
+            entry.points = points;
+        }
+    }
+
+    @Override
+    public boolean remove(String id) {
+        return receipts.remove(id) != null;
+    }
+
+    @Override
+    public int size() {
+        return receipts.size();
+    }
+
+    @Override
+    public void forEachId(Consumer<String> action) {
+        receipts.keySet().forEach(action);
+    }
+
+    private static final class Entry {
+        private final Receipt receipt;
+        private volatile int points = NO_POINTS;
+
+        private Entry(Receipt receipt) {
+            this.receipt = receipt;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.receiptprocessor.store;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.DecodedFields;
+
+/**
+ * Counts the receipts stored in and removed from another {@link ReceiptStore}, for the ingest rate.
+ * The counts are plain {@link LongAdder}s; exposing them as meters is left to the configuration.
+ */
+public class MeteredReceiptStore implements ReceiptStore {
+    private final ReceiptStore delegate;
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder removed = new LongAdder();
+
+    public MeteredReceiptStore(ReceiptStore delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean putIfAbsent(String id, Receipt receipt) {
+        return putIfAbsent(id, receipt, (DecodedFields) null);
+    }
+
+    @Override
+    public boolean putIfAbsent(String id, Receipt receipt, DecodedFields fields) {
+        if (!delegate.putIfAbsent(id, receipt, fields)) {
+            return false;
+        }
+        stored.increment();
+        return true;
+    }
+
+    @Override
+    public Receipt get(String id) {
+        return delegate.get(id);
+    }
+
+    @Override
+    public boolean contains(String id) {
+        return delegate.contains(id);
+    }
+
+    @Override
+    public int getPoints(String id) {
+        return delegate.getPoints(id);
+    }
+
+    @Override
+    public void setPoints(String id, int points) {
+        delegate.setPoints(id, points);
+    }
+
+    @Override
+    public boolean remove(String id) {
+        if (!delegate.remove(id)) {
+            return false;
+        }
+        removed.increment();
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void forEachId(Consumer<String> action) {
+        delegate.forEachId(action);
+    }
+
+    public ReceiptStore getDelegate() {
+        return delegate;
+    }
+
+    public long getStored() {
+        return stored.sum();
+    }
+
+    public long getRemoved() {
+        return removed.sum();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.receiptprocessor.store;
+
+import java.util.UUID;
+
+/**
+ * Random version 4 UUIDs. Every call draws from one shared {@link java.security.SecureRandom}, which
+ * serializes concurrent callers.
+ */
+public class RandomIdGenerator implements IdGenerator {
+
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.receiptprocessor.store;
+
+import java.util.function.Consumer;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.DecodedFields;
+
+/**
+ * Storage for processed receipts and their computed points, keyed by receipt ID.
+ * Implementations must be safe for concurrent use.
+ */
+public interface ReceiptStore {
+    // Returned by getPoints when the receipt is unknown or its points have not been computed yet
+    int NO_POINTS = Integer.MIN_VALUE;
+
+    // Stores the receipt unless the ID is already taken; returns false on collision
+    boolean putIfAbsent(String id, Receipt receipt);
+
+    // Stores a receipt first stored at storedAtMillis (epoch milliseconds), such as one recovered from disk;
+    // layers that track the age of receipts count it from then instead of from now
+    default boolean putIfAbsent(String id, Receipt receipt, long storedAtMillis) {
+        return putIfAbsent(id, receipt);
+    }
+
+    // Stores a receipt whose fields were decoded by validation (null if they were not); layers that read its
+    // amounts, date or time take them from there instead of parsing the strings again
+    default boolean putIfAbsent(String id, Receipt receipt, DecodedFields fields) {
+        return putIfAbsent(id, receipt);
+    }
+
+    // Returns the stored receipt, or null if the ID is unknown
+    Receipt get(String id);
+
+    boolean contains(String id);
+
+    int getPoints(String id);
+
+    // Records the computed points for a stored receipt; ignored if the ID is unknown
+    void setPoints(String id, int points);
+
+    boolean remove(String id);
+
+    int size();
+
+    // Visits the IDs of the stored receipts; weakly consistent with concurrent changes
+    void forEachId(Consumer<String> action);
+}
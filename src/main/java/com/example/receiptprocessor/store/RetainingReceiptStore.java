@@ -0,0 +1,229 @@
+package com.example.receiptprocessor.store;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.DecodedFields;
+
+/**
+ * Bounds another {@link ReceiptStore} by entry count and by age. Receipts are evicted oldest first from a
+ * lock-free insertion queue; each write evicts at most {@link #EVICTIONS_PER_WRITE} entries and each read
+ * at most one, so eviction work is spread across requests instead of being done by a sweeping scan.
+ * Only one thread evicts at a time; others skip rather than wait. Evicted IDs simply become unknown to
+ * the delegate store.
+ *
+ * <p>Each receipt's stored-at time is kept with it, so a lookup treats a receipt past the maximum age as
+ * missing whether or not it has been evicted yet. Receipts recovered from disk keep the time they were first
+ * stored at rather than starting a new maximum age.
+ */
+public class RetainingReceiptStore implements ReceiptStore {
+    // More than one per write so the store drains back under its bound after a burst
+    static final int EVICTIONS_PER_WRITE = 2;
+
+    private final ReceiptStore delegate;
+    private final long maxEntries;
+    private final long maxAgeMillis;
+    private final LongSupplier clock;
+    private final Queue<Node> insertionOrder = new ConcurrentLinkedQueue<>();
+    // The queue node of every retained receipt, by UuidKey where the ID is a UUID and by the ID otherwise
+    private final Map<Object, Node> nodes = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries the maximum number of receipts to keep, or 0 for no limit
+     * @param maxAge     how long a receipt is kept after it is stored, or null for no limit
+     */
+    public RetainingReceiptStore(ReceiptStore delegate, long maxEntries, Duration maxAge) {
+        this(delegate, maxEntries, maxAge, System::currentTimeMillis);
+    }
+
+    // The clock is in epoch milliseconds, the time base of the stored-at times recovered from disk
+    RetainingReceiptStore(ReceiptStore delegate, long maxEntries, Duration maxAge, LongSupplier clock) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries > 0 ? maxEntries : Long.MAX_VALUE;
+        this.maxAgeMillis = maxAge != null && !maxAge.isZero() ? maxAge.toMillis() : Long.MAX_VALUE;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean putIfAbsent(String id, Receipt receipt) {
+        return store(id, receipt, clock.getAsLong(), null);
+    }
+
+    @Override
+    public boolean putIfAbsent(String id, Receipt receipt, DecodedFields fields) {
+        return store(id, receipt, clock.getAsLong(), fields);
+    }
+
+    /**
+     * Stores a receipt that was stored at {@code storedAtMillis}; one already past the maximum age is not
+     * stored.
+     */
+    @Override
+    public boolean putIfAbsent(String id, Receipt receipt, long storedAtMillis) {
+        return store(id, receipt, storedAtMillis, null);
+    }
+
+    private boolean store(String id, Receipt receipt, long storedAtMillis, DecodedFields fields) {
+        if (isExpired(storedAtMillis, clock.getAsLong())) {
+            return false;
+        }
+        // Decoded fields only come with a receipt stored now, which the layers below time themselves
+        boolean stored = fields != null ? delegate.putIfAbsent(id, receipt, fields)
+            : delegate.putIfAbsent(id, receipt, storedAtMillis);
+        if (!stored) {
+            return false;
+        }
+        Node node = new Node(id, storedAtMillis);
+        nodes.put(node.key, node);
+        insertionOrder.add(node);
+        evict(EVICTIONS_PER_WRITE);
+        return true;
+    }
+
+    @Override
+    public Receipt get(String id) {
+        evict(1);
+        Receipt receipt = isLive(id) ? delegate.get(id) : null;
+        (receipt != null ? hits : misses).increment();
+        return receipt;
+    }
+
+    @Override
+    public boolean contains(String id) {
+        return isLive(id) && delegate.contains(id);
+    }
+
+    @Override
+    public int getPoints(String id) {
+        // Only found points count as a hit; a miss here is followed by get(), which does the counting
+        int points = isLive(id) ? delegate.getPoints(id) : NO_POINTS;
+        if (points != NO_POINTS) {
+            hits.increment();
+        }
+        return points;
+    }
+
+    @Override
+    public void setPoints(String id, int points) {
+        if (isLive(id)) {
+            delegate.setPoints(id, points);
+        }
+    }
+
+    @Override
+    public boolean remove(String id) {
+        // The queue node is left behind and skipped when it reaches the head
+        if (id != null) {
+            nodes.remove(keyOf(id));
+        }
+        return delegate.remove(id);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void forEachId(Consumer<String> action) {
+        delegate.forEachId(id -> {
+            if (isLive(id)) {
+                action.accept(id);
+            }
+        });
+    }
+
+    /**
+     * Returns the time the receipt was stored at in epoch milliseconds, or -1 if this store does not track it.
+     */
+    public long getStoredAt(String id) {
+        Node node = id != null ? nodes.get(keyOf(id)) : null;
+        return node != null ? node.storedAt : -1;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // False once the receipt is past the maximum age; true for IDs this store does not track
+    private boolean isLive(String id) {
+        if (maxAgeMillis == Long.MAX_VALUE || id == null) {
+            return true;
+        }
+        Node node = nodes.get(keyOf(id));
+        return node == null || !isExpired(node.storedAt, clock.getAsLong());
+    }
+
+    private boolean isExpired(long storedAtMillis, long now) {
+        return maxAgeMillis != Long.MAX_VALUE && now - storedAtMillis > maxAgeMillis;
+    }
+
+    private void evict(int budget) {
+        if (insertionOrder.isEmpty() || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = clock.getAsLong();
+            for (int i = 0; i < budget; i++) {
+                Node head = insertionOrder.peek();
+                if (head == null) {
+                    return;
+                }
+                // A node whose receipt was removed, or stored again since, is dropped without removing anything
+                boolean current = nodes.get(head.key) == head;
+                if (current && delegate.size() <= maxEntries && !isExpired(head.storedAt, now)) {
+                    return;
+                }
+                insertionOrder.poll();
+                if (current && nodes.remove(head.key, head) && delegate.remove(head.id())) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static Object keyOf(String id) {
+        UuidKey key = UuidKey.parse(id);
+        return key != null ? key : id;
+    }
+
+    /**
+     * Queue entry holding the ID as a {@link UuidKey} when it is a UUID, to keep the per-receipt overhead small.
+     */
+    private static final class Node {
+        private final Object key;
+        private final long storedAt;
+
+        private Node(String id, long storedAt) {
+            this.key = keyOf(id);
+            this.storedAt = storedAt;
+        }
+
+        private String id() {
+            return key.toString();
+        }
+    }
+}
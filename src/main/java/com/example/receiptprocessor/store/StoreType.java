@@ -0,0 +1,8 @@
+package com.example.receiptprocessor.store;
+
+public enum StoreType {
+    // ConcurrentHashMap of the received Receipt objects
+    MAP,
+    // UUID keys as two longs, amounts in cents, packed date/time and interned descriptions
+    COMPACT
+}
@@ -0,0 +1,31 @@
+package com.example.receiptprocessor.store;
+
+/**
+ * A bounded, lock-free interner for the retailer names and item descriptions that repeat across receipts.
+ * Each string hashes to one slot; a slot holding an equal string is reused, otherwise it is overwritten.
+ * Races only cost a missed de-duplication, never correctness, so slots are plain array writes.
+ */
+final class StringInterner {
+    private final String[] slots;
+    private final int mask;
+
+    StringInterner(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.slots = new String[size];
+        this.mask = size - 1;
+    }
+
+    String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int hash = value.hashCode();
+        int index = (hash ^ (hash >>> 16)) & mask;
+        String cached = slots[index];
+        if (value.equals(cached)) {
+            return cached;
+        }
+        slots[index] = value;
+        return value;
+    }
+}
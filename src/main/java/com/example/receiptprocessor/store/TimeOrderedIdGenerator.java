@@ -0,0 +1,76 @@
+package com.example.receiptprocessor.store;
+
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered IDs in the version 7 UUID layout, generated without any state shared between threads:
+ * <pre>
+ *   msb: unix millis (48) | version 7 (4) | sequence, high bits (12)
+ *   lsb: variant (2) | node (16) | thread (30) | sequence, low bits (16)
+ * </pre>
+ * Each thread numbers its own IDs within a millisecond, and the thread ID and node tell the threads and
+ * the instances apart, so two IDs only collide if the same node runs two threads whose IDs agree in the
+ * low 30 bits within the same millisecond. Configure a distinct node per instance when several share a
+ * store; the default is random.
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+    static final int NODE_BITS = 16;
+    static final int THREAD_BITS = 30;
+    static final int SEQUENCE_LOW_BITS = 16;
+    static final int SEQUENCE_BITS = 12 + SEQUENCE_LOW_BITS;
+
+    private static final long VERSION = 7L << 12;
+    private static final long VARIANT = 2L << 62;
+
+    private final long node;
+    private final LongSupplier clock;
+    // Per thread, so a virtual thread that generates one ID pays for one small object and nothing else
+    private final ThreadLocal<Sequence> sequences = ThreadLocal.withInitial(Sequence::new);
+
+    public TimeOrderedIdGenerator(int node) {
+        this(node, System::currentTimeMillis);
+    }
+
+    TimeOrderedIdGenerator(int node, LongSupplier clock) {
+        if (node < 0 || node >= 1 << NODE_BITS) {
+            throw new IllegalArgumentException("Node must be between 0 and " + ((1 << NODE_BITS) - 1) + ": " + node);
+        }
+        this.node = node;
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextId() {
+        Sequence sequence = sequences.get();
+        long millis = sequence.next(clock.getAsLong());
+        long value = sequence.value;
+        long thread = Thread.currentThread().threadId() & ((1L << THREAD_BITS) - 1);
+
+        long msb = (millis << 16) | VERSION | (value >>> SEQUENCE_LOW_BITS);
+        long lsb = VARIANT
+            | (node << (THREAD_BITS + SEQUENCE_LOW_BITS))
+            | (thread << SEQUENCE_LOW_BITS)
+            | (value & ((1L << SEQUENCE_LOW_BITS) - 1));
+        return new UUID(msb, lsb).toString();
+    }
+
+    private static final class Sequence {
+        private long millis = Long.MIN_VALUE;
+        private long value;
+
+        // Returns the millisecond of the next ID and advances the sequence within it
+        long next(long now) {
+            if (now > millis) {
+                millis = now;
+                value = 0;
+            } else if (++value == 1L << SEQUENCE_BITS) {
+                // 2^28 IDs in one millisecond: borrow the next one. A clock that went back also stays
+                // on the last millisecond, so the IDs of a thread never go backwards
+                millis++;
+                value = 0;
+            }
+            return millis;
+        }
+    }
+}
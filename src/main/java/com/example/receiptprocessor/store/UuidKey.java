@@ -0,0 +1,99 @@
+package com.example.receiptprocessor.store;
+
+/**
+ * A receipt ID held as the two 64-bit halves of a UUID instead of a 36-character string.
+ */
+final class UuidKey {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long msb;
+    private final long lsb;
+
+    UuidKey(long msb, long lsb) {
+        this.msb = msb;
+        this.lsb = lsb;
+    }
+
+    /**
+     * Parses the canonical lower-case form produced by {@link java.util.UUID#toString()}.
+     * Returns null for anything else so lookups of malformed IDs are a plain miss.
+     */
+    static UuidKey parse(String id) {
+        if (id == null || id.length() != 36
+                || id.charAt(8) != '-' || id.charAt(13) != '-' || id.charAt(18) != '-' || id.charAt(23) != '-') {
+            return null;
+        }
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 36; i++) {
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                continue;
+            }
+            int digit = hexValue(id.charAt(i));
+            if (digit < 0) {
+                return null;
+            }
+            if (i < 19) {
+                msb = (msb << 4) | digit;
+            } else {
+                lsb = (lsb << 4) | digit;
+            }
+        }
+        return new UuidKey(msb, lsb);
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    long msb() {
+        return msb;
+    }
+
+    long lsb() {
+        return lsb;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UuidKey)) {
+            return false;
+        }
+        UuidKey other = (UuidKey) o;
+        return msb == other.msb && lsb == other.lsb;
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = msb ^ lsb;
+        return (int) (hash >> 32) ^ (int) hash;
+    }
+
+    @Override
+    public String toString() {
+        char[] out = new char[36];
+        int pos = 0;
+        for (int shift = 60; shift >= 0; shift -= 4, pos++) {
+            if (pos == 8 || pos == 13) {
+                out[pos++] = '-';
+            }
+            out[pos] = HEX[(int) (msb >>> shift) & 0xF];
+        }
+        for (int shift = 60; shift >= 0; shift -= 4, pos++) {
+            if (pos == 18 || pos == 23) {
+                out[pos++] = '-';
+            }
+            out[pos] = HEX[(int) (lsb >>> shift) & 0xF];
+        }
+        return new String(out);
+    }
+}
@@ -0,0 +1,355 @@
+package com.example.receiptprocessor.wire;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.http.MediaType;
+
+import com.example.receiptprocessor.model.BatchResult;
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.ReceiptFields;
+
+/**
+ * The application/x-receipt encoding of requests and responses, for callers that do not need JSON. Numbers
+ * are unsigned LEB128 varints, and a nullable value is stored plus one so that 0 stands for null:
+ * <ul>
+ * <li>string: byte length + 1, then UTF-8 bytes</li>
+ * <li>amount: cents + 1, so "6.49" travels as 650 in two bytes</li>
+ * <li>date: YYYYMMDD + 1; time: minute of day + 1</li>
+ * <li>receipt: retailer, date, time, total, item count + 1, then description and price of each item</li>
+ * <li>batch: receipt count, then each receipt prefixed by its byte length, so one that cannot be read is
+ * rejected on its own like a bad NDJSON line</li>
+ * <li>points: zig-zag varint; ID: string; batch result: ID count, IDs, error count, index and message of
+ * each error</li>
+ * </ul>
+ * Only the plain forms of amounts, dates and times can be encoded. A decoded receipt holds them in exactly
+ * those forms, which {@link ReceiptFields} reads without falling back to the general-purpose parsers.
+ */
+public final class ReceiptWireFormat {
+    public static final String MEDIA_TYPE_VALUE = "application/x-receipt";
+    public static final MediaType MEDIA_TYPE = MediaType.valueOf(MEDIA_TYPE_VALUE);
+
+    private ReceiptWireFormat() {
+    }
+
+    public static byte[] encodeReceipt(Receipt receipt) {
+        Output out = new Output(64);
+        writeReceipt(out, receipt);
+        return out.toByteArray();
+    }
+
+    public static Receipt decodeReceipt(byte[] bytes) {
+        return decode(bytes, ReceiptWireFormat::readReceipt);
+    }
+
+    public static byte[] encodeReceipts(List<Receipt> receipts) {
+        Output out = new Output(64 * receipts.size() + 8);
+        Output entry = new Output(64);
+        out.writeVarint(receipts.size());
+        for (Receipt receipt : receipts) {
+            entry.size = 0;
+            writeReceipt(entry, receipt);
+            out.writeVarint(entry.size);
+            out.write(entry.bytes, 0, entry.size);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a batch; an entry that cannot be read is returned as null in its place.
+     */
+    public static List<Receipt> decodeReceipts(byte[] bytes) {
+        return decode(bytes, buffer -> {
+            int count = readCount(buffer);
+            List<Receipt> receipts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int length = readLength(buffer);
+                ByteBuffer entry = buffer.slice(buffer.position(), length);
+                buffer.position(buffer.position() + length);
+                Receipt receipt;
+                try {
+                    receipt = readReceipt(entry);
+                } catch (IllegalArgumentException | BufferUnderflowException ex) {
+                    receipt = null;
+                }
+                receipts.add(receipt == null || entry.hasRemaining() ? null : receipt);
+            }
+            return receipts;
+        });
+    }
+
+    public static byte[] encodeId(String id) {
+        Output out = new Output(40);
+        writeString(out, id);
+        return out.toByteArray();
+    }
+
+    public static String decodeId(byte[] bytes) {
+        return decode(bytes, ReceiptWireFormat::readString);
+    }
+
+    public static byte[] encodePoints(int points) {
+        Output out = new Output(5);
+        out.writeVarint(Integer.toUnsignedLong((points << 1) ^ (points >> 31)));
+        return out.toByteArray();
+    }
+
+    public static int decodePoints(byte[] bytes) {
+        return decode(bytes, buffer -> {
+            long zigzag = readVarint(buffer);
+            if (zigzag < 0 || zigzag > 0xFFFF_FFFFL) {
+                throw new IllegalArgumentException("Malformed points");
+            }
+            int value = (int) zigzag;
+            return (value >>> 1) ^ -(value & 1);
+        });
+    }
+
+    public static byte[] encodeBatchResult(BatchResult result) {
+        Output out = new Output(40 * result.getIds().size() + 8);
+        out.writeVarint(result.getIds().size());
+        for (String id : result.getIds()) {
+            writeString(out, id);
+        }
+        out.writeVarint(result.getErrors().size());
+        for (BatchResult.EntryError error : result.getErrors()) {
+            out.writeVarint(error.getIndex());
+            writeString(out, error.getError());
+        }
+        return out.toByteArray();
+    }
+
+    public static BatchResult decodeBatchResult(byte[] bytes) {
+        return decode(bytes, buffer -> {
+            BatchResult result = new BatchResult();
+            int idCount = readCount(buffer);
+            for (int i = 0; i < idCount; i++) {
+                result.getIds().add(readString(buffer));
+            }
+            int errorCount = readCount(buffer);
+            for (int i = 0; i < errorCount; i++) {
+                int index = readLength(buffer);
+                result.getErrors().add(new BatchResult.EntryError(index, readString(buffer)));
+            }
+            return result;
+        });
+    }
+
+    private static void writeReceipt(Output out, Receipt receipt) {
+        writeString(out, receipt.getRetailer());
+        writeNullable(out, receipt.getPurchaseDate() == null ? -1 : plain(
+            ReceiptFields.packedDate(receipt.getPurchaseDate()), "Purchase date", receipt.getPurchaseDate()));
+        writeNullable(out, receipt.getPurchaseTime() == null ? -1 : plain(
+            ReceiptFields.minuteOfDay(receipt.getPurchaseTime()), "Purchase time", receipt.getPurchaseTime()));
+        writeAmount(out, "Total", receipt.getTotal());
+        List<Item> items = receipt.getItems();
+        if (items == null) {
+            out.writeVarint(0);
+            return;
+        }
+        out.writeVarint(items.size() + 1L);
+        for (Item item : items) {
+            writeString(out, item.getShortDescription());
+            writeAmount(out, "Price", item.getPrice());
+        }
+    }
+
+    private static Receipt readReceipt(ByteBuffer buffer) {
+        Receipt receipt = new Receipt();
+        receipt.setRetailer(readString(buffer));
+        int date = readNullable(buffer);
+        receipt.setPurchaseDate(date < 0 ? null : formatDate(date));
+        int minute = readNullable(buffer);
+        receipt.setPurchaseTime(minute < 0 ? null : formatTime(minute));
+        receipt.setTotal(readAmount(buffer));
+        int count = readNullable(buffer);
+        if (count >= 0) {
+            // Every item takes at least two bytes, which bounds the list allocated for a forged count
+            if (count > buffer.remaining() / 2) {
+                throw new IllegalArgumentException("Malformed receipt: item count exceeds the body");
+            }
+            List<Item> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Item item = new Item();
+                item.setShortDescription(readString(buffer));
+                item.setPrice(readAmount(buffer));
+                items.add(item);
+            }
+            receipt.setItems(items);
+        }
+        return receipt;
+    }
+
+    private static long plain(long value, String field, String text) {
+        if (value < 0) {
+            throw new IllegalArgumentException(field + " has no binary form: " + text);
+        }
+        return value;
+    }
+
+    private static void writeAmount(Output out, String field, String amount) {
+        writeNullable(out, amount == null ? -1 : plain(ReceiptFields.parseCents(amount), field, amount));
+    }
+
+    private static String readAmount(ByteBuffer buffer) {
+        long value = readVarint(buffer);
+        if (value == 0) {
+            return null;
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException("Malformed receipt: amount out of range");
+        }
+        long cents = value - 1;
+        long fraction = cents % 100;
+        return (cents / 100) + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    private static void writeNullable(Output out, long value) {
+        out.writeVarint(value + 1);
+    }
+
+    // -1 for null
+    private static int readNullable(ByteBuffer buffer) {
+        long value = readVarint(buffer);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Malformed receipt: value out of range");
+        }
+        return (int) value - 1;
+    }
+
+    private static String formatDate(int packed) {
+        int year = packed / 10000;
+        if (year > 9999) {
+            throw new IllegalArgumentException("Invalid purchase date: " + packed);
+        }
+        char[] chars = { digit(year / 1000), digit(year / 100), digit(year / 10), digit(year), '-',
+            digit(packed / 1000), digit(packed / 100), '-', digit(packed / 10), digit(packed) };
+        String date = new String(chars);
+        // Rejects what no plain date could have been encoded from, such as a 31st of April
+        if (ReceiptFields.packedDate(date) != packed) {
+            throw new IllegalArgumentException("Invalid purchase date: " + packed);
+        }
+        return date;
+    }
+
+    private static String formatTime(int minuteOfDay) {
+        if (minuteOfDay >= 24 * 60) {
+            throw new IllegalArgumentException("Invalid purchase time: " + minuteOfDay);
+        }
+        int hour = minuteOfDay / 60;
+        int minute = minuteOfDay % 60;
+        return new String(new char[] { digit(hour / 10), digit(hour), ':', digit(minute / 10), digit(minute) });
+    }
+
+    private static char digit(int value) {
+        return (char) ('0' + value % 10);
+    }
+
+    private static void writeString(Output out, String value) {
+        if (value == null) {
+            out.writeVarint(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeVarint(bytes.length + 1L);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readNullable(buffer);
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+            StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    // A count of entries, each of which takes at least one byte
+    private static int readCount(ByteBuffer buffer) {
+        int count = readLength(buffer);
+        if (count > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    private static int readLength(ByteBuffer buffer) {
+        long value = readVarint(buffer);
+        if (value < 0 || value > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return (int) value;
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed body: varint too long");
+    }
+
+    private static <T> T decode(byte[] bytes, Function<ByteBuffer, T> reader) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        T value;
+        try {
+            value = reader.apply(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Malformed body: truncated");
+        }
+        if (buffer.hasRemaining()) {
+            throw new IllegalArgumentException("Malformed body: " + buffer.remaining() + " trailing bytes");
+        }
+        return value;
+    }
+
+    // Growable byte array; unlike ByteArrayOutputStream it is unsynchronized and can be reused
+    private static final class Output {
+        byte[] bytes;
+        int size;
+
+        Output(int capacity) {
+            bytes = new byte[Math.max(capacity, 16)];
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void write(byte[] source, int offset, int length) {
+            ensure(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
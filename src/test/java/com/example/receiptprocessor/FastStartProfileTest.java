@@ -0,0 +1,25 @@
+package com.example.receiptprocessor;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("fast-start")
+class FastStartProfileTest {
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Test
+    @DisplayName("The fast-start profile should still build the receipt store at startup")
+    void testReceiptStoreIsEager() {
+        assertTrue(context.getBeanFactory().getBeanDefinition("receiptService").isLazyInit());
+        assertTrue(context.getBeanFactory().containsSingleton("receiptStore"));
+    }
+}
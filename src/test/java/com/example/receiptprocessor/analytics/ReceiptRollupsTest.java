@@ -0,0 +1,158 @@
+package com.example.receiptprocessor.analytics;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.model.RollupTotals;
+import com.example.receiptprocessor.store.MapReceiptStore;
+import com.example.receiptprocessor.store.ReceiptStore;
+
+class ReceiptRollupsTest {
+
+    private ReceiptRollups rollups;
+    private ReceiptStore store;
+
+    @BeforeEach
+    void setUp() {
+        rollups = new ReceiptRollups();
+        store = new RollupReceiptStore(new MapReceiptStore(), rollups);
+    }
+
+    private static Receipt receipt(String retailer, String date, String time, String total) {
+        Receipt receipt = new Receipt();
+        receipt.setRetailer(retailer);
+        receipt.setPurchaseDate(date);
+        receipt.setPurchaseTime(time);
+        receipt.setTotal(total);
+        Item item = new Item();
+        item.setShortDescription("Dasani");
+        item.setPrice(total);
+        receipt.setItems(List.of(item));
+        return receipt;
+    }
+
+    private String store(Receipt receipt) {
+        String id = UUID.randomUUID().toString();
+        store.putIfAbsent(id, receipt);
+        return id;
+    }
+
+    @Test
+    @DisplayName("Stored receipts should be totalled by retailer, day and hour")
+    void testTotals() {
+        // Given
+        store(receipt("Target", "2022-01-01", "13:01", "35.35"));
+        store(receipt("Target", "2022-01-02", "13:59", "6.5"));
+        store(receipt("Walgreens", "2022-01-01", "08:13", "2.65"));
+
+        // Then
+        assertEquals(new RollupTotals("Target", 2, "41.85", 0), rollups.retailer("Target"));
+        assertEquals(new RollupTotals("2022-01-01", 2, "38.00", 0), rollups.day("2022-01-01"));
+        assertEquals(new RollupTotals("13", 2, "41.85", 0), rollups.hours().get(13));
+        assertEquals(new RollupTotals("Costco", 0, "0.00", 0), rollups.retailer("Costco"));
+        assertThrows(IllegalArgumentException.class, () -> rollups.day("2022-02-30"));
+    }
+
+    @Test
+    @DisplayName("Points should be rolled up once when first stored and removed receipts taken out")
+    void testPointsAndRemoval() {
+        // Given
+        String first = store(receipt("Target", "2022-01-01", "13:01", "35.35"));
+        String second = store(receipt("Target", "2022-01-01", "14:33", "1.00"));
+
+        // When
+        store.setPoints(first, 28);
+        store.setPoints(first, 28);
+        store.setPoints(second, 100);
+        store.remove(second);
+
+        // Then
+        assertEquals(new RollupTotals("Target", 1, "35.35", 28), rollups.retailer("Target"));
+        assertEquals(new RollupTotals("14", 0, "0.00", 0), rollups.hours().get(14));
+    }
+
+    @Test
+    @DisplayName("Buckets should be dropped once their last receipt is removed")
+    void testEmptiedBucketsDropped() {
+        // Given
+        String scored = store(receipt("Target", "2022-01-01", "13:01", "35.35"));
+        store.setPoints(scored, 28);
+        for (int i = 0; i < 1000; i++) {
+            store.remove(store(receipt("retailer-" + i, "2022-01-02", "13:01", "1.00")));
+        }
+
+        // When
+        store.remove(scored);
+
+        // Then
+        assertEquals(0, rollups.retailerCount());
+        assertEquals(0, rollups.dayCount());
+        assertEquals(List.of(), rollups.topRetailers(10, RollupMeasure.RECEIPTS));
+        assertEquals(new RollupTotals("Target", 0, "0.00", 0), rollups.retailer("Target"));
+    }
+
+    @Test
+    @DisplayName("Concurrent updates should not be lost while emptied buckets are dropped")
+    void testConcurrentChurn() throws InterruptedException {
+        // Given
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When: every thread keeps emptying and refilling the same buckets, then keeps one receipt
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 2000; i++) {
+                        String id = store(receipt("Target", "2022-01-01", "13:01", "1.00"));
+                        store.setPoints(id, 5);
+                        store.remove(id);
+                    }
+                    store.setPoints(store(receipt("Target", "2022-01-01", "13:01", "1.00")), 5);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(new RollupTotals("Target", threads, threads + ".00", 5L * threads), rollups.retailer("Target"));
+        assertEquals(new RollupTotals("2022-01-01", threads, threads + ".00", 5L * threads),
+            rollups.day("2022-01-01"));
+        assertEquals(1, rollups.retailerCount());
+    }
+
+    @Test
+    @DisplayName("Top retailers should be ordered by the chosen measure")
+    void testTopRetailers() {
+        // Given
+        store(receipt("Target", "2022-01-01", "13:01", "10.00"));
+        store(receipt("Target", "2022-01-01", "13:01", "10.00"));
+        store(receipt("Walgreens", "2022-01-01", "13:01", "50.00"));
+        store(receipt("Costco", "2022-01-01", "13:01", "5.00"));
+
+        // Then
+        List<RollupTotals> bySpend = rollups.topRetailers(2, RollupMeasure.SPEND);
+        assertEquals(List.of("Walgreens", "Target"), bySpend.stream().map(RollupTotals::getKey).toList());
+        List<RollupTotals> byReceipts = rollups.topRetailers(1, RollupMeasure.parse("receipts"));
+        assertEquals("Target", byReceipts.get(0).getKey());
+        assertThrows(IllegalArgumentException.class, () -> RollupMeasure.parse("volume"));
+    }
+}
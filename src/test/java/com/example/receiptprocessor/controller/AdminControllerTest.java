@@ -0,0 +1,51 @@
+package com.example.receiptprocessor.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.when;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.receiptprocessor.model.SnapshotResult;
+import com.example.receiptprocessor.persistence.ReceiptSnapshotter;
+
+@WebMvcTest(controllers = AdminController.class, properties = "receipt.snapshot.enabled=true")
+class AdminControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ReceiptSnapshotter snapshotter;
+
+    @Test
+    @DisplayName("A snapshot should report its size and throughput")
+    void testSnapshot() throws Exception {
+        // Given
+        when(snapshotter.snapshot())
+            .thenReturn(new SnapshotResult("data/receipts.snapshot", 1000, 250_000, 5, 50.0));
+
+        // When/Then
+        mockMvc.perform(post("/receipts/admin/snapshot"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.receipts").value(1000))
+                .andExpect(jsonPath("$.bytes").value(250_000))
+                .andExpect(jsonPath("$.megabytesPerSecond").value(50.0));
+    }
+
+    @Test
+    @DisplayName("A snapshot requested while one is being written should be answered with 409")
+    void testSnapshotInProgress() throws Exception {
+        // Given
+        when(snapshotter.snapshot()).thenThrow(new IllegalStateException("A receipt snapshot is already being written"));
+
+        // When/Then
+        mockMvc.perform(post("/receipts/admin/snapshot"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("A receipt snapshot is already being written"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.receiptprocessor.controller;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.when;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.receiptprocessor.analytics.ReceiptRollups;
+import com.example.receiptprocessor.analytics.RollupMeasure;
+import com.example.receiptprocessor.model.RollupTotals;
+
+@WebMvcTest(AnalyticsController.class)
+class AnalyticsControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ReceiptRollups rollups;
+
+    @Test
+    @DisplayName("Retailer totals should be returned as JSON")
+    void testRetailer() throws Exception {
+        // Given
+        when(rollups.retailer("Target")).thenReturn(new RollupTotals("Target", 2, "41.85", 60));
+
+        // When/Then
+        mockMvc.perform(get("/receipts/analytics/retailers/Target"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.receipts").value(2))
+                .andExpect(jsonPath("$.spend").value("41.85"))
+                .andExpect(jsonPath("$.points").value(60));
+    }
+
+    @Test
+    @DisplayName("Top retailers should accept the measure in lower case")
+    void testTopRetailers() throws Exception {
+        // Given
+        when(rollups.topRetailers(3, RollupMeasure.POINTS))
+            .thenReturn(List.of(new RollupTotals("Target", 2, "41.85", 60)));
+
+        // When/Then
+        mockMvc.perform(get("/receipts/analytics/retailers").param("limit", "3").param("by", "points"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].key").value("Target"));
+    }
+
+    @Test
+    @DisplayName("An unknown measure should be rejected with 400")
+    void testUnknownMeasure() throws Exception {
+        mockMvc.perform(get("/receipts/analytics/retailers").param("by", "volume"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.receiptprocessor.controller;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class NdjsonReceiptReaderTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Reader should produce the same receipts as data binding")
+    void testMatchesDataBinding() throws IOException {
+        String first = "{\"retailer\":\"Target\",\"purchaseDate\":\"2022-01-01\",\"purchaseTime\":\"13:01\","
+            + "\"items\":[{\"shortDescription\":\"Mountain Dew 12PK\",\"price\":\"6.49\"}],\"total\":\"6.49\"}";
+        String second = "{\"retailer\":\"Walgreens\",\"extra\":{\"nested\":[1,2]},\"total\":2.65,\"items\":null}";
+
+        try (NdjsonReceiptReader reader = reader(first + "\n" + second + "\n")) {
+            assertEquals(objectMapper.readValue(first, Receipt.class), reader.next());
+            Receipt receipt = reader.next();
+            assertEquals("Walgreens", receipt.getRetailer());
+            assertEquals("2.65", receipt.getTotal());
+            assertNull(receipt.getItems());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    @DisplayName("Reader should report malformed JSON")
+    void testMalformed() throws IOException {
+        try (NdjsonReceiptReader reader = reader("[1, 2]\n")) {
+            assertThrows(JsonProcessingException.class, reader::next);
+        }
+    }
+
+    private static NdjsonReceiptReader reader(String content) throws IOException {
+        return new NdjsonReceiptReader(objectMapper.getFactory(),
+            new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
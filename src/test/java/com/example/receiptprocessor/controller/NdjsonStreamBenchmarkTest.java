@@ -0,0 +1,95 @@
+package com.example.receiptprocessor.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.example.receiptprocessor.config.ReceiptProperties;
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.FastRuleEvaluator;
+import com.example.receiptprocessor.rules.RuleEngine;
+import com.example.receiptprocessor.service.ReceiptService;
+import com.example.receiptprocessor.store.CompactReceiptStore;
+import com.example.receiptprocessor.store.IdempotencyIndex;
+import com.example.receiptprocessor.store.RetainingReceiptStore;
+import com.example.receiptprocessor.store.TimeOrderedIdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class NdjsonStreamBenchmarkTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final long PAYLOAD_BYTES = Long.getLong("benchmark.streamBytes", 1L << 30);
+    // Keep the store small so the heap reflects the streaming path rather than the stored receipts
+    private static final int RETAINED = 10_000;
+
+    @Test
+    @DisplayName("Report heap use while streaming a large NDJSON ingest")
+    void testHeapStaysFlat() throws IOException {
+        ReceiptService service = new ReceiptService(new FastRuleEvaluator(new RuleEngine()),
+            new RetainingReceiptStore(new CompactReceiptStore(), RETAINED, null), new ReceiptProperties(),
+            new IdempotencyIndex(false, false), new TimeOrderedIdGenerator(0));
+        byte[] line = (objectMapper.writeValueAsString(objectMapper.readValue(
+            getClass().getResourceAsStream("/mockdata/morning-receipt.json"), Receipt.class)) + "\n")
+            .getBytes(StandardCharsets.UTF_8);
+
+        Runtime runtime = Runtime.getRuntime();
+        long maxUsed = 0;
+        long count = 0;
+        long started = System.nanoTime();
+        try (NdjsonReceiptReader reader = new NdjsonReceiptReader(objectMapper.getFactory(),
+                new RepeatingInputStream(line, PAYLOAD_BYTES))) {
+            Receipt receipt;
+            while ((receipt = reader.next()) != null) {
+                service.ingest(receipt);
+                if (++count % 100_000 == 0) {
+                    maxUsed = Math.max(maxUsed, runtime.totalMemory() - runtime.freeMemory());
+                }
+            }
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        System.out.printf("Streamed %d MB (%d receipts) in %d ms (%d MB/s), max heap used %d MB%n",
+            PAYLOAD_BYTES >> 20, count, elapsedMillis, (PAYLOAD_BYTES >> 20) * 1000 / elapsedMillis, maxUsed >> 20);
+        assertTrue(maxUsed < PAYLOAD_BYTES / 4, "Heap use should not grow with the payload");
+    }
+
+    /**
+     * Serves the same NDJSON line over and over until the given number of bytes has been produced.
+     */
+    private static final class RepeatingInputStream extends InputStream {
+        private final byte[] line;
+        private long remaining;
+        private int position;
+
+        private RepeatingInputStream(byte[] line, long bytes) {
+            this.line = line;
+            // Whole lines only
+            this.remaining = bytes - bytes % line.length;
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (remaining == 0) {
+                return -1;
+            }
+            int n = (int) Math.min(Math.min(length, line.length - position), remaining);
+            System.arraycopy(line, position, buffer, offset, n);
+            position = (position + n) % line.length;
+            remaining -= n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.receiptprocessor.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.receiptprocessor.config.ReceiptProperties;
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.FastRuleEvaluator;
+import com.example.receiptprocessor.rules.RuleEngine;
+import com.example.receiptprocessor.service.ReceiptService;
+import com.example.receiptprocessor.store.CompactReceiptStore;
+import com.example.receiptprocessor.store.IdempotencyIndex;
+import com.example.receiptprocessor.store.TimeOrderedIdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ReceiptBatchBenchmarkTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int RECEIPTS = 100_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    private MockMvc mockMvc;
+    private String single;
+    private String batch;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReceiptService service = new ReceiptService(new FastRuleEvaluator(new RuleEngine()), new CompactReceiptStore(), new ReceiptProperties(),
+            new IdempotencyIndex(false, false), new TimeOrderedIdGenerator(0));
+        mockMvc = MockMvcBuilders.standaloneSetup(new ReceiptController(service, objectMapper)).build();
+        try (InputStream is = getClass().getResourceAsStream("/mockdata/morning-receipt.json")) {
+            Receipt receipt = objectMapper.readValue(is, Receipt.class);
+            single = objectMapper.writeValueAsString(receipt);
+            batch = objectMapper.writeValueAsString(Collections.nCopies(BATCH_SIZE, receipt));
+        }
+    }
+
+    @Test
+    @DisplayName("Report ingest throughput of the single and batch endpoints")
+    void testBatchThroughput() throws Exception {
+        // Warm up both paths
+        runSingle(RECEIPTS / 10);
+        runBatch(RECEIPTS / 10);
+
+        long singleNanos = runSingle(RECEIPTS);
+        long batchNanos = runBatch(RECEIPTS);
+        System.out.printf("Ingest of %d receipts: single=%d receipts/s, batch(%d)=%d receipts/s%n",
+            RECEIPTS, perSecond(singleNanos), BATCH_SIZE, perSecond(batchNanos));
+    }
+
+    private long runSingle(int receipts) throws Exception {
+        long started = System.nanoTime();
+        for (int i = 0; i < receipts; i++) {
+            mockMvc.perform(post("/receipts/process").contentType(MediaType.APPLICATION_JSON).content(single))
+                .andExpect(status().isOk());
+        }
+        return System.nanoTime() - started;
+    }
+
+    private long runBatch(int receipts) throws Exception {
+        long started = System.nanoTime();
+        for (int i = 0; i < receipts / BATCH_SIZE; i++) {
+            mockMvc.perform(post("/receipts/process/batch").contentType(MediaType.APPLICATION_JSON).content(batch))
+                .andExpect(status().isOk());
+        }
+        return System.nanoTime() - started;
+    }
+
+    private static long perSecond(long nanos) {
+        return RECEIPTS * TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanos);
+    }
+}
@@ -1,12 +1,21 @@
 package com.example.receiptprocessor.controller;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.startsWith;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -15,11 +24,16 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.example.receiptprocessor.model.BatchResult;
+import com.example.receiptprocessor.model.PointsResult;
 import com.example.receiptprocessor.model.Receipt;
 import com.example.receiptprocessor.service.ReceiptService;
+import com.example.receiptprocessor.service.ReceiptValidationException;
+import com.example.receiptprocessor.wire.ReceiptWireFormat;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 @WebMvcTest(ReceiptController.class)
@@ -49,7 +63,7 @@ class ReceiptControllerTest {
     void testProcessReceipt() throws Exception {
         // Given
         String mockId = "123e4567-e89b-12d3-a456-426614174000";
-        when(receiptService.processReceipt(any(Receipt.class))).thenReturn(mockId);
+        when(receiptService.processReceipt(any(Receipt.class), any(), any())).thenReturn(mockId);
 
         // When/Then
         mockMvc.perform(post("/receipts/process")
@@ -59,6 +73,39 @@ class ReceiptControllerTest {
                 .andExpect(jsonPath("$.id").value(mockId));
     }
 
+    @Test
+    @DisplayName("Process receipt should pass the Idempotency-Key header and the client address to the service")
+    void testProcessReceiptWithIdempotencyKey() throws Exception {
+        // Given
+        String mockId = "123e4567-e89b-12d3-a456-426614174000";
+        when(receiptService.processReceipt(any(Receipt.class), eq("127.0.0.1"), eq("retry-1"))).thenReturn(mockId);
+
+        // When/Then
+        mockMvc.perform(post("/receipts/process")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotency-Key", "retry-1")
+                .content(objectMapper.writeValueAsString(morningReceipt)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(mockId));
+    }
+
+    @Test
+    @DisplayName("Process receipt should answer an invalid receipt with 400 and its field errors")
+    void testProcessReceiptInvalid() throws Exception {
+        // Given
+        when(receiptService.processReceipt(any(Receipt.class), any(), any())).thenThrow(new ReceiptValidationException(
+            List.of(new ReceiptValidationException.FieldError("total", "must be an amount like 6.49"))));
+
+        // When/Then
+        mockMvc.perform(post("/receipts/process")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(morningReceipt)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid receipt: total must be an amount like 6.49"))
+                .andExpect(jsonPath("$.fields[0].field").value("total"))
+                .andExpect(jsonPath("$.fields[0].error").value("must be an amount like 6.49"));
+    }
+
     @Test
     @DisplayName("Get points should return calculated points for valid ID")
     void testGetPointsForValidId() throws Exception {
@@ -85,4 +132,224 @@ class ReceiptControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").value("Receipt not found"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Batch process should return IDs in order")
+    void testProcessReceiptBatch() throws Exception {
+        // Given
+        BatchResult result = new BatchResult();
+        result.getIds().addAll(List.of("id-1", "id-2"));
+        when(receiptService.processReceipts(anyList(), eq(true))).thenReturn(result);
+
+        // When/Then
+        mockMvc.perform(post("/receipts/process/batch")
+                .param("computePoints", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(morningReceipt, morningReceipt))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ids[0]").value("id-1"))
+                .andExpect(jsonPath("$.ids[1]").value("id-2"));
+    }
+
+    @Test
+    @DisplayName("NDJSON batch should pass unreadable lines on as missing entries")
+    void testProcessReceiptBatchNdjson() throws Exception {
+        // Given
+        BatchResult result = new BatchResult();
+        result.getIds().add("id-1");
+        result.getIds().add(null);
+        result.getErrors().add(new BatchResult.EntryError(1, "Receipt is missing or unreadable"));
+        when(receiptService.processReceipts(argThat(receipts -> receipts.size() == 2 && receipts.get(1) == null), eq(false)))
+            .thenReturn(result);
+
+        // When/Then
+        mockMvc.perform(post("/receipts/process/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(objectMapper.writeValueAsString(morningReceipt) + "\n{not json\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ids[0]").value("id-1"))
+                .andExpect(jsonPath("$.errors[0].index").value(1));
+    }
+
+    @Test
+    @DisplayName("Stream process should write back one ID line per receipt")
+    void testProcessReceiptStream() throws Exception {
+        // Given
+        when(receiptService.ingest(any(Receipt.class))).thenReturn("id-1", "id-2");
+        String line = objectMapper.writeValueAsString(morningReceipt);
+
+        // When/Then
+        mockMvc.perform(post("/receipts/process/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(line + "\n" + line + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"id\":\"id-1\"}\n{\"id\":\"id-2\"}\n"));
+    }
+
+    @Test
+    @DisplayName("Stream process should answer an invalid receipt with an error line and go on")
+    void testProcessReceiptStreamInvalid() throws Exception {
+        // Given
+        when(receiptService.ingest(any(Receipt.class)))
+            .thenThrow(new ReceiptValidationException(List.of(new ReceiptValidationException.FieldError("items", "is required"))))
+            .thenReturn("id-2");
+        String line = objectMapper.writeValueAsString(morningReceipt);
+
+        // When/Then
+        mockMvc.perform(post("/receipts/process/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(line + "\n" + line + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"error\":\"Invalid receipt: items is required\","
+                    + "\"fields\":[{\"field\":\"items\",\"error\":\"is required\"}]}\n{\"id\":\"id-2\"}\n"));
+    }
+
+    @Test
+    @DisplayName("Stream process should stop with an error line at malformed JSON")
+    void testProcessReceiptStreamMalformed() throws Exception {
+        // Given
+        when(receiptService.ingest(any(Receipt.class))).thenReturn("id-1");
+
+        // When/Then
+        mockMvc.perform(post("/receipts/process/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(objectMapper.writeValueAsString(morningReceipt) + "\n{\"retailer\": ]\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith("{\"id\":\"id-1\"}\n{\"error\":")));
+    }
+
+    @Test
+    @DisplayName("Export should write one line of points per stored receipt")
+    void testExportPoints() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            Consumer<String> action = invocation.getArgument(0);
+            action.accept("id-1");
+            action.accept("id-2");
+            return null;
+        }).when(receiptService).forEachReceiptId(any());
+        when(receiptService.calculatePoints("id-1")).thenReturn(28);
+        when(receiptService.calculatePoints("id-2")).thenThrow(new IllegalArgumentException("Receipt not found"));
+
+        // When/Then
+        mockMvc.perform(get("/receipts/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                    "{\"id\":\"id-1\",\"points\":28}\n{\"id\":\"id-2\",\"error\":\"Receipt not found\"}\n"));
+    }
+
+    @Test
+    @DisplayName("Binary process should decode the receipt and answer with a binary ID")
+    void testProcessReceiptBinary() throws Exception {
+        // Given
+        String mockId = "123e4567-e89b-12d3-a456-426614174000";
+        when(receiptService.processReceipt(eq(morningReceipt), any(), any())).thenReturn(mockId);
+
+        // When/Then
+        mockMvc.perform(post("/receipts/process")
+                .contentType(ReceiptWireFormat.MEDIA_TYPE)
+                .content(ReceiptWireFormat.encodeReceipt(morningReceipt)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ReceiptWireFormat.MEDIA_TYPE))
+                .andExpect(content().bytes(ReceiptWireFormat.encodeId(mockId)));
+    }
+
+    @Test
+    @DisplayName("Binary process should reject a truncated body with a JSON error")
+    void testProcessReceiptBinaryMalformed() throws Exception {
+        // Given
+        byte[] encoded = ReceiptWireFormat.encodeReceipt(morningReceipt);
+
+        // When/Then
+        mockMvc.perform(post("/receipts/process")
+                .contentType(ReceiptWireFormat.MEDIA_TYPE)
+                .content(Arrays.copyOf(encoded, encoded.length - 1)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(startsWith("Malformed")));
+    }
+
+    @Test
+    @DisplayName("Binary batch should pass undecodable entries on as missing and answer in binary")
+    void testProcessReceiptBatchBinary() throws Exception {
+        // Given
+        BatchResult result = new BatchResult();
+        result.getIds().add("id-1");
+        result.getIds().add(null);
+        result.getErrors().add(new BatchResult.EntryError(1, "Receipt is missing or unreadable"));
+        when(receiptService.processReceipts(argThat(receipts -> receipts.size() == 2 && receipts.get(1) == null), eq(false)))
+            .thenReturn(result);
+        byte[] receipt = ReceiptWireFormat.encodeReceipt(morningReceipt);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        // Two entries: the receipt, then three bytes that are not one
+        body.write(2);
+        body.write(receipt.length);
+        body.write(receipt);
+        body.write(new byte[] { 3, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF });
+
+        // When/Then
+        mockMvc.perform(post("/receipts/process/batch")
+                .contentType(ReceiptWireFormat.MEDIA_TYPE)
+                .content(body.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(ReceiptWireFormat.encodeBatchResult(result)));
+    }
+
+    @Test
+    @DisplayName("Get points should answer in binary when the client accepts it")
+    void testGetPointsBinary() throws Exception {
+        // Given
+        String receiptId = "123e4567-e89b-12d3-a456-426614174000";
+        when(receiptService.calculatePoints(receiptId)).thenReturn(109);
+
+        // When/Then
+        mockMvc.perform(get("/receipts/{id}/points", receiptId).accept(ReceiptWireFormat.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ReceiptWireFormat.MEDIA_TYPE))
+                .andExpect(content().bytes(ReceiptWireFormat.encodePoints(109)));
+    }
+
+    @Test
+    @DisplayName("Bulk points should answer a JSON array of IDs with one line each, errors inline")
+    void testLookupPoints() throws Exception {
+        // Given
+        when(receiptService.calculatePoints(List.of("id-1", "id-2"))).thenReturn(List.of(
+            new PointsResult("id-1", 28, null), new PointsResult("id-2", null, "Receipt not found")));
+
+        // When/Then
+        mockMvc.perform(post("/receipts/points")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"id-1\", \"id-2\"]"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                    "{\"id\":\"id-1\",\"points\":28}\n{\"id\":\"id-2\",\"error\":\"Receipt not found\"}\n"));
+    }
+
+    @Test
+    @DisplayName("Bulk points should read NDJSON IDs, including the lines written by the stream endpoint")
+    void testLookupPointsNdjson() throws Exception {
+        // Given
+        when(receiptService.calculatePoints(List.of("id-1", "id-2"))).thenReturn(List.of(
+            new PointsResult("id-1", 28, null), new PointsResult("id-2", 109, null)));
+
+        // When/Then
+        mockMvc.perform(post("/receipts/points")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("\"id-1\"\n{\"id\":\"id-2\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"id\":\"id-1\",\"points\":28}\n{\"id\":\"id-2\",\"points\":109}\n"));
+    }
+
+    @Test
+    @DisplayName("Bulk points should answer the IDs read before malformed JSON, then an error line")
+    void testLookupPointsMalformed() throws Exception {
+        // Given
+        when(receiptService.calculatePoints(List.of("id-1"))).thenReturn(List.of(new PointsResult("id-1", 28, null)));
+
+        // When/Then
+        mockMvc.perform(post("/receipts/points")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"id-1\", ]"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith("{\"id\":\"id-1\",\"points\":28}\n{\"error\":\"Malformed request after 1 IDs")));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.receiptprocessor.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.store.CompactReceiptStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ReceiptLogRecoveryBenchmarkTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int RECEIPTS = Integer.getInteger("benchmark.receipts", 10_000_000);
+    private static final int SEGMENT_SIZE = 256 << 20;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Report the time to recover the store from the receipt log")
+    void testRecoveryTime() throws IOException {
+        Receipt receipt;
+        try (InputStream is = getClass().getResourceAsStream("/mockdata/morning-receipt.json")) {
+            receipt = objectMapper.readValue(is, Receipt.class);
+        }
+
+        long writeStarted = System.nanoTime();
+        try (ReceiptLog log = new ReceiptLog(directory, SEGMENT_SIZE, Duration.ofMillis(100))) {
+            PersistentReceiptStore store = new PersistentReceiptStore(new CompactReceiptStore(), log);
+            for (int i = 0; i < RECEIPTS; i++) {
+                String id = UUID.randomUUID().toString();
+                store.putIfAbsent(id, receipt);
+                store.setPoints(id, 15);
+            }
+        }
+        long writeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - writeStarted);
+
+        long recoverStarted = System.nanoTime();
+        try (ReceiptLog log = new ReceiptLog(directory, SEGMENT_SIZE, Duration.ofMillis(100))) {
+            PersistentReceiptStore store = new PersistentReceiptStore(new CompactReceiptStore(), log);
+            store.recover(store, Long.MIN_VALUE, Duration.ofHours(1));
+            long recoverMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - recoverStarted);
+
+            System.out.printf("Receipt log: wrote %d receipts in %d ms, recovered them in %d ms%n",
+                RECEIPTS, writeMillis, recoverMillis);
+            assertEquals(RECEIPTS, store.size());
+        }
+    }
+}
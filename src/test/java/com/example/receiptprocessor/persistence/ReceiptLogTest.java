@@ -0,0 +1,155 @@
+package com.example.receiptprocessor.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.store.MapReceiptStore;
+import com.example.receiptprocessor.store.ReceiptStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ReceiptLogTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private Receipt morningReceipt;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream is = getClass().getResourceAsStream("/mockdata/morning-receipt.json")) {
+            morningReceipt = objectMapper.readValue(is, Receipt.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Receipts, points and removals should survive a restart")
+    void testRecoverAfterRestart() throws IOException {
+        List<String> ids = new ArrayList<>();
+        try (ReceiptLog log = openLog()) {
+            PersistentReceiptStore store = recover(new MapReceiptStore(), log);
+            for (int i = 0; i < 100; i++) {
+                String id = UUID.randomUUID().toString();
+                store.putIfAbsent(id, morningReceipt);
+                store.setPoints(id, i);
+                ids.add(id);
+            }
+            store.remove(ids.get(0));
+        }
+
+        try (ReceiptLog log = openLog()) {
+            PersistentReceiptStore store = recover(new MapReceiptStore(), log);
+            assertEquals(99, store.size());
+            assertFalse(store.contains(ids.get(0)));
+            assertEquals(morningReceipt, store.get(ids.get(1)));
+            assertEquals(99, store.getPoints(ids.get(99)));
+        }
+    }
+
+    @Test
+    @DisplayName("Compaction should drop removed receipts and merge the sealed segments")
+    void testCompaction() throws IOException {
+        List<String> ids = new ArrayList<>();
+        try (ReceiptLog log = openLog()) {
+            MapReceiptStore memory = new MapReceiptStore();
+            PersistentReceiptStore store = recover(memory, log);
+            for (int i = 0; i < 200; i++) {
+                String id = UUID.randomUUID().toString();
+                store.putIfAbsent(id, morningReceipt);
+                ids.add(id);
+            }
+            for (int i = 0; i < 150; i++) {
+                store.remove(ids.get(i));
+            }
+            assertTrue(log.sealedCount() > 1);
+
+            log.compact(memory::contains);
+            assertEquals(1, log.sealedCount());
+        }
+
+        try (ReceiptLog log = openLog()) {
+            PersistentReceiptStore store = recover(new MapReceiptStore(), log);
+            assertEquals(50, store.size());
+            assertTrue(store.contains(ids.get(199)));
+        }
+    }
+
+    @Test
+    @DisplayName("A receipt the log cannot take should not be left in memory")
+    void testFailedAppend() throws IOException {
+        // Given: a null item, which only gets this far with validation off
+        Receipt receipt = new Receipt();
+        receipt.setRetailer("Target");
+        receipt.setItems(Arrays.asList((Item) null));
+        String id = UUID.randomUUID().toString();
+
+        try (ReceiptLog log = openLog()) {
+            PersistentReceiptStore store = recover(new MapReceiptStore(), log);
+
+            // When/Then
+            assertThrows(NullPointerException.class, () -> store.putIfAbsent(id, receipt));
+            assertFalse(store.contains(id));
+            assertTrue(store.putIfAbsent(id, morningReceipt));
+        }
+
+        try (ReceiptLog log = openLog()) {
+            PersistentReceiptStore store = recover(new MapReceiptStore(), log);
+            assertEquals(morningReceipt, store.get(id));
+        }
+    }
+
+    @Test
+    @DisplayName("A torn record at the end of a segment should end recovery of that segment")
+    void testTornRecord() throws IOException {
+        String id = UUID.randomUUID().toString();
+        try (ReceiptLog log = openLog()) {
+            recover(new MapReceiptStore(), log).putIfAbsent(id, morningReceipt);
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.sorted().findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // Overwrite a byte of the record's ID: segment header, record header, type, ID length, then the ID
+            channel.write(ByteBuffer.wrap(new byte[] { 0x7f }), 8 + 8 + 1 + 4 + 4);
+        }
+
+        try (ReceiptLog log = openLog()) {
+            assertEquals(0, recover(new MapReceiptStore(), log).size());
+        }
+    }
+
+    private ReceiptLog openLog() throws IOException {
+        return new ReceiptLog(directory, SEGMENT_SIZE, Duration.ofMillis(10));
+    }
+
+    private static PersistentReceiptStore recover(ReceiptStore memory, ReceiptLog log) throws IOException {
+        PersistentReceiptStore store = new PersistentReceiptStore(memory, log);
+        store.recover(store, Long.MIN_VALUE, Duration.ofHours(1));
+        return store;
+    }
+}
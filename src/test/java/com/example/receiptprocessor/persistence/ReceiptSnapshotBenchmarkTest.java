@@ -0,0 +1,53 @@
+package com.example.receiptprocessor.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.model.SnapshotResult;
+import com.example.receiptprocessor.store.CompactReceiptStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ReceiptSnapshotBenchmarkTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int RECEIPTS = Integer.getInteger("benchmark.receipts", 10_000_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Report the throughput of writing and restoring a snapshot")
+    void testSnapshotThroughput() throws IOException {
+        Receipt receipt;
+        try (InputStream is = getClass().getResourceAsStream("/mockdata/morning-receipt.json")) {
+            receipt = objectMapper.readValue(is, Receipt.class);
+        }
+        CompactReceiptStore store = new CompactReceiptStore();
+        for (int i = 0; i < RECEIPTS; i++) {
+            String id = UUID.randomUUID().toString();
+            store.putIfAbsent(id, receipt);
+            store.setPoints(id, 15);
+        }
+        Path file = directory.resolve("receipts.snapshot");
+
+        SnapshotResult written = ReceiptSnapshot.write(store, file);
+        CompactReceiptStore restored = new CompactReceiptStore();
+        SnapshotResult read = ReceiptSnapshot.restore(file, restored);
+
+        System.out.printf("Snapshot of %d receipts (%d MB) on %d cores: written in %d ms (%.1f MB/s), "
+                + "restored in %d ms (%.1f MB/s)%n", RECEIPTS, written.getBytes() / 1_000_000,
+            Runtime.getRuntime().availableProcessors(), written.getMillis(), written.getMegabytesPerSecond(),
+            read.getMillis(), read.getMegabytesPerSecond());
+        assertEquals(RECEIPTS, restored.size());
+    }
+}
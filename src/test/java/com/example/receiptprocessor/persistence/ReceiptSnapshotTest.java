@@ -0,0 +1,209 @@
+package com.example.receiptprocessor.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.model.SnapshotResult;
+import com.example.receiptprocessor.store.MapReceiptStore;
+import com.example.receiptprocessor.store.ReceiptStore;
+import com.example.receiptprocessor.store.RetainingReceiptStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ReceiptSnapshotTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    // Several chunks and blocks
+    private static final int RECEIPTS = 50_000;
+
+    @TempDir
+    Path directory;
+
+    private Receipt morningReceipt;
+    private Receipt simpleReceipt;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream is = getClass().getResourceAsStream("/mockdata/morning-receipt.json")) {
+            morningReceipt = objectMapper.readValue(is, Receipt.class);
+        }
+        try (InputStream is = getClass().getResourceAsStream("/mockdata/simple-receipt.json")) {
+            simpleReceipt = objectMapper.readValue(is, Receipt.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Receipts and their points should be restored from a snapshot")
+    void testRoundTrip() throws IOException {
+        // Given
+        MapReceiptStore store = new MapReceiptStore();
+        List<String> ids = fill(store);
+        Path file = directory.resolve("receipts.snapshot");
+
+        // When
+        SnapshotResult written = ReceiptSnapshot.write(store, file);
+        MapReceiptStore restored = new MapReceiptStore();
+        SnapshotResult read = ReceiptSnapshot.restore(file, restored);
+
+        // Then
+        assertEquals(RECEIPTS, written.getReceipts());
+        assertEquals(RECEIPTS, read.getReceipts());
+        assertEquals(written.getBytes(), read.getBytes());
+        assertEquals(RECEIPTS, restored.size());
+        for (String id : ids) {
+            assertEquals(store.get(id), restored.get(id));
+            assertEquals(store.getPoints(id), restored.getPoints(id));
+        }
+        assertEquals(ReceiptStore.NO_POINTS, restored.getPoints(ids.get(1)));
+    }
+
+    @Test
+    @DisplayName("Receipts already in the store should be left as they are")
+    void testRestoreSkipsTakenIds() throws IOException {
+        // Given
+        MapReceiptStore store = new MapReceiptStore();
+        List<String> ids = fill(store);
+        Path file = directory.resolve("receipts.snapshot");
+        ReceiptSnapshot.write(store, file);
+        MapReceiptStore target = new MapReceiptStore();
+        target.putIfAbsent(ids.get(0), simpleReceipt);
+
+        // When
+        SnapshotResult read = ReceiptSnapshot.restore(file, target);
+
+        // Then
+        assertEquals(RECEIPTS - 1, read.getReceipts());
+        assertEquals(simpleReceipt, target.get(ids.get(0)));
+        assertEquals(ReceiptStore.NO_POINTS, target.getPoints(ids.get(0)));
+    }
+
+    @Test
+    @DisplayName("Restored receipts should keep their stored-at time, and those past the maximum age be skipped")
+    void testRestoreKeepsStoredAt() throws IOException {
+        // Given
+        MapReceiptStore store = new MapReceiptStore();
+        List<String> ids = fill(store);
+        long now = System.currentTimeMillis();
+        long recent = now - Duration.ofMinutes(10).toMillis();
+        long old = now - Duration.ofHours(2).toMillis();
+        Set<String> expired = new HashSet<>();
+        // Every fourth receipt is past the maximum age
+        for (int i = 0; i < RECEIPTS; i += 4) {
+            expired.add(ids.get(i));
+        }
+        Path file = directory.resolve("receipts.snapshot");
+        ReceiptSnapshot.write(store, id -> expired.contains(id) ? old : recent, file);
+
+        // When
+        RetainingReceiptStore restored = new RetainingReceiptStore(new MapReceiptStore(), 0, Duration.ofHours(1));
+        SnapshotResult read = ReceiptSnapshot.restore(file, restored);
+
+        // Then
+        assertEquals(RECEIPTS * 3 / 4, read.getReceipts());
+        assertEquals(RECEIPTS * 3 / 4, restored.size());
+        assertNull(restored.get(ids.get(0)));
+        assertEquals(recent, restored.getStoredAt(ids.get(1)));
+        assertEquals(store.getPoints(ids.get(2)), restored.getPoints(ids.get(2)));
+    }
+
+    @Test
+    @DisplayName("A block with a bad checksum should be skipped and the others restored")
+    void testCorruptBlock() throws IOException {
+        // Given
+        MapReceiptStore store = new MapReceiptStore();
+        fill(store);
+        Path file = directory.resolve("receipts.snapshot");
+        ReceiptSnapshot.write(store, file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            // Inside the first block, which starts right after the 8-byte header
+            channel.write(ByteBuffer.wrap(new byte[] { 0x7f }), 100);
+        }
+
+        // When
+        MapReceiptStore restored = new MapReceiptStore();
+        long count = ReceiptSnapshot.restore(file, restored).getReceipts();
+
+        // Then
+        assertTrue(count > 0 && count < RECEIPTS, "restored " + count);
+        assertEquals(count, restored.size());
+    }
+
+    @Test
+    @DisplayName("An incomplete snapshot should be rejected before anything is restored")
+    void testTruncatedSnapshot() throws IOException {
+        // Given
+        MapReceiptStore store = new MapReceiptStore();
+        fill(store);
+        Path file = directory.resolve("receipts.snapshot");
+        ReceiptSnapshot.write(store, file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        // When/Then
+        MapReceiptStore restored = new MapReceiptStore();
+        assertThrows(IOException.class, () -> ReceiptSnapshot.restore(file, restored));
+        assertEquals(0, restored.size());
+    }
+
+    @Test
+    @DisplayName("The snapshotter should write a snapshot on shutdown and restore it on the next start")
+    void testSnapshotterRestart() {
+        // Given
+        Path file = directory.resolve("data").resolve("receipts.snapshot");
+        MapReceiptStore store = new MapReceiptStore();
+        fill(store);
+        ReceiptSnapshotter first = new ReceiptSnapshotter(file, true);
+        assertEquals(0, first.restore(new MapReceiptStore()));
+        first.setStore(store);
+
+        // When
+        first.close();
+        MapReceiptStore restored = new MapReceiptStore();
+        long count = new ReceiptSnapshotter(file, true).restore(restored);
+
+        // Then
+        assertEquals(RECEIPTS, count);
+        assertEquals(RECEIPTS, restored.size());
+    }
+
+    @Test
+    @DisplayName("A snapshot should not be taken before the store is set")
+    void testSnapshotWithoutStore() {
+        ReceiptSnapshotter snapshotter = new ReceiptSnapshotter(directory.resolve("receipts.snapshot"), false);
+        assertThrows(IllegalStateException.class, snapshotter::snapshot);
+    }
+
+    // Points for every other receipt
+    private List<String> fill(ReceiptStore store) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < RECEIPTS; i++) {
+            String id = UUID.randomUUID().toString();
+            store.putIfAbsent(id, i % 3 == 0 ? simpleReceipt : morningReceipt);
+            if (i % 2 == 0) {
+                store.setPoints(id, i);
+            }
+            ids.add(id);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.receiptprocessor.ratelimit;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ClientRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(-5 * SECOND);
+
+    @Test
+    @DisplayName("A client should get its burst at once, then tokens at the refill rate")
+    void testBurstAndRefill() {
+        // Given
+        ClientRateLimiter limiter = new ClientRateLimiter(10, 5, 100, clock::get);
+
+        // When/Then
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("pos-1"), "request " + i);
+        }
+        long wait = limiter.tryAcquire("pos-1");
+        assertEquals(SECOND / 10, wait);
+        clock.addAndGet(wait - 1);
+        assertTrue(limiter.tryAcquire("pos-1") > 0);
+        clock.addAndGet(1);
+        assertEquals(0, limiter.tryAcquire("pos-1"));
+        assertEquals(2, limiter.getRejected());
+    }
+
+    @Test
+    @DisplayName("An idle client should refill no further than its burst")
+    void testRefillCapsAtBurst() {
+        // Given
+        ClientRateLimiter limiter = new ClientRateLimiter(10, 5, 100, clock::get);
+        limiter.tryAcquire("pos-1");
+
+        // When
+        clock.addAndGet(60 * SECOND);
+
+        // Then
+        int admitted = 0;
+        while (limiter.tryAcquire("pos-1") == 0) {
+            admitted++;
+        }
+        assertEquals(5, admitted);
+    }
+
+    @Test
+    @DisplayName("One client over its limit should not affect another")
+    void testClientsAreIndependent() {
+        // Given
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 2, 100, clock::get);
+        limiter.tryAcquire("noisy");
+        limiter.tryAcquire("noisy");
+
+        // When/Then
+        assertTrue(limiter.tryAcquire("noisy") > 0);
+        assertEquals(0, limiter.tryAcquire("quiet"));
+    }
+
+    @Test
+    @DisplayName("Full buckets should be swept once there are more clients than the maximum")
+    void testSweep() {
+        // Given
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 3, clock::get);
+        limiter.tryAcquire("a");
+        limiter.tryAcquire("b");
+        limiter.tryAcquire("c");
+        // a and b refill; c is used again and stays in use
+        clock.addAndGet(SECOND);
+        limiter.tryAcquire("c");
+
+        // When
+        limiter.tryAcquire("d");
+
+        // Then
+        assertEquals(2, limiter.getClients());
+        assertTrue(limiter.tryAcquire("c") > 0);
+    }
+
+    @Test
+    @DisplayName("New clients beyond max clients should share one bucket until a sweep makes room")
+    void testOverflowBucket() {
+        // Given
+        ClientRateLimiter limiter = new ClientRateLimiter(10, 1, 3, clock::get);
+        limiter.tryAcquire("a");
+        limiter.tryAcquire("b");
+        limiter.tryAcquire("c");
+
+        // When/Then
+        assertEquals(0, limiter.tryAcquire("d"));
+        assertTrue(limiter.tryAcquire("e") > 0);
+        assertEquals(3, limiter.getClients());
+        assertEquals(2, limiter.getOverflowed());
+        // Every bucket has refilled, but the last sweep was less than a second ago
+        clock.addAndGet(SECOND / 2);
+        assertEquals(0, limiter.tryAcquire("f"));
+        assertEquals(3, limiter.getClients());
+        clock.addAndGet(SECOND / 2);
+        assertEquals(0, limiter.tryAcquire("g"));
+        assertEquals(1, limiter.getClients());
+        assertEquals(3, limiter.getOverflowed());
+    }
+
+    @Test
+    @DisplayName("Concurrent requests should be admitted exactly up to the burst")
+    void testConcurrentAcquire() throws InterruptedException {
+        // Given
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1000, 100, clock::get);
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 10_000; i++) {
+                    if (limiter.tryAcquire("pos-1") == 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(1000, admitted.get());
+        assertEquals(80_000 - 1000, limiter.getRejected());
+    }
+
+    @Test
+    @DisplayName("Non-positive settings should be rejected")
+    void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new ClientRateLimiter(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ClientRateLimiter(1, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ClientRateLimiter(Double.NaN, 1, 1));
+    }
+}
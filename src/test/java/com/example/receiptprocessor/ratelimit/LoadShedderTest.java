@@ -0,0 +1,54 @@
+package com.example.receiptprocessor.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LoadShedderTest {
+
+    private static final long THRESHOLD = 10_000_000;
+
+    @Test
+    @DisplayName("Nothing should be shed while latency is below the threshold")
+    void testBelowThreshold() {
+        // Given
+        LoadShedder shedder = new LoadShedder(THRESHOLD);
+        for (int i = 0; i < 100; i++) {
+            shedder.record(THRESHOLD / 2);
+        }
+
+        // When/Then
+        for (int i = 0; i < 10_000; i++) {
+            assertFalse(shedder.shouldShed());
+        }
+        assertEquals(0, shedder.getShed());
+    }
+
+    @Test
+    @DisplayName("The share shed should grow with the overshoot and stop once latency recovers")
+    void testShedsInProportion() {
+        // Given
+        LoadShedder shedder = new LoadShedder(THRESHOLD);
+        for (int i = 0; i < 200; i++) {
+            shedder.record(THRESHOLD * 3 / 2);
+        }
+
+        // When
+        int shed = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (shedder.shouldShed()) {
+                shed++;
+            }
+        }
+
+        // Then: about half at 1.5 times the threshold
+        assertTrue(shed > 4500 && shed < 5500, "shed " + shed);
+        for (int i = 0; i < 200; i++) {
+            shedder.record(THRESHOLD / 2);
+        }
+        assertTrue(shedder.getAverageNanos() < THRESHOLD);
+        assertFalse(shedder.shouldShed());
+    }
+}
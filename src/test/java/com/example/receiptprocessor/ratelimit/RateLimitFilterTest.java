@@ -0,0 +1,96 @@
+package com.example.receiptprocessor.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RateLimitFilterTest {
+
+    @Test
+    @DisplayName("A client over its limit should get 429 with Retry-After without reaching the controller")
+    void testTooManyRequests() throws Exception {
+        // Given
+        RateLimitFilter filter = new RateLimitFilter(new ClientRateLimiter(1, 2, 100), null, "X-Client-Id");
+
+        // When
+        MockHttpServletResponse first = perform(filter, "pos-1");
+        MockHttpServletResponse second = perform(filter, "pos-1");
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse third = new MockHttpServletResponse();
+        filter.doFilter(request("pos-1", "/receipts/process"), third, chain);
+
+        // Then
+        assertEquals(200, first.getStatus());
+        assertEquals(200, second.getStatus());
+        assertEquals(429, third.getStatus());
+        assertEquals("1", third.getHeader("Retry-After"));
+        assertEquals("{\"error\":\"Too many requests\"}", third.getContentAsString());
+        assertNull(chain.getRequest());
+        // Another client, and a request without the header, have their own buckets
+        assertEquals(200, perform(filter, "pos-2").getStatus());
+        assertEquals(200, perform(filter, null).getStatus());
+    }
+
+    @Test
+    @DisplayName("Without a client header configured, a client header sent by the caller should be ignored")
+    void testClientHeaderOptIn() throws Exception {
+        // Given
+        RateLimitFilter filter = new RateLimitFilter(new ClientRateLimiter(1, 2, 100), null, null);
+
+        // When: one address sending a new client ID every time
+        perform(filter, "pos-1");
+        perform(filter, "pos-2");
+        MockHttpServletResponse third = perform(filter, "pos-3");
+
+        // Then
+        assertEquals(429, third.getStatus());
+    }
+
+    @Test
+    @DisplayName("Requests should be shed with 503 while latency is far above the threshold")
+    void testShedding() throws Exception {
+        // Given
+        LoadShedder shedder = new LoadShedder(1_000_000);
+        for (int i = 0; i < 200; i++) {
+            shedder.record(100_000_000);
+        }
+        RateLimitFilter filter = new RateLimitFilter(new ClientRateLimiter(1_000_000, 1_000_000, 100), shedder,
+            "X-Client-Id");
+
+        // When: batches are shed but, taking long by design, do not move the average
+        int shed = 0;
+        for (int i = 0; i < 1000; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request("pos-1", "/receipts/process/batch"), response, new MockFilterChain());
+            if (response.getStatus() == 503) {
+                assertNotNull(response.getHeader("Retry-After"));
+                shed++;
+            }
+        }
+
+        // Then: 90%, give or take
+        assertTrue(shed > 800 && shed < 980, "shed " + shed);
+        assertEquals(shed, shedder.getShed());
+        assertEquals(100_000_000, shedder.getAverageNanos(), 1_000_000);
+    }
+
+    private static MockHttpServletResponse perform(RateLimitFilter filter, String client) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(client, "/receipts/process"), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String client, String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        if (client != null) {
+            request.addHeader("X-Client-Id", client);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.receiptprocessor.rules;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import static com.example.receiptprocessor.rules.GeneratedReceipts.outcome;
+import static com.example.receiptprocessor.rules.GeneratedReceipts.randomReceipt;
+import static com.example.receiptprocessor.rules.GeneratedReceipts.ruleEnginePoints;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.wire.ReceiptWireFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class FastRuleEvaluatorTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int GENERATED_RECEIPTS = 100_000;
+
+    private RuleEngine ruleEngine;
+    private FastRuleEvaluator evaluator;
+
+    @BeforeEach
+    void setUp() {
+        ruleEngine = new RuleEngine();
+        evaluator = new FastRuleEvaluator(ruleEngine);
+    }
+
+    @Test
+    @DisplayName("Evaluator should score the mock receipts like the rule engine")
+    void testMockReceipts() throws IOException {
+        for (String path : new String[] { "/mockdata/morning-receipt.json", "/mockdata/simple-receipt.json" }) {
+            try (InputStream is = getClass().getResourceAsStream(path)) {
+                Receipt receipt = objectMapper.readValue(is, Receipt.class);
+                assertEquals(outcome(() -> ruleEnginePoints(ruleEngine, receipt)), outcome(() -> evaluator.evaluate(receipt)),
+                    path);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Evaluator should match the rule engine, including failures, across generated receipts")
+    void testDifferential() {
+        Random random = new Random(20240101);
+        for (int i = 0; i < GENERATED_RECEIPTS; i++) {
+            Receipt receipt = randomReceipt(random);
+            assertEquals(outcome(() -> ruleEnginePoints(ruleEngine, receipt)), outcome(() -> evaluator.evaluate(receipt)),
+                () -> "Mismatch for " + receipt);
+        }
+    }
+
+    @Test
+    @DisplayName("Measured evaluation should match the rule engine and report the points of every rule")
+    void testMeasuredDifferential() {
+        int[] recorded = new int[1];
+        evaluator.setRuleMetrics(new RuleMetrics() {
+            @Override
+            public boolean sample() {
+                return true;
+            }
+
+            @Override
+            public void record(int rule, int points, long nanos) {
+                recorded[0] += points;
+            }
+        });
+        Random random = new Random(20240102);
+        for (int i = 0; i < GENERATED_RECEIPTS / 10; i++) {
+            Receipt receipt = randomReceipt(random);
+            recorded[0] = 0;
+            String expected = outcome(() -> ruleEnginePoints(ruleEngine, receipt));
+            assertEquals(expected, outcome(() -> evaluator.evaluate(receipt)), () -> "Mismatch for " + receipt);
+            if (!expected.contains(".")) {
+                assertEquals(expected, Integer.toString(recorded[0]), () -> "Recorded points for " + receipt);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Receipts decoded from the binary wire format should score like the receipts encoded")
+    void testWireFormatDifferential() {
+        Random random = new Random(20240103);
+        for (int i = 0; i < GENERATED_RECEIPTS / 10; i++) {
+            Receipt receipt = randomReceipt(random);
+            byte[] encoded;
+            try {
+                encoded = ReceiptWireFormat.encodeReceipt(receipt);
+            } catch (IllegalArgumentException ex) {
+                // Fields with no plain form cannot be sent in binary
+                continue;
+            }
+            Receipt decoded = ReceiptWireFormat.decodeReceipt(encoded);
+            assertEquals(outcome(() -> ruleEnginePoints(ruleEngine, receipt)), outcome(() -> evaluator.evaluate(decoded)),
+                () -> "Mismatch for " + receipt);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.receiptprocessor.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+
+/**
+ * Random receipts mixing plain and unusual field forms, and the reference scoring by {@link RuleEngine},
+ * for the differential tests of the evaluators.
+ */
+final class GeneratedReceipts {
+
+    private static final String[] RETAILERS = { "Target", "M&M Corner Market", "  Walgreens ", "Caf\u00e9 7-Eleven", "", "\u00c6\u00d8\u00c5-123", "a\tb\nc" };
+    private static final String[] DESCRIPTIONS = { "Mountain Dew 12PK", "   Klarbrunn 12-PK 12 FL OZ  ", "Dasani", "abc", " abc ", "\tab\t", "", "Gatorade", "\u00e9\u00e9\u00e9" };
+    private static final String[] ODD_AMOUNTS = { "6.5", "6", "06.49", " 6.49", "6.49 ", "1.255", "0.00", "0", "-1.00", ".50", "5.", "1e2", "NaN", "abc", "", "999999999.99", "99999999999.99" };
+    private static final String[] ODD_DATES = { "2022-02-29", "2024-02-29", "2022-13-01", "2022-1-01", "2022-04-31", "20220101", "+2022-01-01", "2022-01-0x" };
+    private static final String[] ODD_TIMES = { "14:00", "16:00", "14:00:01", "15:59:59.999", "24:00", "9:30", "13:60", "1400" };
+
+    private GeneratedReceipts() {
+    }
+
+    // The points, or the type of exception thrown
+    static String outcome(PointsSupplier supplier) {
+        try {
+            return Integer.toString(supplier.get());
+        } catch (RuntimeException ex) {
+            return ex.getClass().getName();
+        }
+    }
+
+    interface PointsSupplier {
+        int get();
+    }
+
+    // The rules applied one by one, as ReceiptService originally did
+    static int ruleEnginePoints(RuleEngine ruleEngine, Receipt receipt) {
+        Double total = Double.valueOf(receipt.getTotal());
+        int points = ruleEngine.calculateRetailerNamePoints(receipt.getRetailer());
+        points += ruleEngine.calculateRoundDollarPoints(total);
+        points += ruleEngine.calculateQuarterMultiplePoints(total);
+        points += ruleEngine.calculateItemPairPoints(receipt.getItems());
+        for (Item item : receipt.getItems()) {
+            points += ruleEngine.calculateItemDescriptionPoints(item);
+        }
+        points += ruleEngine.calculatePurchaseDatePoints(receipt.getPurchaseDate());
+        points += ruleEngine.calculatePurchaseTimePoints(receipt.getPurchaseTime());
+        return points;
+    }
+
+    static Receipt randomReceipt(Random random) {
+        return randomReceipt(random, 12);
+    }
+
+    static Receipt randomReceipt(Random random, int maxItems) {
+        Receipt receipt = new Receipt();
+        receipt.setRetailer(random.nextInt(50) == 0 ? null : pick(random, RETAILERS));
+        receipt.setPurchaseDate(random.nextInt(10) == 0 ? pick(random, ODD_DATES)
+            : String.format("%04d-%02d-%02d", 1900 + random.nextInt(200), 1 + random.nextInt(12), 1 + random.nextInt(28)));
+        receipt.setPurchaseTime(random.nextInt(10) == 0 ? pick(random, ODD_TIMES)
+            : String.format("%02d:%02d", random.nextInt(24), random.nextInt(60)));
+        receipt.setTotal(amount(random));
+        int itemCount = random.nextInt(maxItems);
+        List<Item> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            Item item = new Item();
+            item.setShortDescription(pick(random, DESCRIPTIONS));
+            item.setPrice(amount(random));
+            items.add(item);
+        }
+        receipt.setItems(random.nextInt(100) == 0 ? null : items);
+        return receipt;
+    }
+
+    private static String amount(Random random) {
+        switch (random.nextInt(10)) {
+            case 0:
+                return pick(random, ODD_AMOUNTS);
+            case 1:
+                // Whole and quarter amounts, including exact multiples of the rule 5 divisor
+                return (random.nextInt(400) * 25 / 100) + "." + String.format("%02d", random.nextInt(4) * 25);
+            default:
+                long cents = (long) (Math.pow(10, random.nextDouble() * 11));
+                return (cents / 100) + "." + String.format("%02d", cents % 100);
+        }
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
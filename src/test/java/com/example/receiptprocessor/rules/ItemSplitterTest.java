@@ -0,0 +1,114 @@
+package com.example.receiptprocessor.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.example.receiptprocessor.rules.GeneratedReceipts.outcome;
+import static com.example.receiptprocessor.rules.GeneratedReceipts.randomReceipt;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+
+class ItemSplitterTest {
+
+    private static final int LARGE_RECEIPTS = 200;
+    private static final int MAX_ITEMS = 20_000;
+
+    private ForkJoinPool pool;
+    private ItemSplitter sequential;
+    private ItemSplitter parallel;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        sequential = new ItemSplitter(0, pool);
+        // Splits every receipt, so small ones exercise the parallel path too
+        parallel = new ItemSplitter(1, pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Only receipts from the threshold up should be split; 0 should never split")
+    void testThreshold() {
+        ItemSplitter splitter = new ItemSplitter(1000, pool);
+        assertFalse(splitter.splits(999));
+        assertTrue(splitter.splits(1000));
+        assertFalse(sequential.splits(Integer.MAX_VALUE - 1));
+        assertThrows(IllegalArgumentException.class, () -> new ItemSplitter(-1, pool));
+    }
+
+    @Test
+    @DisplayName("A parallel sum should fail with the exception of the first failing item, as a loop would")
+    void testFirstFailureWins() {
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> parallel.sum(50_000, i -> {
+            if (i == 3_000 || i == 40_000) {
+                throw new IllegalStateException("item " + i);
+            }
+            return i;
+        }));
+        assertEquals("item 3000", ex.getMessage());
+        assertEquals(Integer.MAX_VALUE + 2, parallel.sum(2, i -> i == 0 ? Integer.MAX_VALUE : 2),
+            "Overflow should wrap as in the loop");
+    }
+
+    @Test
+    @DisplayName("Split and sequential scoring of large receipts should agree, including failures")
+    void testLargeReceipts() {
+        RuleEngine ruleEngine = new RuleEngine();
+        FastRuleEvaluator fastSequential = new FastRuleEvaluator(ruleEngine);
+        fastSequential.setItemSplitter(sequential);
+        FastRuleEvaluator fastParallel = new FastRuleEvaluator(ruleEngine);
+        fastParallel.setItemSplitter(parallel);
+        RulePipeline pipeline = RuleCompiler.compile(RuleDefinition.defaults());
+        RulePipeline pipelineSequential = pipeline.withItemSplitter(sequential);
+        RulePipeline pipelineParallel = pipeline.withItemSplitter(parallel);
+
+        Random random = new Random(20240103);
+        for (int i = 0; i < LARGE_RECEIPTS; i++) {
+            Receipt receipt = randomReceipt(random, MAX_ITEMS);
+            if (i % 2 == 0 && receipt.getItems() != null) {
+                // Most large generated receipts contain some unusual price; keep half of them scoreable
+                receipt.setItems(plainPrices(receipt.getItems()));
+            }
+            String expected = failure(() -> fastSequential.evaluate(receipt));
+            assertEquals(expected, failure(() -> fastParallel.evaluate(receipt)), "FastRuleEvaluator");
+            assertEquals(failure(() -> pipelineSequential.evaluate(receipt)),
+                failure(() -> pipelineParallel.evaluate(receipt)), "RulePipeline");
+            assertEquals(outcome(() -> fastSequential.evaluate(receipt)), outcome(() -> pipelineParallel.evaluate(receipt)));
+        }
+    }
+
+    // The points, or the exception type and message, so the failing item is compared too
+    private static String failure(GeneratedReceipts.PointsSupplier supplier) {
+        try {
+            return Integer.toString(supplier.get());
+        } catch (RuntimeException ex) {
+            return ex.getClass().getName() + ": " + ex.getMessage();
+        }
+    }
+
+    private static List<Item> plainPrices(List<Item> items) {
+        List<Item> plain = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Item item = new Item();
+            item.setShortDescription(items.get(i).getShortDescription());
+            item.setPrice((i % 1000) + "." + String.format("%02d", i % 100));
+            plain.add(item);
+        }
+        return plain;
+    }
+}
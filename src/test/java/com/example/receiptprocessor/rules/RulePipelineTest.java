@@ -0,0 +1,179 @@
+package com.example.receiptprocessor.rules;
+
+import static com.example.receiptprocessor.rules.GeneratedReceipts.outcome;
+import static com.example.receiptprocessor.rules.GeneratedReceipts.randomReceipt;
+import static com.example.receiptprocessor.rules.GeneratedReceipts.ruleEnginePoints;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.service.ReceiptValidator;
+
+class RulePipelineTest {
+
+    private static final int GENERATED_RECEIPTS = 100_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Default pipeline should match the rule engine, including failures, across generated receipts")
+    void testDefaultsDifferential() {
+        RuleEngine ruleEngine = new RuleEngine();
+        RulePipeline pipeline = RuleCompiler.compile(RuleDefinition.defaults());
+        Random random = new Random(20240103);
+        for (int i = 0; i < GENERATED_RECEIPTS; i++) {
+            Receipt receipt = randomReceipt(random);
+            assertEquals(outcome(() -> ruleEnginePoints(ruleEngine, receipt)), outcome(() -> pipeline.evaluate(receipt)),
+                () -> "Mismatch for " + receipt);
+        }
+    }
+
+    @Test
+    @DisplayName("Default pipeline should score a receipt the same with the fields validation decoded")
+    void testDecodedFieldsDifferential() {
+        RulePipeline pipeline = RuleCompiler.compile(RuleDefinition.defaults());
+        Random random = new Random(20240104);
+        int validated = 0;
+        for (int i = 0; i < GENERATED_RECEIPTS; i++) {
+            Receipt receipt = randomReceipt(random);
+            DecodedFields fields = ReceiptValidator.validate(receipt, 1).getFields();
+            if (fields != null) {
+                validated++;
+                assertEquals(pipeline.evaluate(receipt), pipeline.evaluate(receipt, fields),
+                    () -> "Mismatch for " + receipt);
+            }
+        }
+        assertTrue(validated > 0);
+    }
+
+    @Test
+    @DisplayName("A receipt with several invalid fields should fail on the one the rule engine reads first")
+    void testFailureOrder() {
+        RuleEngine ruleEngine = new RuleEngine();
+        RulePipeline pipeline = RuleCompiler.compile(RuleDefinition.defaults());
+        // The item's price is read before the missing date, and its description before the next item's
+        Receipt receipt = receipt("Target", null, 2);
+        receipt.getItems().get(0).setShortDescription("abc");
+        receipt.getItems().get(0).setPrice("1,25");
+        receipt.getItems().get(1).setShortDescription(null);
+
+        assertEquals(NumberFormatException.class.getName(), outcome(() -> ruleEnginePoints(ruleEngine, receipt)));
+        assertEquals(NumberFormatException.class.getName(), outcome(() -> pipeline.evaluate(receipt)));
+    }
+
+    @Test
+    @DisplayName("Promotion rules should add, or multiply, points for matching receipts only")
+    void testPromotionRules() {
+        RuleDefinition bonus = definition("retailer-bonus", 100);
+        bonus.setRetailer("target");
+        RuleDefinition promotion = definition("date-range", 7);
+        promotion.setFrom("2022-01-01");
+        promotion.setTo("2022-01-31");
+        RuleDefinition multiplier = definition("retailer-multiplier", null);
+        multiplier.setRetailer("Target");
+        multiplier.setFactor(2);
+        RulePipeline pipeline = RuleCompiler.compile(List.of(definition("item-pairs", 5), bonus, promotion, multiplier));
+
+        // (5 + 100 + 7) * 2
+        assertEquals(224, pipeline.evaluate(receipt("Target", "2022-01-31", 2)));
+        // 5 + 7, no retailer match
+        assertEquals(12, pipeline.evaluate(receipt("Walgreens", "2022-01-01", 3)));
+        // Outside the date range, and an unusual date form falls back to LocalDate
+        assertEquals(0, pipeline.evaluate(receipt("Walgreens", "+12022-02-01", 1)));
+    }
+
+    @Test
+    @DisplayName("Invalid definitions should fail to compile with the rule named")
+    void testInvalidDefinitions() {
+        RuleDefinition missing = definition("total-multiple", 25);
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+            () -> RuleCompiler.compile(List.of(definition("item-pairs", 5), missing)));
+        assertEquals("Rule 2 (total-multiple): multiple is required", ex.getMessage());
+
+        RuleDefinition fractionOfCent = definition("total-multiple", 25);
+        fractionOfCent.setMultiple(new BigDecimal("0.001"));
+        assertThrows(IllegalArgumentException.class, () -> RuleCompiler.compile(List.of(fractionOfCent)));
+
+        RuleDefinition window = definition("time-window", 10);
+        window.setAfter("16:00");
+        window.setBefore("14:00");
+        assertThrows(IllegalArgumentException.class, () -> RuleCompiler.compile(List.of(window)));
+
+        assertThrows(IllegalArgumentException.class, () -> RuleCompiler.compile(List.of(definition("unknown", 1))));
+    }
+
+    @Test
+    @DisplayName("Rules file should be loaded, reloaded on change and kept when the change is invalid")
+    void testRuleFileReload() throws IOException {
+        Path file = directory.resolve("rules.yaml");
+        Files.writeString(file, "- type: item-pairs\n  points: 5\n");
+        AtomicReference<RulePipeline> current = new AtomicReference<>(RuleFileWatcher.load(file));
+        Receipt receipt = receipt("Target", "2022-01-01", 4);
+        assertEquals(10, current.get().evaluate(receipt));
+
+        try (RuleFileWatcher watcher = new RuleFileWatcher(file, Duration.ofHours(1), current::set)) {
+            Files.writeString(file, "- type: item-pairs\n  points: 5\n- type: retailer-bonus\n  retailer: Target\n  points: 1\n");
+            touch(file, 1);
+            watcher.checkForChanges();
+            assertEquals(11, current.get().evaluate(receipt));
+
+            RulePipeline beforeInvalid = current.get();
+            Files.writeString(file, "- type: item-pairs\n");
+            touch(file, 2);
+            watcher.checkForChanges();
+            assertTrue(current.get() == beforeInvalid);
+        }
+
+        Path json = directory.resolve("rules.json");
+        Files.writeString(json, "[{\"type\": \"item-description-length\", \"multiple\": 3, \"price-multiplier\": 0.2}]");
+        // "Item 0" and "Item 1" are 6 characters: ceil(1.25 * 0.2) * 4
+        assertEquals(4, RuleFileWatcher.load(json).evaluate(receipt));
+    }
+
+    // Moves the modification time forward, since rewrites within one clock tick may keep the same time
+    private static void touch(Path file, int seconds) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + seconds * 1000L));
+    }
+
+    private static RuleDefinition definition(String type, Integer points) {
+        RuleDefinition definition = new RuleDefinition();
+        definition.setType(type);
+        definition.setPoints(points);
+        return definition;
+    }
+
+    private static Receipt receipt(String retailer, String date, int itemCount) {
+        Receipt receipt = new Receipt();
+        receipt.setRetailer(retailer);
+        receipt.setPurchaseDate(date);
+        receipt.setPurchaseTime("10:00");
+        receipt.setTotal("1.00");
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            Item item = new Item();
+            item.setShortDescription("Item " + i);
+            item.setPrice("1.25");
+            items.add(item);
+        }
+        receipt.setItems(items);
+        return receipt;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.receiptprocessor.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.example.receiptprocessor.config.ReceiptProperties;
+import com.example.receiptprocessor.logging.AccessLog;
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.FastRuleEvaluator;
+import com.example.receiptprocessor.rules.RuleEngine;
+import com.example.receiptprocessor.rules.RuleTrace;
+import com.example.receiptprocessor.store.IdempotencyIndex;
+import com.example.receiptprocessor.store.MapReceiptStore;
+import com.example.receiptprocessor.store.TimeOrderedIdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ReceiptLoggingAllocationBenchmarkTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int RECEIPTS = 200_000;
+
+    private final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private ReceiptService receiptService;
+    private Receipt receipt;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReceiptProperties properties = new ReceiptProperties();
+        properties.getPoints().setMode(PointsMode.RECOMPUTE);
+        receiptService = new ReceiptService(new FastRuleEvaluator(new RuleEngine()), new MapReceiptStore(), properties,
+            new IdempotencyIndex(false, false), new TimeOrderedIdGenerator(0));
+        try (InputStream is = getClass().getResourceAsStream("/mockdata/morning-receipt.json")) {
+            receipt = objectMapper.readValue(is, Receipt.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Report bytes allocated per request with and without rule tracing")
+    void testAllocationPerRequest() {
+        String id = receiptService.processReceipt(receipt);
+        // Warm up both paths
+        measure(id, false, RECEIPTS / 10);
+        measure(id, true, RECEIPTS / 10);
+
+        long untraced = measure(id, false, RECEIPTS);
+        long traced = measure(id, true, RECEIPTS);
+        long accessLog = measureAccessLog(RECEIPTS);
+        System.out.printf("Bytes allocated per points request: untraced=%d, traced=%d; per access log entry=%d%n",
+            untraced, traced, accessLog);
+
+        // Tracing only costs anything when the rules logger is at DEBUG
+        assertTrue(untraced <= traced);
+    }
+
+    private long measure(String id, boolean trace, int requests) {
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < requests; i++) {
+            if (trace) {
+                RuleTrace.start();
+            }
+            try {
+                receiptService.calculatePoints(id);
+            } finally {
+                RuleTrace.stop();
+            }
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / requests;
+    }
+
+    private long measureAccessLog(int requests) {
+        long threadId = Thread.currentThread().threadId();
+        try (AccessLog accessLog = new AccessLog(requests, 512)) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < requests; i++) {
+                accessLog.record(0L, "GET", "/receipts/points", 200, 1_000L, "127.0.0.1");
+            }
+            // Only what the request thread pays; formatting happens on the writer thread
+            return (threads.getThreadAllocatedBytes(threadId) - before) / requests;
+        }
+    }
+}
@@ -2,14 +2,20 @@ package com.example.receiptprocessor.service;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Field;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,23 +23,39 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.example.receiptprocessor.config.ReceiptProperties;
+import com.example.receiptprocessor.model.BatchResult;
+import com.example.receiptprocessor.model.PointsResult;
 import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.rules.FastRuleEvaluator;
 import com.example.receiptprocessor.rules.RuleEngine;
+import com.example.receiptprocessor.store.IdempotencyIndex;
+import com.example.receiptprocessor.store.IndexedReceiptStore;
+import com.example.receiptprocessor.store.MapReceiptStore;
+import com.example.receiptprocessor.store.ReceiptStore;
+import com.example.receiptprocessor.store.TimeOrderedIdGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 @ExtendWith(MockitoExtension.class)
 class ReceiptServiceTest {
 
     @Mock
-    private RuleEngine ruleEngine;
+    private FastRuleEvaluator ruleEvaluator;
 
+    private ReceiptProperties properties;
+    private ReceiptStore receiptStore;
+    private IdempotencyIndex idempotencyIndex;
     private ReceiptService receiptService;
     private Receipt morningReceipt;
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
     @BeforeEach
     void setUp() throws IOException {
-        receiptService = new ReceiptService(ruleEngine);
+        properties = new ReceiptProperties();
+        idempotencyIndex = new IdempotencyIndex(false, true);
+        receiptStore = new IndexedReceiptStore(new MapReceiptStore(), idempotencyIndex);
+        receiptService = new ReceiptService(ruleEvaluator, receiptStore, properties, idempotencyIndex,
+            new TimeOrderedIdGenerator(0));
         morningReceipt = loadReceiptFromJson("/mockdata/morning-receipt.json");
     }
 
@@ -56,18 +78,12 @@ class ReceiptServiceTest {
 
     @Test
     @DisplayName("Process receipt should handle UUID collisions")
-    void testProcessReceiptWithCollision() throws Exception {
+    void testProcessReceiptWithCollision() {
         // Given
         String existingId = "550e8400-e29b-41d4-a716-446655440000";
         
-        // Use reflection to access the private receipts map
-        Field receiptsField = ReceiptService.class.getDeclaredField("receipts");
-        receiptsField.setAccessible(true);
-        @SuppressWarnings("unchecked")
-        Map<String, Receipt> receipts = (Map<String, Receipt>) receiptsField.get(receiptService);
-        
         // Add a receipt with known UUID to force a collision
-        receipts.put(existingId, morningReceipt);
+        receiptStore.putIfAbsent(existingId, morningReceipt);
         
         // When
         String newId = receiptService.processReceipt(morningReceipt);
@@ -76,12 +92,15 @@ class ReceiptServiceTest {
         assertNotNull(newId);
         assertNotEquals(existingId, newId);
         assertTrue(newId.matches("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}"));
-        assertEquals(2, receipts.size());
+        assertEquals(2, receiptStore.size());
     }
 
     @Test
     @DisplayName("Calculate points should sum all rule points for morning receipt")
     void testCalculatePoints() {
+        RuleEngine ruleEngine = new RuleEngine();
+        receiptService = new ReceiptService(new FastRuleEvaluator(ruleEngine), receiptStore, properties, idempotencyIndex,
+            new TimeOrderedIdGenerator(0));
         String id = receiptService.processReceipt(morningReceipt);
 
         int points = receiptService.calculatePoints(id);
@@ -99,6 +118,210 @@ class ReceiptServiceTest {
         assertEquals(expectedPoints, points);
     }
 
+    @Test
+    @DisplayName("Lazy mode should evaluate the rules once and serve later reads from the stored result")
+    void testCalculatePointsLazyMemoizes() {
+        properties.getPoints().setMode(PointsMode.LAZY);
+        String id = receiptService.processReceipt(morningReceipt);
+        verify(ruleEvaluator, times(0)).evaluate(eq(morningReceipt), any());
+
+        assertEquals(receiptService.calculatePoints(id), receiptService.calculatePoints(id));
+        verify(ruleEvaluator, times(1)).evaluate(eq(morningReceipt), any());
+    }
+
+    @Test
+    @DisplayName("Eager mode should evaluate the rules at ingest")
+    void testProcessReceiptEagerComputesPoints() {
+        properties.getPoints().setMode(PointsMode.EAGER);
+        String id = receiptService.processReceipt(morningReceipt);
+        verify(ruleEvaluator, times(1)).evaluate(eq(morningReceipt), any());
+
+        receiptService.calculatePoints(id);
+        verify(ruleEvaluator, times(1)).evaluate(eq(morningReceipt), any());
+    }
+
+    @Test
+    @DisplayName("Recompute mode should evaluate the rules on every read")
+    void testCalculatePointsRecompute() {
+        properties.getPoints().setMode(PointsMode.RECOMPUTE);
+        String id = receiptService.processReceipt(morningReceipt);
+
+        receiptService.calculatePoints(id);
+        receiptService.calculatePoints(id);
+        verify(ruleEvaluator, times(2)).evaluate(eq(morningReceipt), any());
+    }
+
+    @Test
+    @DisplayName("Batch process should store receipts in order and report missing entries")
+    void testProcessReceipts() {
+        BatchResult result = receiptService.processReceipts(Arrays.asList(morningReceipt, null, morningReceipt), true);
+
+        assertEquals(3, result.getIds().size());
+        assertNull(result.getIds().get(1));
+        assertEquals(1, result.getErrors().size());
+        assertEquals(1, result.getErrors().get(0).getIndex());
+        assertEquals(2, receiptStore.size());
+        // Points were computed in the same pass
+        assertEquals(0, receiptStore.getPoints(result.getIds().get(0)));
+    }
+
+    @Test
+    @DisplayName("Batch process with points should reject receipts whose points cannot be calculated")
+    void testProcessReceiptsRejectsInvalid() {
+        when(ruleEvaluator.evaluate(any(Receipt.class), any())).thenThrow(new NumberFormatException("not-a-number"));
+        BatchResult result = receiptService.processReceipts(Arrays.asList(morningReceipt), true);
+
+        assertNull(result.getIds().get(0));
+        assertEquals(1, result.getErrors().size());
+        assertEquals(0, receiptStore.size());
+    }
+
+    @Test
+    @DisplayName("A retry with the same idempotency key should get the first ID and store nothing")
+    void testProcessReceiptIdempotencyKey() {
+        String id = receiptService.processReceipt(morningReceipt, "retry-1");
+
+        assertEquals(id, receiptService.processReceipt(morningReceipt, "retry-1"));
+        assertNotEquals(id, receiptService.processReceipt(morningReceipt, "retry-2"));
+        assertEquals(2, receiptStore.size());
+        assertEquals(1, idempotencyIndex.getDuplicates());
+    }
+
+    @Test
+    @DisplayName("The same idempotency key from two clients should be two keys")
+    void testIdempotencyKeyPerClient() {
+        String id = receiptService.processReceipt(morningReceipt, "10.0.0.1", "retry-1");
+
+        assertNotEquals(id, receiptService.processReceipt(morningReceipt, "10.0.0.2", "retry-1"));
+        assertEquals(id, receiptService.processReceipt(morningReceipt, "10.0.0.1", "retry-1"));
+        assertEquals(2, receiptStore.size());
+    }
+
+    @Test
+    @DisplayName("An idempotency key used again with a different receipt should be rejected")
+    void testIdempotencyKeyWithDifferentReceipt() throws IOException {
+        receiptService.processReceipt(morningReceipt, "retry-1");
+        Receipt other = loadReceiptFromJson("/mockdata/simple-receipt.json");
+
+        assertThrows(IllegalArgumentException.class, () -> receiptService.processReceipt(other, "retry-1"));
+        assertEquals(1, receiptStore.size());
+        assertEquals(0, idempotencyIndex.getDuplicates());
+    }
+
+    @Test
+    @DisplayName("With content hashing an identical receipt should get the first ID, whatever the amount format")
+    void testProcessReceiptContentHash() throws IOException {
+        idempotencyIndex = new IdempotencyIndex(true, true);
+        receiptStore = new IndexedReceiptStore(new MapReceiptStore(), idempotencyIndex);
+        receiptService = new ReceiptService(ruleEvaluator, receiptStore, properties, idempotencyIndex,
+            new TimeOrderedIdGenerator(0));
+        String id = receiptService.processReceipt(morningReceipt);
+
+        Receipt copy = loadReceiptFromJson("/mockdata/morning-receipt.json");
+        // "1.40" in the mock data
+        copy.getItems().get(1).setPrice("1.4");
+        assertEquals(id, receiptService.processReceipt(copy));
+        BatchResult result = receiptService.processReceipts(Arrays.asList(copy), false);
+        assertEquals(id, result.getIds().get(0));
+
+        copy.setRetailer(copy.getRetailer() + " ");
+        assertNotEquals(id, receiptService.processReceipt(copy));
+        assertEquals(2, receiptStore.size());
+    }
+
+    @Test
+    @DisplayName("A removed receipt should free its content and idempotency keys")
+    void testRemovedReceiptFreesKeys() {
+        idempotencyIndex = new IdempotencyIndex(true, true);
+        receiptStore = new IndexedReceiptStore(new MapReceiptStore(), idempotencyIndex);
+        receiptService = new ReceiptService(ruleEvaluator, receiptStore, properties, idempotencyIndex,
+            new TimeOrderedIdGenerator(0));
+        String id = receiptService.processReceipt(morningReceipt, "retry-1");
+        // A second key for the same receipt, found by its content
+        assertEquals(id, receiptService.processReceipt(morningReceipt, "retry-2"));
+        assertEquals(3, idempotencyIndex.size());
+
+        receiptStore.remove(id);
+        assertEquals(0, idempotencyIndex.size());
+        assertNotEquals(id, receiptService.processReceipt(morningReceipt, "retry-2"));
+        receiptStore.remove(receiptService.processReceipt(morningReceipt, "retry-2"));
+        String newId = receiptService.processReceipt(morningReceipt, "retry-1");
+        assertNotEquals(id, newId);
+        assertEquals(newId, receiptService.processReceipt(morningReceipt));
+    }
+
+    @Test
+    @DisplayName("An invalid receipt should be rejected with its field errors and not stored")
+    void testProcessReceiptRejectsInvalid() {
+        morningReceipt.setTotal("2.6.5");
+        morningReceipt.setItems(null);
+
+        ReceiptValidationException exception = assertThrows(ReceiptValidationException.class,
+            () -> receiptService.processReceipt(morningReceipt, "retry-1"));
+        assertEquals(2, exception.getFieldErrors().size());
+        assertEquals("total", exception.getFieldErrors().get(0).getField());
+        assertEquals("items", exception.getFieldErrors().get(1).getField());
+        assertEquals(0, receiptStore.size());
+        assertEquals(0, idempotencyIndex.size());
+    }
+
+    @Test
+    @DisplayName("Batch process should reject invalid receipts by index and store the rest")
+    void testProcessReceiptsRejectsInvalidFields() throws IOException {
+        Receipt invalid = loadReceiptFromJson("/mockdata/morning-receipt.json");
+        invalid.setPurchaseDate("2022-13-01");
+        BatchResult result = receiptService.processReceipts(Arrays.asList(morningReceipt, invalid), false);
+
+        assertNotNull(result.getIds().get(0));
+        assertNull(result.getIds().get(1));
+        assertEquals(1, result.getErrors().get(0).getIndex());
+        assertTrue(result.getErrors().get(0).getError().startsWith("Invalid receipt: purchaseDate"));
+        assertEquals(1, receiptStore.size());
+    }
+
+    @Test
+    @DisplayName("With validation off an invalid receipt should be stored as before")
+    void testValidationDisabled() {
+        properties.getValidation().setEnabled(false);
+        morningReceipt.setTotal("2.6.5");
+
+        assertNotNull(receiptService.processReceipt(morningReceipt));
+        assertEquals(1, receiptStore.size());
+    }
+
+    @Test
+    @DisplayName("Bulk points should read stored points, calculate the rest and report unknown IDs inline")
+    void testCalculatePointsBulk() throws IOException {
+        when(ruleEvaluator.evaluate(any(Receipt.class), any())).thenReturn(15);
+        String scored = receiptService.processReceipt(morningReceipt);
+        receiptStore.setPoints(scored, 28);
+        String unscored = receiptService.processReceipt(loadReceiptFromJson("/mockdata/simple-receipt.json"));
+
+        List<PointsResult> results = receiptService.calculatePoints(Arrays.asList(scored, "unknown", unscored, null));
+
+        assertEquals(new PointsResult(scored, 28, null), results.get(0));
+        assertEquals(new PointsResult("unknown", null, "Receipt not found"), results.get(1));
+        assertEquals(new PointsResult(unscored, 15, null), results.get(2));
+        assertEquals(new PointsResult(null, null, "Receipt ID is missing"), results.get(3));
+        // Calculated points are stored like those of a single lookup
+        assertEquals(15, receiptStore.getPoints(unscored));
+        verify(ruleEvaluator, times(1)).evaluate(any(Receipt.class), any());
+    }
+
+    @Test
+    @DisplayName("Bulk points should report a receipt that cannot be scored without failing the others")
+    void testCalculatePointsBulkScoringFailure() throws IOException {
+        when(ruleEvaluator.evaluate(any(Receipt.class), any())).thenReturn(15)
+            .thenThrow(new NumberFormatException("bad total"));
+        String first = receiptService.processReceipt(morningReceipt);
+        String second = receiptService.processReceipt(loadReceiptFromJson("/mockdata/simple-receipt.json"));
+
+        List<PointsResult> results = receiptService.calculatePoints(List.of(first, second));
+
+        assertEquals(1, results.stream().filter(result -> result.getPoints() != null).count());
+        assertEquals(1, results.stream().filter(result -> "bad total".equals(result.getError())).count());
+    }
+
     @Test
     @DisplayName("Calculate points with invalid ID should throw exception")
     void calculatePointsWithInvalidId() {
@@ -0,0 +1,110 @@
+package com.example.receiptprocessor.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+
+class ReceiptValidatorTest {
+
+    @Test
+    @DisplayName("A valid receipt should pass with its fields decoded")
+    void testValidReceipt() {
+        // When
+        ReceiptValidator.Result result = ReceiptValidator.validate(receipt("6.5", item("Dasani", "1.40")), 20);
+
+        // Then
+        assertTrue(result.isValid());
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(650, result.getFields().getTotalCents());
+        assertEquals(20220102, result.getFields().getPurchaseDate());
+        assertEquals(8 * 60 + 13, result.getFields().getMinuteOfDay());
+        assertEquals(140, result.getFields().getPriceCents(0));
+    }
+
+    @Test
+    @DisplayName("Every invalid field should be reported with its path")
+    void testFieldErrors() {
+        // Given
+        Receipt receipt = receipt("abc", item("Dasani", "1.4.0"), null, item(null, null));
+        receipt.setRetailer(null);
+        receipt.setPurchaseDate("2022-02-30");
+        receipt.setPurchaseTime("8:13");
+
+        // When
+        ReceiptValidator.Result result = ReceiptValidator.validate(receipt, 20);
+
+        // Then
+        assertFalse(result.isValid());
+        assertEquals(List.of("retailer", "purchaseDate", "purchaseTime", "total", "items[0].price", "items[1]",
+            "items[2].shortDescription", "items[2].price"), fields(result));
+    }
+
+    @Test
+    @DisplayName("Missing fields should be reported as required")
+    void testMissingFields() {
+        // When
+        ReceiptValidator.Result result = ReceiptValidator.validate(new Receipt(), 20);
+
+        // Then
+        assertEquals(List.of("retailer", "purchaseDate", "purchaseTime", "total", "items"), fields(result));
+        assertTrue(result.getErrors().stream().allMatch(error -> error.getError().equals("is required")));
+        assertEquals(List.of("receipt"), fields(ReceiptValidator.validate(null, 20)));
+    }
+
+    @Test
+    @DisplayName("Forms the rules would only read the slow way, or not at all, should be rejected")
+    void testUnusualForms() {
+        for (String amount : new String[] { " 6.49", "6.49 ", "1.255", "-1.00", ".50", "5.", "1e2", "NaN", "" }) {
+            assertFalse(ReceiptValidator.validate(receipt(amount), 20).isValid(), amount);
+        }
+        Receipt seconds = receipt("6.49");
+        seconds.setPurchaseTime("14:00:01");
+        assertEquals(List.of("purchaseTime"), fields(ReceiptValidator.validate(seconds, 20)));
+    }
+
+    @Test
+    @DisplayName("Collection should stop at the maximum number of errors")
+    void testMaxErrors() {
+        // Given
+        Item[] items = new Item[10_000];
+        Arrays.fill(items, item("Dasani", "bad"));
+
+        // When
+        ReceiptValidator.Result result = ReceiptValidator.validate(receipt("6.49", items), 5);
+
+        // Then
+        assertEquals(5, result.getErrors().size());
+        assertEquals("items[4].price", result.getErrors().get(4).getField());
+        assertTrue(result.toException().getMessage().startsWith("Invalid receipt: items[0].price must be"));
+    }
+
+    private static List<String> fields(ReceiptValidator.Result result) {
+        return result.getErrors().stream().map(ReceiptValidationException.FieldError::getField).toList();
+    }
+
+    private static Receipt receipt(String total, Item... items) {
+        Receipt receipt = new Receipt();
+        receipt.setRetailer("Walgreens");
+        receipt.setPurchaseDate("2022-01-02");
+        receipt.setPurchaseTime("08:13");
+        receipt.setTotal(total);
+        receipt.setItems(new ArrayList<>(Arrays.asList(items)));
+        return receipt;
+    }
+
+    private static Item item(String description, String price) {
+        Item item = new Item();
+        item.setShortDescription(description);
+        item.setPrice(price);
+        return item;
+    }
+}
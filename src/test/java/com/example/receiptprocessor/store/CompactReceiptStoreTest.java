@@ -0,0 +1,98 @@
+package com.example.receiptprocessor.store;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.receiptprocessor.model.Receipt;
+import com.example.receiptprocessor.service.ReceiptValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class CompactReceiptStoreTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private CompactReceiptStore store;
+    private Receipt morningReceipt;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new CompactReceiptStore();
+        morningReceipt = loadReceiptFromJson("/mockdata/morning-receipt.json");
+    }
+
+    private Receipt loadReceiptFromJson(String jsonPath) throws IOException {
+        try (InputStream is = getClass().getResourceAsStream(jsonPath)) {
+            return objectMapper.readValue(is, Receipt.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Stored receipt should be rebuilt with identical fields")
+    void testRoundTrip() {
+        String id = UUID.randomUUID().toString();
+        assertTrue(store.putIfAbsent(id, morningReceipt));
+
+        assertEquals(morningReceipt, store.get(id));
+    }
+
+    @Test
+    @DisplayName("Receipts with non-canonical amounts should be kept verbatim")
+    void testNonCanonicalAmountKeptVerbatim() {
+        morningReceipt.setTotal("2.6500");
+        String id = UUID.randomUUID().toString();
+        store.putIfAbsent(id, morningReceipt);
+
+        assertSame(morningReceipt, store.get(id));
+    }
+
+    @Test
+    @DisplayName("A receipt stored with its decoded fields should be rebuilt the same, or kept verbatim")
+    void testDecodedFields() {
+        String id = UUID.randomUUID().toString();
+        assertTrue(store.putIfAbsent(id, morningReceipt, ReceiptValidator.validate(morningReceipt, 1).getFields()));
+        assertEquals(morningReceipt, store.get(id));
+
+        morningReceipt.setTotal("2.6");
+        String verbatimId = UUID.randomUUID().toString();
+        store.putIfAbsent(verbatimId, morningReceipt, ReceiptValidator.validate(morningReceipt, 1).getFields());
+        assertSame(morningReceipt, store.get(verbatimId));
+    }
+
+    @Test
+    @DisplayName("Put should refuse an ID that is already taken")
+    void testPutIfAbsentCollision() {
+        String id = UUID.randomUUID().toString();
+        assertTrue(store.putIfAbsent(id, morningReceipt));
+        assertFalse(store.putIfAbsent(id, morningReceipt));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    @DisplayName("Points should be stored next to the receipt")
+    void testPoints() {
+        String id = UUID.randomUUID().toString();
+        store.putIfAbsent(id, morningReceipt);
+        assertEquals(ReceiptStore.NO_POINTS, store.getPoints(id));
+
+        store.setPoints(id, 15);
+        assertEquals(15, store.getPoints(id));
+    }
+
+    @Test
+    @DisplayName("Malformed or unknown IDs should be a miss")
+    void testUnknownIds() {
+        assertNull(store.get("invalid-id"));
+        assertNull(store.get(UUID.randomUUID().toString()));
+        assertEquals(ReceiptStore.NO_POINTS, store.getPoints("invalid-id"));
+        assertFalse(store.remove("invalid-id"));
+    }
+}
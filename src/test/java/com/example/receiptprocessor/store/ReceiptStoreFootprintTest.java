@@ -0,0 +1,77 @@
+package com.example.receiptprocessor.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ReceiptStoreFootprintTest {
+
+    private static final int RECEIPTS = 100_000;
+    private static final String[] RETAILERS = { "Target", "Walgreens", "M&M Corner Market", "Costco" };
+    private static final String[] DESCRIPTIONS = { "Mountain Dew 12PK", "Pepsi - 12-oz", "Dasani", "Gatorade", "Emils Cheese Pizza" };
+
+    @Test
+    @DisplayName("Report bytes per receipt for the map and compact stores")
+    void testBytesPerReceipt() {
+        long mapBytes = measure(MapReceiptStore::new);
+        long compactBytes = measure(CompactReceiptStore::new);
+
+        System.out.printf("Bytes per receipt: map=%d, compact=%d%n", mapBytes / RECEIPTS, compactBytes / RECEIPTS);
+        assertTrue(compactBytes < mapBytes, "Compact store should use less heap than the map store");
+    }
+
+    private long measure(Supplier<ReceiptStore> factory) {
+        Random random = new Random(42);
+        long before = usedHeap();
+        ReceiptStore store = factory.get();
+        for (int i = 0; i < RECEIPTS; i++) {
+            store.putIfAbsent(UUID.randomUUID().toString(), randomReceipt(random));
+        }
+        long after = usedHeap();
+        // Keep the store reachable until it has been measured
+        assertTrue(store.size() == RECEIPTS);
+        return after - before;
+    }
+
+    // Copies every string, as JSON binding would, so the map store does not get sharing for free
+    private static Receipt randomReceipt(Random random) {
+        int itemCount = 1 + random.nextInt(5);
+        List<Item> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            Item item = new Item();
+            item.setShortDescription(new String(DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)]));
+            item.setPrice(cents(100 + random.nextInt(2000)));
+            items.add(item);
+        }
+        Receipt receipt = new Receipt();
+        receipt.setRetailer(new String(RETAILERS[random.nextInt(RETAILERS.length)]));
+        receipt.setPurchaseDate(String.format("2022-%02d-%02d", 1 + random.nextInt(12), 1 + random.nextInt(28)));
+        receipt.setPurchaseTime(String.format("%02d:%02d", random.nextInt(24), random.nextInt(60)));
+        receipt.setItems(items);
+        receipt.setTotal(cents(100 + random.nextInt(10000)));
+        return receipt;
+    }
+
+    private static String cents(int cents) {
+        return String.format("%d.%02d", cents / 100, cents % 100);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
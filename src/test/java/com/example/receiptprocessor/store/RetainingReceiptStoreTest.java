@@ -0,0 +1,113 @@
+package com.example.receiptprocessor.store;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.receiptprocessor.model.Receipt;
+
+class RetainingReceiptStoreTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private Receipt receipt;
+
+    @BeforeEach
+    void setUp() {
+        receipt = new Receipt();
+        receipt.setRetailer("Target");
+    }
+
+    @Test
+    @DisplayName("Oldest receipts should be evicted once the entry limit is exceeded")
+    void testMaxEntries() {
+        RetainingReceiptStore store = new RetainingReceiptStore(new MapReceiptStore(), 2, null, clock::get);
+        String first = UUID.randomUUID().toString();
+        store.putIfAbsent(first, receipt);
+        store.putIfAbsent(UUID.randomUUID().toString(), receipt);
+        String third = UUID.randomUUID().toString();
+        store.putIfAbsent(third, receipt);
+
+        assertEquals(2, store.size());
+        assertNull(store.get(first));
+        assertNotNull(store.get(third));
+        assertEquals(1, store.getEvictions());
+    }
+
+    @Test
+    @DisplayName("Receipts and their points should be evicted once older than the maximum age")
+    void testMaxAge() {
+        RetainingReceiptStore store = new RetainingReceiptStore(new MapReceiptStore(), 0, Duration.ofSeconds(10), clock::get);
+        String id = UUID.randomUUID().toString();
+        store.putIfAbsent(id, receipt);
+        store.setPoints(id, 42);
+        assertEquals(42, store.getPoints(id));
+
+        clock.set(Duration.ofSeconds(11).toMillis());
+
+        assertNull(store.get(id));
+        assertEquals(ReceiptStore.NO_POINTS, store.getPoints(id));
+        assertEquals(1, store.getEvictions());
+    }
+
+    @Test
+    @DisplayName("A receipt older than the maximum age should be missing before it is evicted")
+    void testMaxAgeOnRead() {
+        RetainingReceiptStore store = new RetainingReceiptStore(new MapReceiptStore(), 0, Duration.ofSeconds(10), clock::get);
+        String last = null;
+        for (int i = 0; i < 10; i++) {
+            last = UUID.randomUUID().toString();
+            store.putIfAbsent(last, receipt);
+        }
+        String fresh = UUID.randomUUID().toString();
+        clock.set(Duration.ofSeconds(5).toMillis());
+        store.putIfAbsent(fresh, receipt);
+
+        clock.set(Duration.ofSeconds(11).toMillis());
+
+        assertFalse(store.contains(last));
+        assertEquals(ReceiptStore.NO_POINTS, store.getPoints(last));
+        assertNull(store.get(last));
+        assertTrue(store.contains(fresh));
+        // Evicted a few at a time as requests come in, not all at once
+        assertEquals(1, store.getEvictions());
+        assertEquals(10, store.size());
+    }
+
+    @Test
+    @DisplayName("A receipt stored with its original time should age from that time")
+    void testStoredAt() {
+        RetainingReceiptStore store = new RetainingReceiptStore(new MapReceiptStore(), 0, Duration.ofSeconds(10), clock::get);
+        clock.set(Duration.ofSeconds(20).toMillis());
+        String recent = UUID.randomUUID().toString();
+
+        assertFalse(store.putIfAbsent(UUID.randomUUID().toString(), receipt, Duration.ofSeconds(5).toMillis()));
+        assertTrue(store.putIfAbsent(recent, receipt, Duration.ofSeconds(15).toMillis()));
+        assertTrue(store.contains(recent));
+        clock.set(Duration.ofSeconds(26).toMillis());
+        assertFalse(store.contains(recent));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    @DisplayName("Hits and misses should be counted once per lookup")
+    void testHitMissCounters() {
+        RetainingReceiptStore store = new RetainingReceiptStore(new MapReceiptStore(), 10, null, clock::get);
+        String id = UUID.randomUUID().toString();
+        store.putIfAbsent(id, receipt);
+
+        store.get(id);
+        store.get("invalid-id");
+
+        assertEquals(1, store.getHits());
+        assertEquals(1, store.getMisses());
+    }
+}
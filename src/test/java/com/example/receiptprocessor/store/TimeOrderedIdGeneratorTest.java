@@ -0,0 +1,83 @@
+package com.example.receiptprocessor.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TimeOrderedIdGeneratorTest {
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+
+    @Test
+    @DisplayName("IDs should be canonical version 7 UUIDs that the compact store can pack")
+    void testFormat() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(42, clock::get);
+        String id = generator.nextId();
+
+        UUID uuid = UUID.fromString(id);
+        assertEquals(id, uuid.toString());
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertEquals(clock.get(), uuid.getMostSignificantBits() >>> 16);
+        assertNotNull(UuidKey.parse(id));
+        assertEquals(id, UuidKey.parse(id).toString());
+    }
+
+    @Test
+    @DisplayName("IDs of a thread should increase with the clock and within a millisecond")
+    void testOrdering() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(0, clock::get);
+        String previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 100 == 0) {
+                clock.addAndGet(i % 200 == 0 ? 1 : -5);
+            }
+            String id = generator.nextId();
+            assertTrue(id.compareTo(previous) > 0, () -> id + " after " + previous);
+        }
+    }
+
+    @Test
+    @DisplayName("IDs should not repeat across threads sharing a millisecond")
+    void testUniqueAcrossThreads() throws Exception {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(0, clock::get);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        ids.add(generator.nextId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(8 * 50_000, ids.size());
+    }
+
+    @Test
+    @DisplayName("Node should be limited to 16 bits")
+    void testInvalidNode() {
+        assertThrows(IllegalArgumentException.class, () -> new TimeOrderedIdGenerator(1 << 16));
+        assertThrows(IllegalArgumentException.class, () -> new TimeOrderedIdGenerator(-1));
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.receiptprocessor.wire;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.receiptprocessor.model.BatchResult;
+import com.example.receiptprocessor.model.Item;
+import com.example.receiptprocessor.model.Receipt;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ReceiptWireFormatTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Receipts in plain form should decode equal to the receipt encoded")
+    void testRoundTrip() throws IOException {
+        for (String path : new String[] { "/mockdata/morning-receipt.json", "/mockdata/simple-receipt.json" }) {
+            // Given
+            Receipt receipt = load(path);
+
+            // When
+            Receipt decoded = ReceiptWireFormat.decodeReceipt(ReceiptWireFormat.encodeReceipt(receipt));
+
+            // Then
+            assertEquals(receipt, decoded, path);
+        }
+    }
+
+    @Test
+    @DisplayName("Amounts should decode in their canonical two-decimal form")
+    void testCanonicalAmounts() {
+        // Given
+        Receipt receipt = receipt("6.5", item("Dasani", "06"), item("Gatorade", "0.05"));
+
+        // When
+        Receipt decoded = ReceiptWireFormat.decodeReceipt(ReceiptWireFormat.encodeReceipt(receipt));
+
+        // Then
+        assertEquals("6.50", decoded.getTotal());
+        assertEquals("6.00", decoded.getItems().get(0).getPrice());
+        assertEquals("0.05", decoded.getItems().get(1).getPrice());
+    }
+
+    @Test
+    @DisplayName("Null fields and a null item list should survive the round trip")
+    void testNulls() {
+        // Given
+        Receipt receipt = new Receipt();
+
+        // When
+        Receipt decoded = ReceiptWireFormat.decodeReceipt(ReceiptWireFormat.encodeReceipt(receipt));
+
+        // Then
+        assertEquals(receipt, decoded);
+        assertNull(decoded.getItems());
+    }
+
+    @Test
+    @DisplayName("Fields with no plain form should be rejected when encoding")
+    void testRejectsUnusualForms() {
+        assertThrows(IllegalArgumentException.class, () -> ReceiptWireFormat.encodeReceipt(receipt(" 6.49")));
+        assertThrows(IllegalArgumentException.class, () -> ReceiptWireFormat.encodeReceipt(receipt("-1.00")));
+
+        Receipt badDate = receipt("6.49");
+        badDate.setPurchaseDate("2022-04-31");
+        assertThrows(IllegalArgumentException.class, () -> ReceiptWireFormat.encodeReceipt(badDate));
+
+        Receipt badTime = receipt("6.49");
+        badTime.setPurchaseTime("14:00:01");
+        assertThrows(IllegalArgumentException.class, () -> ReceiptWireFormat.encodeReceipt(badTime));
+    }
+
+    @Test
+    @DisplayName("Truncated, padded and out-of-range bodies should be rejected")
+    void testMalformedBodies() {
+        // Given
+        byte[] encoded = ReceiptWireFormat.encodeReceipt(receipt("6.49", item("Dasani", "1.40")));
+        byte[] padded = Arrays.copyOf(encoded, encoded.length + 1);
+        // Retailer null, then date 20220431 + 1, time and total null, no items
+        byte[] impossibleDate = { 0, (byte) 0x90, (byte) 0x94, (byte) 0xD2, 0x09, 0, 0, 0 };
+
+        // When/Then
+        for (int length = 0; length < encoded.length; length++) {
+            byte[] truncated = Arrays.copyOf(encoded, length);
+            assertThrows(IllegalArgumentException.class, () -> ReceiptWireFormat.decodeReceipt(truncated));
+        }
+        assertThrows(IllegalArgumentException.class, () -> ReceiptWireFormat.decodeReceipt(padded));
+        assertThrows(IllegalArgumentException.class, () -> ReceiptWireFormat.decodeReceipt(impossibleDate));
+    }
+
+    @Test
+    @DisplayName("A batch entry that cannot be decoded should be null without failing the batch")
+    void testBatchWithBadEntry() {
+        // Given
+        Receipt receipt = receipt("6.49", item("Dasani", "1.40"));
+        byte[] batch = ReceiptWireFormat.encodeReceipts(List.of(receipt, receipt));
+        // Turn the second entry's date, 2022-01-01, into the 59th of January
+        int secondEntry = 1 + 1 + batch[1];
+        int dateOffset = secondEntry + 1 + 1 + "Target".length();
+        batch[dateOffset] = (byte) 0xFF;
+
+        // When
+        List<Receipt> decoded = ReceiptWireFormat.decodeReceipts(batch);
+
+        // Then
+        assertEquals(2, decoded.size());
+        assertEquals(receipt, decoded.get(0));
+        assertNull(decoded.get(1));
+    }
+
+    @Test
+    @DisplayName("Points, IDs and batch results should round trip")
+    void testResponses() {
+        // Given
+        BatchResult result = new BatchResult();
+        result.getIds().addAll(Arrays.asList("id-1", null));
+        result.getErrors().add(new BatchResult.EntryError(1, "Receipt is missing or unreadable"));
+
+        // When/Then
+        for (int points : new int[] { 0, 1, 28, 109, -5, Integer.MAX_VALUE, Integer.MIN_VALUE }) {
+            assertEquals(points, ReceiptWireFormat.decodePoints(ReceiptWireFormat.encodePoints(points)));
+        }
+        assertEquals(1, ReceiptWireFormat.encodePoints(28).length);
+        assertEquals("123e4567-e89b-12d3-a456-426614174000",
+            ReceiptWireFormat.decodeId(ReceiptWireFormat.encodeId("123e4567-e89b-12d3-a456-426614174000")));
+        assertEquals(result, ReceiptWireFormat.decodeBatchResult(ReceiptWireFormat.encodeBatchResult(result)));
+    }
+
+    @Test
+    @DisplayName("Report bytes on the wire against JSON")
+    void testBytesOnWire() throws IOException {
+        List<Receipt> batch = new ArrayList<>();
+        for (String path : new String[] { "/mockdata/morning-receipt.json", "/mockdata/simple-receipt.json" }) {
+            Receipt receipt = load(path);
+            int json = objectMapper.writeValueAsBytes(receipt).length;
+            int binary = ReceiptWireFormat.encodeReceipt(receipt).length;
+            System.out.printf("%s: json=%d bytes, binary=%d bytes%n", path, json, binary);
+            assertTrue(binary < json, path);
+            batch.add(receipt);
+        }
+        int json = objectMapper.writeValueAsBytes(batch).length;
+        int binary = ReceiptWireFormat.encodeReceipts(batch).length;
+        System.out.printf("batch: json=%d bytes, binary=%d bytes%n", json, binary);
+        assertArrayEquals(ReceiptWireFormat.encodeReceipts(batch),
+            ReceiptWireFormat.encodeReceipts(ReceiptWireFormat.decodeReceipts(ReceiptWireFormat.encodeReceipts(batch))));
+    }
+
+    private Receipt load(String path) throws IOException {
+        try (InputStream is = getClass().getResourceAsStream(path)) {
+            return objectMapper.readValue(is, Receipt.class);
+        }
+    }
+
+    private static Receipt receipt(String total, Item... items) {
+        Receipt receipt = new Receipt();
+        receipt.setRetailer("Target");
+        receipt.setPurchaseDate("2022-01-01");
+        receipt.setPurchaseTime("13:01");
+        receipt.setTotal(total);
+        receipt.setItems(new ArrayList<>(List.of(items)));
+        return receipt;
+    }
+
+    private static Item item(String description, String price) {
+        Item item = new Item();
+        item.setShortDescription(description);
+        item.setPrice(price);
+        return item;
+    }
+}